@@ -40,14 +40,21 @@ public class MainActivity extends AppCompatActivity {
                     .addToBackStack(null)
                     .commit();
             headerTitle.setText("Notepad");
+            FirestoreManager.getInstance(this).getReadBudget().setCurrentScreen("Notepad");
         });
 
         bottomNav = findViewById(R.id.bottom_navigation);
         bottomNav.setOnItemSelectedListener(navListener);
         bottomNav.setBackgroundColor(getResources().getColor(R.color.surface));
 
+        // Warn once a day when Firestore reads pass the budget set in Settings
+        FirestoreManager.getInstance(this).getReadBudget().setOnBudgetExceededListener((readsToday, dailyBudget) ->
+                Toast.makeText(this, "Daily read budget reached (" + readsToday + " of " + dailyBudget + " reads)",
+                        Toast.LENGTH_LONG).show());
+
         // Load default fragment
         if (savedInstanceState == null) {
+            FirestoreManager.getInstance(this).getReadBudget().setCurrentScreen("Dashboard");
             getSupportFragmentManager().beginTransaction()
                     .replace(R.id.fragment_container, new DashboardFragment())
                     .commit();
@@ -55,17 +62,34 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // Keep the current month's sales live while the app is visible
+        FirestoreManager.getInstance(this).startLiveSales();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        FirestoreManager firestoreManager = FirestoreManager.getInstance(this);
+        firestoreManager.stopLiveSales();
+        firestoreManager.flushPendingWrites();
+    }
+
     private final NavigationBarView.OnItemSelectedListener navListener =
             new NavigationBarView.OnItemSelectedListener() {
                 @Override
                 public boolean onNavigationItemSelected(@NonNull MenuItem item) {
                     Fragment selectedFragment = null;
                     String title = "GOLD Tea";
+                    String screen = null;
                     
                     int itemId = item.getItemId();
                     if (itemId == R.id.nav_dashboard) {
                         selectedFragment = new DashboardFragment();
                         title = "GOLD Tea";
+                        screen = "Dashboard";
                     } else if (itemId == R.id.nav_new_sale) {
                         selectedFragment = new NewSaleFragment();
                         title = "New Sale";
@@ -81,6 +105,9 @@ public class MainActivity extends AppCompatActivity {
                     }
                     
                     if (selectedFragment != null) {
+                        // Attribute the new screen's Firestore reads to it
+                        FirestoreManager.getInstance(MainActivity.this).getReadBudget()
+                                .setCurrentScreen(screen != null ? screen : title);
                         ((android.widget.TextView)findViewById(R.id.header_title)).setText(title);
                         getSupportFragmentManager().beginTransaction()
                                 .replace(R.id.fragment_container, selectedFragment)
@@ -0,0 +1,91 @@
+package com.goldtea.sales.data.customer;
+
+import com.goldtea.sales.data.model.Customer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * All known customers partitioned by village, each village's list sorted by name.
+ *
+ * Built once from the full customer list and then kept up to date one customer at a
+ * time, so looking up a village's customers is a map lookup. Villages and names are
+ * matched ignoring case and surrounding spaces. Main thread only.
+ */
+public class CustomerDirectory {
+
+    private static final Comparator<Customer> BY_NAME =
+            (c1, c2) -> c1.getCustomer_name().compareToIgnoreCase(c2.getCustomer_name());
+
+    private final Map<String, List<Customer>> byVillage = new HashMap<>();
+    private int size = 0;
+
+    /**
+     * Replace the contents with {@code customers}
+     */
+    public void rebuild(List<Customer> customers) {
+        byVillage.clear();
+        size = 0;
+        for (Customer customer : customers) {
+            if (!isValid(customer)) continue;
+            byVillage.computeIfAbsent(key(customer.getVillage()), k -> new ArrayList<>()).add(customer);
+        }
+        for (List<Customer> bucket : byVillage.values()) {
+            Collections.sort(bucket, BY_NAME);
+            // Drop duplicate names (legacy documents with other IDs)
+            for (int i = bucket.size() - 1; i > 0; i--) {
+                if (BY_NAME.compare(bucket.get(i), bucket.get(i - 1)) == 0) {
+                    bucket.remove(i);
+                }
+            }
+            size += bucket.size();
+        }
+    }
+
+    /**
+     * Insert {@code customer} into its village's list; returns false if it was already there
+     */
+    public boolean add(Customer customer) {
+        if (!isValid(customer)) return false;
+        List<Customer> bucket = byVillage.computeIfAbsent(key(customer.getVillage()), k -> new ArrayList<>());
+        int index = Collections.binarySearch(bucket, customer, BY_NAME);
+        if (index >= 0) return false;
+        bucket.add(-index - 1, customer);
+        size++;
+        return true;
+    }
+
+    /**
+     * Customers of {@code village} sorted by name; empty for an unknown village
+     */
+    public List<Customer> inVillage(String village) {
+        if (village == null) return Collections.emptyList();
+        List<Customer> bucket = byVillage.get(key(village));
+        return bucket != null ? Collections.unmodifiableList(bucket) : Collections.emptyList();
+    }
+
+    public boolean contains(String village, String customerName) {
+        if (village == null || customerName == null) return false;
+        Customer probe = new Customer();
+        probe.setCustomer_name(customerName.trim());
+        return Collections.binarySearch(inVillage(village), probe, BY_NAME) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean isValid(Customer customer) {
+        return customer != null && customer.getVillage() != null && customer.getCustomer_name() != null
+                && !customer.getCustomer_name().trim().isEmpty();
+    }
+
+    private static String key(String village) {
+        return village.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,374 @@
+package com.goldtea.sales.data.customer;
+
+import com.goldtea.sales.data.model.Customer;
+import com.goldtea.sales.data.model.Sale;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prefix trie over normalized customer names for autocomplete, ranked by how often and
+ * how recently each customer bought.
+ *
+ * Every word of a name starts a key ("ravi kumar" is found by "ra", "ravi k" and "ku"),
+ * so a lookup walks the typed prefix and collects the entries below it; nothing else is
+ * scanned. Purchase counts and last purchase dates come from the sales. Thread safe:
+ * lookups run on the autocomplete filter thread while new sales are recorded.
+ *
+ * Misspellings are found through a trigram index over phonetic keys (see
+ * {@link NameSimilarity}): names sharing enough trigrams with the query are scored by
+ * edit distance, so only a handful of candidates are compared.
+ */
+public class CustomerSuggestionIndex {
+
+    // A purchase a month ago weighs about a third of one today
+    private static final double RECENCY_DAYS = 30;
+    private static final double RECENCY_WEIGHT = 2;
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    // Share of trigrams a candidate must have in common with the query to be scored
+    private static final double MIN_GRAM_OVERLAP = 0.35;
+    private static final double MIN_NAME_SIMILARITY = 0.75;
+    private static final double MIN_PREFIX_SIMILARITY = 0.7;
+    // Shorter prefixes only match exactly
+    private static final int MIN_FUZZY_PREFIX = 4;
+
+    /**
+     * One customer with its purchase history
+     */
+    public static final class Suggestion {
+        private final String name;
+        private final String village;
+        private final String villageKey;
+        private final String phoneticKey;
+        private final int gramCount;
+        private int purchases;
+        private long lastPurchaseAt;
+
+        private Suggestion(String name, String village, String villageKey, String phoneticKey, int gramCount) {
+            this.name = name;
+            this.village = village;
+            this.villageKey = villageKey;
+            this.phoneticKey = phoneticKey;
+            this.gramCount = gramCount;
+        }
+
+        public String getName() { return name; }
+
+        public String getVillage() { return village; }
+
+        public int getPurchases() { return purchases; }
+
+        public long getLastPurchaseAt() { return lastPurchaseAt; }
+
+        /**
+         * log(1 + purchases) plus a bonus that halves roughly every three weeks since the last one
+         */
+        double score(long now) {
+            double score = Math.log1p(purchases);
+            if (lastPurchaseAt > 0) {
+                double ageDays = Math.max(0, now - lastPurchaseAt) / (double) DAY_MS;
+                score += RECENCY_WEIGHT * Math.exp(-ageDays / RECENCY_DAYS);
+            }
+            return score;
+        }
+    }
+
+    /**
+     * A customer whose name is spelled like the query
+     */
+    public static final class Match {
+        private final Suggestion suggestion;
+        private final double similarity;
+
+        private Match(Suggestion suggestion, double similarity) {
+            this.suggestion = suggestion;
+            this.similarity = similarity;
+        }
+
+        public Suggestion getSuggestion() { return suggestion; }
+
+        /**
+         * 1 for the same phonetic key, lower with each edit
+         */
+        public double getSimilarity() { return similarity; }
+    }
+
+    /**
+     * A match with its sort keys, computed once per lookup
+     */
+    private static final class Ranked {
+        final Suggestion suggestion;
+        final boolean local;
+        final double score;
+        final double similarity;
+
+        Ranked(Suggestion suggestion, boolean local, double score, double similarity) {
+            this.suggestion = suggestion;
+            this.local = local;
+            this.score = score;
+            this.similarity = similarity;
+        }
+    }
+
+    private static final Comparator<Ranked> RANKING = (a, b) -> {
+        if (a.local != b.local) return a.local ? -1 : 1;
+        int byScore = Double.compare(b.score, a.score);
+        return byScore != 0 ? byScore : a.suggestion.name.compareToIgnoreCase(b.suggestion.name);
+    };
+
+    private static final Comparator<Ranked> BY_SIMILARITY =
+            Comparator.<Ranked>comparingDouble(r -> -r.similarity).thenComparing(RANKING);
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        // Entries with a key ending here
+        private List<Suggestion> entries;
+    }
+
+    private final Node root = new Node();
+    // By village and normalized name
+    private final Map<String, Suggestion> entries = new HashMap<>();
+    // Trigram of a phonetic key to the entries containing it
+    private final Map<String, List<Suggestion>> grams = new HashMap<>();
+
+    /**
+     * Index {@code customers} and count purchases from {@code sales} (tombstones skipped).
+     * Customers seen only in sales are included as well.
+     */
+    public static CustomerSuggestionIndex build(List<Customer> customers, List<Sale> sales) {
+        CustomerSuggestionIndex index = new CustomerSuggestionIndex();
+        for (Customer customer : customers) {
+            index.entry(customer.getVillage(), customer.getCustomer_name());
+        }
+        for (Sale sale : sales) {
+            if (!sale.isDeleted()) {
+                index.recordPurchase(sale.getVillage(), sale.getCustomer_name(), sale.getDate());
+            }
+        }
+        return index;
+    }
+
+    public synchronized void add(Customer customer) {
+        entry(customer.getVillage(), customer.getCustomer_name());
+    }
+
+    public synchronized void recordPurchase(String village, String customerName, Date date) {
+        Suggestion suggestion = entry(village, customerName);
+        if (suggestion == null) return;
+        suggestion.purchases++;
+        if (date != null) {
+            suggestion.lastPurchaseAt = Math.max(suggestion.lastPurchaseAt, date.getTime());
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Up to {@code limit} customers whose name has a word starting with {@code prefix},
+     * customers of {@code village} (may be null) first, then by score
+     */
+    public List<Suggestion> suggest(String prefix, String village, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) return Collections.emptyList();
+        String villageKey = village != null ? normalize(village) : null;
+        long now = System.currentTimeMillis();
+
+        List<Ranked> ranked;
+        synchronized (this) {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node == null) return Collections.emptyList();
+            // A name with two matching words is collected once
+            Set<Suggestion> found = new LinkedHashSet<>();
+            collect(node, found);
+            // Purchases are recorded concurrently; take the scores under the lock
+            ranked = new ArrayList<>(found.size());
+            for (Suggestion suggestion : found) {
+                ranked.add(new Ranked(suggestion, suggestion.villageKey.equals(villageKey), suggestion.score(now), 1));
+            }
+        }
+        ranked.sort(RANKING);
+        List<Suggestion> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            result.add(ranked.get(i).suggestion);
+        }
+        return result;
+    }
+
+    /**
+     * {@link #suggest} topped up with names a word of which is spelled like {@code prefix},
+     * for the autocomplete dropdown
+     */
+    public List<Suggestion> complete(String prefix, String village, int limit) {
+        List<Suggestion> result = new ArrayList<>(suggest(prefix, village, limit));
+        if (result.size() >= limit) return result;
+        for (Ranked match : fuzzy(prefix, village, false, MIN_PREFIX_SIMILARITY)) {
+            if (result.size() >= limit) break;
+            if (!result.contains(match.suggestion)) result.add(match.suggestion);
+        }
+        return result;
+    }
+
+    /**
+     * Up to {@code limit} customers whose whole name is spelled like {@code name}, most
+     * similar first
+     */
+    public List<Match> similar(String name, String village, int limit) {
+        List<Match> matches = new ArrayList<>();
+        for (Ranked match : fuzzy(name, village, true, MIN_NAME_SIMILARITY)) {
+            if (matches.size() >= limit) break;
+            matches.add(new Match(match.suggestion, match.similarity));
+        }
+        return matches;
+    }
+
+    /**
+     * Customers of {@code village} that {@code customerName} is probably a misspelling of;
+     * empty when the name is already known there
+     */
+    public List<Match> possibleDuplicates(String village, String customerName, int limit) {
+        if (village == null || customerName == null) return Collections.emptyList();
+        String villageKey = normalize(village);
+        synchronized (this) {
+            if (entries.containsKey(villageKey + '\u0000' + normalize(customerName))) {
+                return Collections.emptyList();
+            }
+        }
+        List<Match> matches = new ArrayList<>();
+        for (Ranked match : fuzzy(customerName, village, true, MIN_NAME_SIMILARITY)) {
+            if (matches.size() >= limit) break;
+            if (match.local) matches.add(new Match(match.suggestion, match.similarity));
+        }
+        return matches;
+    }
+
+    /**
+     * Entries scored by similarity to {@code text}, best first and local before others at
+     * equal similarity. A {@code complete} name is compared whole; otherwise {@code text}
+     * is the start of a word and is compared with each word's start.
+     */
+    private List<Ranked> fuzzy(String text, String village, boolean complete, double minimum) {
+        String key = NameSimilarity.phoneticKey(normalize(text));
+        if (key.isEmpty() || (!complete && key.length() < MIN_FUZZY_PREFIX)) return Collections.emptyList();
+        Set<String> queryGrams = NameSimilarity.trigrams(key, complete);
+        String villageKey = village != null ? normalize(village) : null;
+        long now = System.currentTimeMillis();
+
+        List<Ranked> ranked = new ArrayList<>();
+        synchronized (this) {
+            Map<Suggestion, Integer> shared = new HashMap<>();
+            for (String gram : queryGrams) {
+                List<Suggestion> posting = grams.get(gram);
+                if (posting == null) continue;
+                for (Suggestion suggestion : posting) {
+                    shared.merge(suggestion, 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<Suggestion, Integer> candidate : shared.entrySet()) {
+                Suggestion suggestion = candidate.getKey();
+                // Dice coefficient for whole names; a prefix only needs its own trigrams found
+                double overlap = complete
+                        ? 2.0 * candidate.getValue() / (queryGrams.size() + suggestion.gramCount)
+                        : (double) candidate.getValue() / queryGrams.size();
+                if (overlap < MIN_GRAM_OVERLAP) continue;
+                double similarity = complete
+                        ? NameSimilarity.similarity(key, suggestion.phoneticKey, minimum)
+                        : prefixSimilarity(key, suggestion.phoneticKey, minimum);
+                if (similarity < minimum) continue;
+                ranked.add(new Ranked(suggestion, suggestion.villageKey.equals(villageKey),
+                        suggestion.score(now), similarity));
+            }
+        }
+        ranked.sort(BY_SIMILARITY);
+        return ranked;
+    }
+
+    private static double prefixSimilarity(String prefix, String key, double minimum) {
+        double best = 0;
+        for (int start = 0; start < key.length(); start++) {
+            if (start > 0 && key.charAt(start - 1) != ' ') continue;
+            String wordStart = key.substring(start, Math.min(key.length(), start + prefix.length()));
+            best = Math.max(best, NameSimilarity.similarity(prefix, wordStart, minimum));
+        }
+        return best;
+    }
+
+    /**
+     * Lower case, accents removed, punctuation folded to single spaces
+     */
+    public static String normalize(String text) {
+        if (text == null) return "";
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+        return decomposed.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{M}\\p{N}]+", " ")
+                .trim();
+    }
+
+    private static void collect(Node node, Set<Suggestion> found) {
+        if (node.entries != null) {
+            found.addAll(node.entries);
+        }
+        for (Node child : node.children.values()) {
+            collect(child, found);
+        }
+    }
+
+    private Suggestion entry(String village, String customerName) {
+        if (village == null || customerName == null) return null;
+        String name = customerName.trim();
+        String normalized = normalize(name);
+        if (normalized.isEmpty()) return null;
+
+        String villageKey = normalize(village);
+        String id = villageKey + '\u0000' + normalized;
+        Suggestion suggestion = entries.get(id);
+        if (suggestion != null) return suggestion;
+
+        String phoneticKey = NameSimilarity.phoneticKey(normalized);
+        Set<String> keyGrams = NameSimilarity.trigrams(phoneticKey, true);
+        suggestion = new Suggestion(name, village.trim(), villageKey, phoneticKey, keyGrams.size());
+        entries.put(id, suggestion);
+        for (String gram : keyGrams) {
+            grams.computeIfAbsent(gram, g -> new ArrayList<>(2)).add(suggestion);
+        }
+        // One key from the start of each word
+        for (int start = 0; start < normalized.length(); start++) {
+            if (start == 0 || normalized.charAt(start - 1) == ' ') {
+                insert(normalized.substring(start), suggestion);
+            }
+        }
+        return suggestion;
+    }
+
+    private void insert(String key, Suggestion suggestion) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                child = new Node();
+                node.children.put(c, child);
+            }
+            node = child;
+        }
+        if (node.entries == null) {
+            node.entries = new ArrayList<>(1);
+        }
+        node.entries.add(suggestion);
+    }
+}
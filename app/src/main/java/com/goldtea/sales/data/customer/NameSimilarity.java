@@ -0,0 +1,105 @@
+package com.goldtea.sales.data.customer;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Keys and distances for matching hand-typed customer names.
+ *
+ * The phonetic key folds the usual spelling variants of transliterated Indian names onto
+ * one form: aspirates lose their h (Bhim, Bim), sh and s merge (Shiva, Siva), x and ksh
+ * become ks (Laxmi, Lakshmi), long vowels shorten (Geeta, Gita), w is v, z is j, doubled
+ * letters collapse and a final a is dropped (Rama, Ram). Input is a normalized name.
+ */
+final class NameSimilarity {
+
+    private static final String[][] FOLDS = {
+            {"ksh", "ks"}, {"x", "ks"}, {"chh", "c"}, {"ch", "c"}, {"sh", "s"},
+            {"bh", "b"}, {"dh", "d"}, {"th", "t"}, {"kh", "k"}, {"gh", "g"}, {"jh", "j"}, {"ph", "p"},
+            {"w", "v"}, {"z", "j"}, {"q", "k"}, {"ck", "k"},
+            {"ee", "i"}, {"ii", "i"}, {"oo", "u"}, {"uu", "u"}, {"aa", "a"}, {"y", "i"}
+    };
+
+    private NameSimilarity() {
+    }
+
+    /**
+     * Phonetic key of a normalized name, words kept apart by single spaces
+     */
+    static String phoneticKey(String normalized) {
+        String key = normalized;
+        for (String[] fold : FOLDS) {
+            key = key.replace(fold[0], fold[1]);
+        }
+        StringBuilder out = new StringBuilder(key.length());
+        int wordStart = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == ' ') wordStart = i + 1;
+            if (i > 0 && c == key.charAt(i - 1)) continue;
+            // Final a of a word of four letters or more
+            boolean wordEnd = i == key.length() - 1 || key.charAt(i + 1) == ' ';
+            if (c == 'a' && wordEnd && i - wordStart >= 3) continue;
+            out.append(c);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Distinct trigrams of {@code key} padded with a space at the start, and at the end when
+     * {@code complete} (a prefix being typed has no end yet)
+     */
+    static Set<String> trigrams(String key, boolean complete) {
+        String padded = " " + key + (complete ? " " : "");
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Edit distance counting an adjacent transposition as one edit, or {@code max + 1}
+     * once it is known to exceed {@code max}
+     */
+    static int distance(CharSequence a, CharSequence b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) return max + 1;
+        int[] before = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) previous[j] = j;
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, before[j - 2] + 1);
+                }
+                current[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > max) return max + 1;
+            int[] recycled = before;
+            before = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+
+    /**
+     * 1 for equal keys down to 0, from the edit distance relative to the longer key;
+     * below {@code minimum} the exact value is not computed and 0 is returned
+     */
+    static double similarity(String a, String b, double minimum) {
+        int length = Math.max(a.length(), b.length());
+        if (length == 0) return 1;
+        int max = (int) Math.floor((1 - minimum) * length);
+        int d = distance(a, b, max);
+        return d > max ? 0 : 1 - (double) d / length;
+    }
+}
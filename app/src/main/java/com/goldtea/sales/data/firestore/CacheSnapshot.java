@@ -0,0 +1,67 @@
+package com.goldtea.sales.data.firestore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable cached query result together with the time it was loaded.
+ *
+ * Snapshots are published through an AtomicReference, so readers on any thread get a
+ * consistent list and can hand it to listeners without a defensive copy.
+ */
+final class CacheSnapshot<T> {
+
+    /**
+     * The fields of an item that matter to the UI, for change detection
+     */
+    interface ContentKey<T> {
+        Object of(T item);
+    }
+
+    final List<T> items;
+    final long loadedAt;
+
+    private CacheSnapshot(List<T> items, long loadedAt) {
+        this.items = items;
+        this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Copy {@code items} once into an unmodifiable snapshot stamped with the current time
+     */
+    static <T> CacheSnapshot<T> of(List<T> items) {
+        return of(items, System.currentTimeMillis());
+    }
+
+    /**
+     * Snapshot of items loaded earlier, e.g. restored from disk
+     */
+    static <T> CacheSnapshot<T> of(List<T> items, long loadedAt) {
+        return new CacheSnapshot<>(Collections.unmodifiableList(new ArrayList<>(items)), loadedAt);
+    }
+
+    /**
+     * Same load time, new contents (used when patching after a local write)
+     */
+    CacheSnapshot<T> withItems(List<T> newItems) {
+        return new CacheSnapshot<>(Collections.unmodifiableList(new ArrayList<>(newItems)), loadedAt);
+    }
+
+    boolean isFresh(long ttlMs) {
+        return System.currentTimeMillis() - loadedAt < ttlMs;
+    }
+
+    /**
+     * True when both lists hold the same items, in the same order, by {@code key}
+     */
+    static <T> boolean sameContent(List<T> a, List<T> b, ContentKey<T> key) {
+        if (a == b) return true;
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (!Objects.equals(key.of(a.get(i)), key.of(b.get(i)))) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,84 @@
+package com.goldtea.sales.data.firestore;
+
+import com.goldtea.sales.data.model.DailySummary;
+import com.goldtea.sales.data.model.Sale;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Write side of the daily_summary rollups.
+ *
+ * A sale write is turned into the change it makes to its day's totals, and that change
+ * is added to the same WriteCoalescer group as the sale itself, as FieldValue.increment
+ * merges. Concurrent writers on other devices therefore never overwrite each other.
+ */
+final class DailySummaries {
+    static final String COLLECTION = "daily_summary";
+
+    private DailySummaries() {
+    }
+
+    /**
+     * Add the summary change for replacing {@code before} with {@code after}; either may be
+     * null (a new sale, a deleted sale)
+     */
+    static void addChange(FirebaseFirestore db, WriteCoalescer.Group group, Sale before, Sale after) {
+        Map<String, DailySummary> deltas = new HashMap<>();
+        if (before != null && before.getDate() != null) {
+            deltaFor(deltas, before).add(before, -1);
+        }
+        if (after != null && after.getDate() != null) {
+            deltaFor(deltas, after).add(after, 1);
+        }
+        for (DailySummary delta : deltas.values()) {
+            group.set(db.collection(COLLECTION).document(delta.getDay()), increments(delta), SetOptions.merge());
+        }
+    }
+
+    private static DailySummary deltaFor(Map<String, DailySummary> deltas, Sale sale) {
+        String day = DailySummary.dayKey(sale.getDate());
+        DailySummary delta = deltas.get(day);
+        if (delta == null) {
+            delta = new DailySummary(sale.getDate());
+            deltas.put(day, delta);
+        }
+        return delta;
+    }
+
+    /**
+     * Encode a delta as increments, leaving out groups it does not change
+     */
+    private static Map<String, Object> increments(DailySummary delta) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("day", delta.getDay());
+        data.put("date", delta.getDate());
+        data.put("count", FieldValue.increment(delta.getCount()));
+        data.put("total_amount", FieldValue.increment(delta.getTotal_amount()));
+        data.put("amount_paid", FieldValue.increment(delta.getAmount_paid()));
+        data.put("balance", FieldValue.increment(delta.getBalance()));
+        putBuckets(data, "tea_types", delta.getTea_types());
+        putBuckets(data, "packaging", delta.getPackaging());
+        putBuckets(data, "payment_status", delta.getPayment_status());
+        putBuckets(data, "customers", delta.getCustomers());
+        return data;
+    }
+
+    private static void putBuckets(Map<String, Object> data, String field, Map<String, DailySummary.Bucket> buckets) {
+        Map<String, Object> changed = new HashMap<>();
+        for (Map.Entry<String, DailySummary.Bucket> entry : buckets.entrySet()) {
+            DailySummary.Bucket bucket = entry.getValue();
+            if (bucket.getCount() == 0 && bucket.getTotal_amount() == 0) continue;
+            Map<String, Object> values = new HashMap<>();
+            values.put("count", FieldValue.increment(bucket.getCount()));
+            values.put("total_amount", FieldValue.increment(bucket.getTotal_amount()));
+            changed.put(entry.getKey(), values);
+        }
+        if (!changed.isEmpty()) {
+            data.put(field, changed);
+        }
+    }
+}
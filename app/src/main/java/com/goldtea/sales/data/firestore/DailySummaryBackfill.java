@@ -0,0 +1,234 @@
+package com.goldtea.sales.data.firestore;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.goldtea.sales.data.local.LocalSalesStore;
+import com.goldtea.sales.data.local.SalesFilter;
+import com.goldtea.sales.data.model.DailySummary;
+import com.goldtea.sales.data.model.Sale;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * One-shot rebuild of daily_summary from the local sales mirror, for sales written
+ * before the write path maintained the rollups.
+ *
+ * Runs only once the mirror holds a full copy of the collection. Every day with sales
+ * is replaced with totals computed from the mirror, one day at a time. The day document
+ * is read from the server first, then a delta sync brings the mirror up to date, so it
+ * holds every sale whose increment that document counts. A transaction replaces the day
+ * only if the document still matches what was read; an increment from the write path
+ * (or another device's backfill) landing in between makes the day be read and counted
+ * again instead of being overwritten. From then on the write path keeps the days
+ * current with increments.
+ * Completion is recorded locally and in meta/migrations, and readers only trust the
+ * rollups once it is complete.
+ */
+class DailySummaryBackfill {
+    private static final String TAG = "DailySummaryBackfill";
+    static final int VERSION = 1;
+
+    private static final String PREFS_NAME = "GoldTeaMigrations";
+    private static final String KEY_VERSION = "daily_summary_version";
+    private static final String META_COLLECTION = "meta";
+    private static final String MIGRATIONS_DOC = "migrations";
+    // Recounts of one day before the backfill gives up until the next start
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final FirebaseFirestore db;
+    private final WriteCoalescer writeCoalescer;
+    private final LocalSalesStore localSalesStore;
+    private final SalesDeltaSync salesDeltaSync;
+    private final Executor executor;
+    private final SharedPreferences prefs;
+    private final ReadBudget readBudget;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean running = false;
+
+    DailySummaryBackfill(Context context, FirebaseFirestore db, WriteCoalescer writeCoalescer,
+                         LocalSalesStore localSalesStore, SalesDeltaSync salesDeltaSync,
+                         Executor executor, ReadBudget readBudget) {
+        this.db = db;
+        this.readBudget = readBudget;
+        this.writeCoalescer = writeCoalescer;
+        this.localSalesStore = localSalesStore;
+        this.salesDeltaSync = salesDeltaSync;
+        this.executor = executor;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * True once daily_summary covers every sale and can answer reports
+     */
+    boolean isComplete() {
+        return prefs.getInt(KEY_VERSION, 0) >= VERSION;
+    }
+
+    /**
+     * Start the backfill; the caller must make sure the mirror is fully synced
+     */
+    void run() {
+        if (isComplete() || running) return;
+        running = true;
+
+        db.collection(META_COLLECTION).document(MIGRATIONS_DOC).get()
+                .addOnSuccessListener(doc -> {
+                    readBudget.record(ReadBudget.BACKGROUND, "dailySummaryBackfill", ReadBudget.billedReads(doc));
+                    if (doc.getMetadata().isFromCache()) {
+                        Log.d(TAG, "Offline, postponing daily summary backfill");
+                        running = false;
+                        return;
+                    }
+                    Long remoteVersion = doc.exists() ? doc.getLong(KEY_VERSION) : null;
+                    if (remoteVersion != null && remoteVersion >= VERSION) {
+                        Log.d(TAG, "Daily summary backfill already recorded remotely");
+                        markComplete(false);
+                        return;
+                    }
+                    rebuild();
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Could not read migration marker", e);
+                    running = false;
+                });
+    }
+
+    private void rebuild() {
+        localSalesStore.query(new SalesFilter(), new FirestoreManager.OnSalesLoadedListener() {
+            @Override
+            public void onSalesLoaded(List<Sale> sales) {
+                // Grouping every sale by day is too slow for the main thread
+                executor.execute(() -> {
+                    List<Date> days = new ArrayList<>();
+                    for (DailySummary day : DailySummary.byDay(sales)) {
+                        days.add(day.getDate());
+                    }
+                    Log.d(TAG, "Rebuilding " + days.size() + " daily summaries from " + sales.size() + " sales");
+                    mainHandler.post(() -> write(days, 0, 0));
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Could not read the sales mirror: " + error);
+                running = false;
+            }
+        });
+    }
+
+    /**
+     * Replace the days from {@code index} on, one at a time. Main thread.
+     */
+    private void write(List<Date> days, int index, int attempt) {
+        if (index >= days.size()) {
+            markComplete(true);
+            return;
+        }
+        if (attempt >= MAX_ATTEMPTS) {
+            Log.e(TAG, "Daily summary backfill kept changing under day " + DailySummary.dayKey(days.get(index)));
+            running = false;
+            return;
+        }
+        Date day = days.get(index);
+        DocumentReference ref = db.collection(DailySummaries.COLLECTION).document(DailySummary.dayKey(day));
+        ref.get(Source.SERVER).addOnSuccessListener(counted -> {
+            readBudget.record(ReadBudget.BACKGROUND, "dailySummaryBackfill", 1);
+            salesDeltaSync.sync(synced -> {
+                if (!synced) {
+                    Log.d(TAG, "Mirror could not be brought up to date, postponing daily summary backfill");
+                    running = false;
+                    return;
+                }
+                summarize(day, summary -> replace(days, index, attempt, ref, counted.getData(), summary));
+            });
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, "Daily summary backfill could not read " + ref.getId(), e);
+            running = false;
+        });
+    }
+
+    /**
+     * Set the day to {@code summary} unless its document has changed since it was
+     * {@code counted}, in which case the day is read and counted again
+     */
+    private void replace(List<Date> days, int index, int attempt, DocumentReference ref,
+                         Map<String, Object> counted, DailySummary summary) {
+        // The function runs on a background thread and again on every retry
+        db.runTransaction(transaction -> {
+            DocumentSnapshot current = transaction.get(ref);
+            if (!Objects.equals(current.getData(), counted)) return false;
+            transaction.set(ref, summary);
+            return true;
+        }).addOnSuccessListener(replaced -> {
+            readBudget.record(ReadBudget.BACKGROUND, "dailySummaryBackfill", 1);
+            if (replaced) {
+                write(days, index + 1, 0);
+            } else {
+                Log.d(TAG, "Day changed while it was counted, counting again: " + ref.getId());
+                write(days, index, attempt + 1);
+            }
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, "Daily summary backfill failed at " + ref.getId(), e);
+            running = false;
+        });
+    }
+
+    private interface OnSummaryListener {
+        void onSummary(DailySummary summary);
+    }
+
+    /**
+     * The day's totals from the mirror, queried on the store's thread. Main thread.
+     */
+    private void summarize(Date day, OnSummaryListener listener) {
+        Date start = DailySummary.startOfDay(day);
+        Calendar next = Calendar.getInstance();
+        next.setTime(start);
+        next.add(Calendar.DAY_OF_MONTH, 1);
+        SalesFilter filter = new SalesFilter()
+                .setStartDate(start)
+                .setEndDate(new Date(next.getTimeInMillis() - 1));
+        localSalesStore.query(filter, new FirestoreManager.OnSalesLoadedListener() {
+            @Override
+            public void onSalesLoaded(List<Sale> sales) {
+                List<DailySummary> summaries = DailySummary.byDay(sales);
+                listener.onSummary(summaries.isEmpty() ? new DailySummary(start) : summaries.get(0));
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Could not count " + DailySummary.dayKey(start) + " from the mirror: " + error);
+                running = false;
+            }
+        });
+    }
+
+    private void markComplete(boolean recordRemotely) {
+        if (recordRemotely) {
+            writeCoalescer.group()
+                    .set(db.collection(META_COLLECTION).document(MIGRATIONS_DOC),
+                            Collections.singletonMap(KEY_VERSION, VERSION),
+                            SetOptions.merge())
+                    .commit(null);
+        }
+        prefs.edit().putInt(KEY_VERSION, VERSION).apply();
+        running = false;
+        Log.i(TAG, "Daily summary backfill v" + VERSION + " complete");
+    }
+}
@@ -0,0 +1,201 @@
+package com.goldtea.sales.data.firestore;
+
+import com.goldtea.sales.data.model.Customer;
+import com.goldtea.sales.data.model.DailySummary;
+import com.goldtea.sales.data.model.Note;
+import com.goldtea.sales.data.model.Pricing;
+import com.goldtea.sales.data.model.Sale;
+import com.goldtea.sales.data.model.Village;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hand-written decoders from DocumentSnapshot to the model classes.
+ *
+ * They read each field with the typed getters instead of going through
+ * toObject()'s reflective bean mapping, which dominated decode time on large
+ * range loads. Field names must match what the models serialize to; a missing
+ * field keeps the same default toObject() would leave (0, false or the
+ * constructor's value), except sale and note timestamps, which stay null rather
+ * than becoming the decode time. Keep these in step with the model classes.
+ */
+final class DocumentCodecs {
+
+    /**
+     * The typed getters the decoders read, with DocumentSnapshot's semantics: numbers of
+     * either type convert, timestamps come back as Dates, missing fields as null
+     */
+    interface Fields {
+        String getId();
+
+        Object get(String field);
+
+        String getString(String field);
+
+        Double getDouble(String field);
+
+        Long getLong(String field);
+
+        Boolean getBoolean(String field);
+
+        Date getDate(String field);
+    }
+
+    private DocumentCodecs() {
+    }
+
+    static Sale decodeSale(DocumentSnapshot doc) {
+        return decodeSale(new SnapshotFields(doc));
+    }
+
+    static Village decodeVillage(DocumentSnapshot doc) {
+        return decodeVillage(new SnapshotFields(doc));
+    }
+
+    static Pricing decodePricing(DocumentSnapshot doc) {
+        return decodePricing(new SnapshotFields(doc));
+    }
+
+    static Customer decodeCustomer(DocumentSnapshot doc) {
+        return decodeCustomer(new SnapshotFields(doc));
+    }
+
+    static Note decodeNote(DocumentSnapshot doc) {
+        return decodeNote(new SnapshotFields(doc));
+    }
+
+    static DailySummary decodeDailySummary(DocumentSnapshot doc) {
+        return decodeDailySummary(new SnapshotFields(doc));
+    }
+
+    static Sale decodeSale(Fields doc) {
+        Sale sale = Sale.blank();
+        sale.setSale_id(doc.getId());
+        sale.setDate(doc.getDate("date"));
+        sale.setDay(doc.getString("day"));
+        sale.setVillage(doc.getString("village"));
+        sale.setCustomer_name(doc.getString("customer_name"));
+        sale.setBrand(doc.getString("brand"));
+        sale.setTea_type(doc.getString("tea_type"));
+        sale.setPackaging(doc.getString("packaging"));
+        sale.setRate(doubleOf(doc.getDouble("rate")));
+        sale.setQuantity(doubleOf(doc.getDouble("quantity")));
+        sale.setTotal_amount(doubleOf(doc.getDouble("total_amount")));
+        sale.setPayment_status(doc.getString("payment_status"));
+        sale.setAmount_paid(doubleOf(doc.getDouble("amount_paid")));
+        sale.setBalance(doubleOf(doc.getDouble("balance")));
+        sale.setCreated_at(doc.getDate("created_at"));
+        sale.setUpdated_at(doc.getDate("updated_at"));
+        sale.setDeleted(Boolean.TRUE.equals(doc.getBoolean("deleted")));
+        return sale;
+    }
+
+    static Village decodeVillage(Fields doc) {
+        Village village = new Village();
+        village.setName(doc.getString("name"));
+        village.setDay(doc.getString("day"));
+        Date addedOn = doc.getDate("added_on");
+        if (addedOn != null) village.setAdded_on(addedOn);
+        return village;
+    }
+
+    static Pricing decodePricing(Fields doc) {
+        Pricing pricing = new Pricing();
+        pricing.setPackage(doc.getString("package"));
+        pricing.setTea_type(doc.getString("tea_type"));
+        Long rate = doc.getLong("rate");
+        pricing.setRate(rate != null ? rate.intValue() : 0);
+        Date updatedOn = doc.getDate("updated_on");
+        if (updatedOn != null) pricing.setUpdated_on(updatedOn);
+        return pricing;
+    }
+
+    static Customer decodeCustomer(Fields doc) {
+        Customer customer = new Customer();
+        customer.setVillage(doc.getString("village"));
+        customer.setCustomer_name(doc.getString("customer_name"));
+        Date addedOn = doc.getDate("added_on");
+        if (addedOn != null) customer.setAdded_on(addedOn);
+        return customer;
+    }
+
+    static Note decodeNote(Fields doc) {
+        Note note = Note.blank();
+        String noteId = doc.getString("note_id");
+        note.setNote_id(noteId != null ? noteId : doc.getId());
+        note.setTitle(doc.getString("title"));
+        note.setContent(doc.getString("content"));
+        note.setCreated_at(doc.getDate("created_at"));
+        note.setUpdated_at(doc.getDate("updated_at"));
+        return note;
+    }
+
+    static DailySummary decodeDailySummary(Fields doc) {
+        DailySummary summary = new DailySummary();
+        summary.setDay(doc.getId());
+        summary.setDate(doc.getDate("date"));
+        Long count = doc.getLong("count");
+        summary.setCount(count != null ? count : 0);
+        summary.setTotal_amount(doubleOf(doc.getDouble("total_amount")));
+        summary.setAmount_paid(doubleOf(doc.getDouble("amount_paid")));
+        summary.setBalance(doubleOf(doc.getDouble("balance")));
+        summary.setTea_types(decodeBuckets(doc.get("tea_types")));
+        summary.setPackaging(decodeBuckets(doc.get("packaging")));
+        summary.setPayment_status(decodeBuckets(doc.get("payment_status")));
+        summary.setCustomers(decodeBuckets(doc.get("customers")));
+        return summary;
+    }
+
+    private static final class SnapshotFields implements Fields {
+        private final DocumentSnapshot doc;
+
+        SnapshotFields(DocumentSnapshot doc) {
+            this.doc = doc;
+        }
+
+        @Override
+        public String getId() { return doc.getId(); }
+
+        @Override
+        public Object get(String field) { return doc.get(field); }
+
+        @Override
+        public String getString(String field) { return doc.getString(field); }
+
+        @Override
+        public Double getDouble(String field) { return doc.getDouble(field); }
+
+        @Override
+        public Long getLong(String field) { return doc.getLong(field); }
+
+        @Override
+        public Boolean getBoolean(String field) { return doc.getBoolean(field); }
+
+        @Override
+        public Date getDate(String field) { return doc.getDate(field); }
+    }
+
+    private static Map<String, DailySummary.Bucket> decodeBuckets(Object field) {
+        Map<String, DailySummary.Bucket> buckets = new HashMap<>();
+        if (!(field instanceof Map)) return buckets;
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) field).entrySet()) {
+            if (!(entry.getValue() instanceof Map)) continue;
+            Map<?, ?> values = (Map<?, ?>) entry.getValue();
+            buckets.put(String.valueOf(entry.getKey()), new DailySummary.Bucket(
+                    numberOf(values.get("count")).longValue(),
+                    numberOf(values.get("total_amount")).doubleValue()));
+        }
+        return buckets;
+    }
+
+    private static Number numberOf(Object value) {
+        return value instanceof Number ? (Number) value : 0;
+    }
+
+    private static double doubleOf(Double value) {
+        return value != null ? value : 0;
+    }
+}
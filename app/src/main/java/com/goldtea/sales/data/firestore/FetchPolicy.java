@@ -0,0 +1,155 @@
+package com.goldtea.sales.data.firestore;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Decides where reads are answered from, so a weak connection cannot stall a screen.
+ *
+ * Offline (or in cache-only budget mode) queries go straight to the offline cache. Online
+ * the server is asked, and if it has not answered within the deadline the cached result
+ * is delivered as provisional; the server answer follows when it arrives. A server
+ * failure caused by the network falls back to the cache.
+ */
+final class FetchPolicy {
+    private static final String TAG = "FetchPolicy";
+    static final long DEFAULT_DEADLINE_MS = 4000;
+
+    interface OnFetchedListener {
+        /**
+         * Called on the executor, at most twice: a provisional cache answer, then the server's
+         */
+        void onFetched(QuerySnapshot querySnapshot, boolean provisional);
+
+        void onFailed(Exception e);
+    }
+
+    private final BooleanSupplier online;
+    private final BooleanSupplier cacheOnly;
+    private final Executor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile long deadlineMs = DEFAULT_DEADLINE_MS;
+
+    /**
+     * @param executor serial executor that every answer is delivered on
+     */
+    FetchPolicy(BooleanSupplier online, BooleanSupplier cacheOnly, Executor executor) {
+        this.online = online;
+        this.cacheOnly = cacheOnly;
+        this.executor = executor;
+    }
+
+    long getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    void setDeadlineMs(long deadlineMs) {
+        this.deadlineMs = Math.max(0, deadlineMs);
+    }
+
+    /**
+     * False when reads should not wait for the server
+     */
+    boolean serverReachable() {
+        return online.getAsBoolean() && !cacheOnly.getAsBoolean();
+    }
+
+    /**
+     * Source for a single read without a deadline
+     */
+    Source source() {
+        return serverReachable() ? Source.DEFAULT : Source.CACHE;
+    }
+
+    void get(Query query, OnFetchedListener listener) {
+        if (!serverReachable()) {
+            fromCache(query, listener, null);
+            return;
+        }
+        new Race(query, listener).start();
+    }
+
+    /**
+     * Run {@code onDeadline} on the main thread once the deadline passes; returns the
+     * action that cancels it
+     */
+    Runnable deadline(Runnable onDeadline) {
+        mainHandler.postDelayed(onDeadline, deadlineMs);
+        return () -> mainHandler.removeCallbacks(onDeadline);
+    }
+
+    private void fromCache(Query query, OnFetchedListener listener, Exception serverError) {
+        query.get(Source.CACHE)
+                .addOnSuccessListener(executor, snapshot -> listener.onFetched(snapshot, false))
+                .addOnFailureListener(executor, e -> listener.onFailed(serverError != null ? serverError : e));
+    }
+
+    private static boolean isNetworkFailure(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException)) return false;
+        FirebaseFirestoreException.Code code = ((FirebaseFirestoreException) e).getCode();
+        return code == FirebaseFirestoreException.Code.UNAVAILABLE
+                || code == FirebaseFirestoreException.Code.DEADLINE_EXCEEDED;
+    }
+
+    /**
+     * One server fetch racing the deadline
+     */
+    private final class Race {
+        private final Query query;
+        private final OnFetchedListener listener;
+        private final Runnable onDeadline = this::serveCached;
+        private volatile boolean serverAnswered = false;
+        // Executor only
+        private boolean provisionalSent = false;
+
+        Race(Query query, OnFetchedListener listener) {
+            this.query = query;
+            this.listener = listener;
+        }
+
+        void start() {
+            mainHandler.postDelayed(onDeadline, deadlineMs);
+            query.get(Source.SERVER)
+                    .addOnSuccessListener(executor, snapshot -> {
+                        settle();
+                        listener.onFetched(snapshot, false);
+                    })
+                    .addOnFailureListener(executor, e -> {
+                        settle();
+                        if (provisionalSent) {
+                            Log.w(TAG, "Server fetch failed, keeping the cached answer", e);
+                        } else if (isNetworkFailure(e)) {
+                            Log.d(TAG, "Server unreachable, answering from cache");
+                            fromCache(query, listener, e);
+                        } else {
+                            listener.onFailed(e);
+                        }
+                    });
+        }
+
+        private void settle() {
+            serverAnswered = true;
+            mainHandler.removeCallbacks(onDeadline);
+        }
+
+        private void serveCached() {
+            if (serverAnswered) return;
+            query.get(Source.CACHE).addOnSuccessListener(executor, cached -> {
+                // Nothing cached is no better than waiting
+                if (serverAnswered || cached.isEmpty()) return;
+                Log.d(TAG, "Server missed the " + deadlineMs + "ms deadline, answering from cache");
+                provisionalSent = true;
+                listener.onFetched(cached, true);
+            });
+        }
+    }
+}
@@ -5,43 +5,80 @@ import android.net.ConnectivityManager;
 import android.net.Network;
 import android.net.NetworkCapabilities;
 import android.net.NetworkRequest;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import androidx.annotation.NonNull;
 
+import com.goldtea.sales.data.customer.CustomerDirectory;
+import com.goldtea.sales.data.customer.CustomerSuggestionIndex;
+import com.goldtea.sales.data.local.LocalSalesStore;
+import com.goldtea.sales.data.local.ReferenceDataStore;
+import com.goldtea.sales.data.local.SalesFilter;
 import com.goldtea.sales.data.model.Customer;
+import com.goldtea.sales.data.model.DailySummary;
 import com.goldtea.sales.data.model.Pricing;
 import com.goldtea.sales.data.model.Sale;
+import com.goldtea.sales.data.model.SalesTotals;
 import com.goldtea.sales.data.model.Village;
 import com.goldtea.sales.data.model.Note;
+import com.goldtea.sales.data.repository.DataRepository;
+import com.goldtea.sales.data.repository.PageCursor;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.AuthResult;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.AggregateField;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreSettings;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Firebase Firestore Manager - Replaces MongoDBManager
  * Provides all database operations using Firebase Firestore
  */
-public class FirestoreManager {
+public class FirestoreManager implements DataRepository {
     private static final String TAG = "FirestoreManager";
     private static FirestoreManager instance;
     
     private FirebaseFirestore db;
     private FirebaseAuth auth;
     private Context context;
+    private LocalSalesStore localSalesStore;
+    private ReferenceDataStore referenceDataStore;
+    private SalesDeltaSync salesDeltaSync;
+    private LiveSalesView liveSalesView;
+    private WriteCoalescer writeCoalescer;
+    private LegacyIdMigration legacyIdMigration;
+    private DailySummaryBackfill dailySummaryBackfill;
+    private final List<OnSalesChangedListener> salesChangedListeners = new ArrayList<>();
+    // Query results are decoded, deduplicated and sorted off the main thread; finished
+    // immutable lists are posted back, where caches are updated and listeners called
+    private final ExecutorService resultExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     
     // Collection names
     private static final String SALES_COLLECTION = "sales";
@@ -50,24 +87,48 @@ public class FirestoreManager {
     private static final String CUSTOMERS_COLLECTION = "customers";
     private static final String NOTES_COLLECTION = "notes";
 
-    private boolean isOnline = false;
+    private volatile boolean isOnline = false;
+    // Smoothed round trip of paginated server queries, used to tune prefetching
+    private static final long DEFAULT_ROUND_TRIP_MS = 800;
+    private volatile long roundTripMs = DEFAULT_ROUND_TRIP_MS;
     private OnConnectionStatusChangedListener connectionStatusListener;
 
     // In-memory cache for performance optimization
-    private List<Sale> cachedSales = null;
-    private List<Village> cachedVillages = null;
-    private List<Pricing> cachedPricing = null;
-    private List<Customer> cachedCustomers = null;
-    private List<Note> cachedNotes = null;
-    private List<Sale> lastRangeSales = null;
-    private Date lastRangeStart = null;
-    private Date lastRangeEnd = null;
-    private long salesCacheTime = 0;
-    private long villagesCacheTime = 0;
-    private long pricingCacheTime = 0;
-    private long customersCacheTime = 0;
-    private long notesCacheTime = 0;
-    private long rangeCacheTime = 0;
+    // Immutable snapshots, swapped atomically; hits hand out the list without copying
+    private final AtomicReference<CacheSnapshot<Village>> villagesCache = new AtomicReference<>();
+    private final AtomicReference<CacheSnapshot<Pricing>> pricingCache = new AtomicReference<>();
+    private final AtomicReference<CacheSnapshot<Customer>> customersCache = new AtomicReference<>();
+    // customersCache partitioned by village; rebuilt or patched on the main thread with it
+    private final CustomerDirectory customerDirectory = new CustomerDirectory();
+    // Autocomplete index with purchase counts; built on first use, dropped when the customer list changes
+    private volatile CustomerSuggestionIndex suggestionIndex;
+    // Main thread only
+    private final List<OnCustomerSuggestionIndexLoadedListener> suggestionIndexWaiters = new ArrayList<>();
+    // Serve expired caches immediately and refresh them in the background
+    private volatile boolean staleWhileRevalidate = true;
+    // Paginated lists, every loaded page with its cursor
+    private final PageCache<Sale> salesPages = new PageCache<>(Sale::getSale_id, Sale::getDate);
+    private final PageCache<Note> notesPages = new PageCache<>(Note::getNote_id, Note::getUpdated_at);
+    // Identical queries issued while one is running share its result
+    private final SingleFlight<OnSalesLoadedListener> salesRangeFlights = new SingleFlight<>();
+    private final FirestoreMetrics metrics = new FirestoreMetrics();
+    private final ReadBudget readBudget;
+    private final SyncStateTracker syncState;
+    private final FetchPolicy fetchPolicy;
+    private final SingleFlight<OnVillagesLoadedListener> villagesFlights = new SingleFlight<>();
+    private final SingleFlight<OnPricingLoadedListener> pricingFlights = new SingleFlight<>();
+    private final SingleFlight<OnCustomersLoadedListener> customersFlights = new SingleFlight<>();
+
+    // Fields compared to decide whether a background refresh changed anything
+    private static final CacheSnapshot.ContentKey<Sale> SALE_CONTENT = sale -> Arrays.asList(
+            sale.getSale_id(), sale.getUpdated_at(), sale.getDate(), sale.getPayment_status(),
+            sale.getBalance(), sale.getAmount_paid(), sale.getTotal_amount());
+    private static final CacheSnapshot.ContentKey<Village> VILLAGE_CONTENT = village -> Arrays.asList(
+            village.getName(), village.getDay());
+    private static final CacheSnapshot.ContentKey<Pricing> PRICING_CONTENT = pricing -> Arrays.asList(
+            pricing.getPricingKey(), pricing.getRate(), pricing.getUpdated_on());
+    private static final CacheSnapshot.ContentKey<Customer> CUSTOMER_CONTENT = customer -> Arrays.asList(
+            customer.getVillage(), customer.getCustomer_name());
     private static final int NOTE_CACHE_SIZE = 5;
     private final Map<String, Note> noteCache = new LinkedHashMap<String, Note>(NOTE_CACHE_SIZE, 0.75f, true) {
         @Override
@@ -77,9 +138,16 @@ public class FirestoreManager {
     };
     private final Map<String, Long> noteCacheTimes = new HashMap<>();
     private static final long CACHE_VALIDITY_MS = 240000; // 4 minutes cache validity
+    private final SalesRangeCache salesRangeCache = new SalesRangeCache(CACHE_VALIDITY_MS);
+    // Daily summaries by requested range; main thread only, cleared on every local sale write
+    private final Map<String, CacheSnapshot<DailySummary>> summaryCache = new HashMap<>();
+    private final TotalsCache totalsCache = new TotalsCache(CACHE_VALIDITY_MS);
     
     private FirestoreManager(Context context) {
         this.context = context.getApplicationContext();
+        readBudget = new ReadBudget(this.context);
+        syncState = new SyncStateTracker(this.context);
+        fetchPolicy = new FetchPolicy(() -> isOnline, readBudget::isCacheOnly, resultExecutor);
         
         // 1. Initialize Firestore immediately to enable offline persistence
         try {
@@ -96,6 +164,25 @@ public class FirestoreManager {
         // 2. Initialize Auth
         auth = FirebaseAuth.getInstance();
 
+        // Indexed on-device mirror of the sales collection
+        localSalesStore = LocalSalesStore.getInstance(this.context);
+
+        // Last known villages, pricing and customers, so dropdowns work before Firestore answers
+        referenceDataStore = ReferenceDataStore.getInstance(this.context);
+        seedReferenceCaches();
+        if (db != null) {
+            salesDeltaSync = new SalesDeltaSync(this.context, db, SALES_COLLECTION, localSalesStore, resultExecutor,
+                    readBudget);
+            liveSalesView = new LiveSalesView(db, SALES_COLLECTION, localSalesStore, this::notifySalesChanged,
+                    readBudget, syncState);
+            writeCoalescer = new WriteCoalescer(db, metrics, syncState);
+            syncState.awaitRestored(db);
+            legacyIdMigration = new LegacyIdMigration(this.context, db, writeCoalescer,
+                    PRICING_COLLECTION, VILLAGES_COLLECTION, readBudget);
+            dailySummaryBackfill = new DailySummaryBackfill(this.context, db, writeCoalescer,
+                    localSalesStore, salesDeltaSync, resultExecutor, readBudget);
+        }
+
         // 3. Setup Connectivity Listener
         setupConnectivityListener();
     }
@@ -186,6 +273,74 @@ public class FirestoreManager {
         }
     }
 
+    /**
+     * Latency, cache-hit and payload counters for this manager's operations
+     */
+    public FirestoreMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Billed document reads per screen and the daily read budget
+     */
+    public ReadBudget getReadBudget() {
+        return readBudget;
+    }
+
+    /**
+     * Local writes the server has not acknowledged yet: count, oldest age and per-document status
+     */
+    public SyncStateTracker getSyncState() {
+        return syncState;
+    }
+
+    private FirestoreMetrics.Call begin(String operation) {
+        return metrics.begin(operation, readBudget.getCurrentScreen());
+    }
+
+    private static FirestoreMetrics.Source sourceOf(QuerySnapshot querySnapshot) {
+        return querySnapshot.getMetadata().isFromCache()
+                ? FirestoreMetrics.Source.FIRESTORE_CACHE : FirestoreMetrics.Source.SERVER;
+    }
+
+    /**
+     * Record a query answer against the call's metrics and the screen's read budget
+     */
+    private void observe(FirestoreMetrics.Call call, QuerySnapshot querySnapshot) {
+        call.from(sourceOf(querySnapshot));
+        call.decoded(querySnapshot.size());
+        readBudget.record(call.getScreen(), call.getOperation(), ReadBudget.billedReads(querySnapshot));
+    }
+
+    /**
+     * Record a query that is not a timed operation (cleanup after writes) against the current screen
+     */
+    private void recordReads(String operation, QuerySnapshot querySnapshot) {
+        readBudget.record(readBudget.getCurrentScreen(), operation, ReadBudget.billedReads(querySnapshot));
+    }
+
+    /**
+     * How long page, range and summary reads wait for the server before answering from
+     * the offline cache; the server answer replaces it when it arrives
+     */
+    public void setFetchDeadlineMs(long deadlineMs) {
+        fetchPolicy.setDeadlineMs(deadlineMs);
+    }
+
+    /**
+     * Recent round-trip time of a page query, in milliseconds
+     */
+    public long getRoundTripMs() {
+        return roundTripMs;
+    }
+
+    private void recordRoundTrip(QuerySnapshot querySnapshot, long requestedAt) {
+        // Answers from the local cache say nothing about the network
+        if (querySnapshot.getMetadata().isFromCache()) return;
+        long sample = SystemClock.elapsedRealtime() - requestedAt;
+        roundTripMs = (roundTripMs * 3 + sample) / 4;
+    }
+
     public interface OnConnectionStatusChangedListener {
         void onStatusChanged(boolean isOnline);
     }
@@ -205,6 +360,8 @@ public class FirestoreManager {
         FirebaseUser currentUser = auth.getCurrentUser();
         if (currentUser != null) {
             Log.d(TAG, "Already signed in as: " + currentUser.getUid());
+            syncSalesMirror();
+            runMigrations();
             if (listener != null) listener.onSuccess();
             return;
         }
@@ -213,6 +370,8 @@ public class FirestoreManager {
         auth.signInAnonymously()
             .addOnSuccessListener(authResult -> {
                 Log.d(TAG, "Anonymous authentication successful");
+                syncSalesMirror();
+                runMigrations();
                 if (listener != null) listener.onSuccess();
             })
             .addOnFailureListener(e -> {
@@ -223,39 +382,177 @@ public class FirestoreManager {
     }
     
     
+    /**
+     * Fill the reference caches from the disk snapshot. Entries keep their save time, so
+     * an old snapshot counts as stale: getters answer with it at once and revalidate.
+     */
+    private void seedReferenceCaches() {
+        ReferenceDataStore.Snapshot<Village> villages = referenceDataStore.loadVillages();
+        if (villages != null) {
+            villagesCache.set(CacheSnapshot.of(villages.items, villages.savedAt));
+        }
+        ReferenceDataStore.Snapshot<Pricing> pricing = referenceDataStore.loadPricing();
+        if (pricing != null) {
+            pricingCache.set(CacheSnapshot.of(pricing.items, pricing.savedAt));
+        }
+        ReferenceDataStore.Snapshot<Customer> customers = referenceDataStore.loadCustomers();
+        if (customers != null) {
+            customersCache.set(CacheSnapshot.of(customers.items, customers.savedAt));
+            customerDirectory.rebuild(customers.items);
+        }
+    }
+
+    /**
+     * Run pending one-shot data migrations in the background, once queued writes have drained
+     */
+    private void runMigrations() {
+        // Migrations write in bulk; let the user's own changes reach the server first
+        syncState.whenDrained(this::startMigrations);
+    }
+
+    private void startMigrations() {
+        if (legacyIdMigration != null) {
+            legacyIdMigration.run();
+        }
+        if (dailySummaryBackfill != null && !dailySummaryBackfill.isComplete() && salesDeltaSync != null) {
+            // The backfill totals up the mirror, so it needs a complete copy first
+            salesDeltaSync.sync(success -> {
+                if (success) dailySummaryBackfill.run();
+            });
+        }
+    }
+
+    /**
+     * Legacy non-standard pricing/village IDs are gone once the migration has run
+     */
+    private boolean hasLegacyIds() {
+        return legacyIdMigration == null || !legacyIdMigration.isComplete();
+    }
+
     // ============================================
     // SALES OPERATIONS
     // ============================================
     
+    /**
+     * Bring the local sales mirror up to date in the background (delta since last sync)
+     */
+    public void syncSalesMirror() {
+        if (salesDeltaSync != null) {
+            salesDeltaSync.sync(null);
+        }
+    }
+
+    /**
+     * Start the live view of the current month's sales. Call from the hosting
+     * Activity's onStart(); the listener keeps itself up to date until stopped.
+     */
+    public void startLiveSales() {
+        if (liveSalesView == null) return;
+        Calendar cal = Calendar.getInstance();
+        cal.set(Calendar.DAY_OF_MONTH, 1);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        liveSalesView.start(cal.getTime());
+    }
+
+    /**
+     * Detach the live sales listener (call from onStop())
+     */
+    public void stopLiveSales() {
+        if (liveSalesView != null) {
+            liveSalesView.stop();
+        }
+    }
+
+    /**
+     * Commit writes still waiting in the coalescing window (call from onStop())
+     */
+    public void flushPendingWrites() {
+        if (writeCoalescer != null) {
+            writeCoalescer.flush();
+        }
+    }
+
+    public void addSalesChangedListener(OnSalesChangedListener listener) {
+        if (!salesChangedListeners.contains(listener)) {
+            salesChangedListeners.add(listener);
+        }
+    }
+
+    public void removeSalesChangedListener(OnSalesChangedListener listener) {
+        salesChangedListeners.remove(listener);
+    }
+
+    private void notifySalesChanged(List<Date> changedDates) {
+        // Sales in the live window changed, possibly on another device
+        for (Date date : changedDates) {
+            totalsCache.invalidate(date);
+        }
+        for (OnSalesChangedListener listener : new ArrayList<>(salesChangedListeners)) {
+            listener.onSalesChanged();
+        }
+    }
 
     /**
      * Get paginated sales records
      */
-    public void getSalesPaginated(int limit, DocumentSnapshot lastDocument, final OnSalesLoadedListener listener) {
-        getSalesPaginated(limit, lastDocument, listener, false);
+    public void getSalesPaginated(int limit, PageCursor after, final OnSalesLoadedListener listener) {
+        getSalesPaginated(limit, after, listener, false);
+    }
+
+    public void getSalesPaginated(int limit, PageCursor after, final OnSalesLoadedListener listener, boolean forceRefresh) {
+        FirestoreMetrics.Call call = begin("getSalesPaginated");
+        OnSalesLoadedListener metered = MeteredListeners.sales(call, listener);
+        if (after != null && !(after instanceof SnapshotCursor)) {
+            metered.onError("Page cursor was not issued by Firestore");
+            return;
+        }
+        loadSalesPage(call, limit, snapshotOf(after), metered, forceRefresh);
     }
 
-    public void getSalesPaginated(int limit, DocumentSnapshot lastDocument, final OnSalesLoadedListener listener, boolean forceRefresh) {
+    private void loadSalesPage(FirestoreMetrics.Call call, int limit, DocumentSnapshot lastDocument,
+                               final OnSalesLoadedListener listener, boolean forceRefresh) {
         if (db == null) {
             listener.onSalesLoaded(new ArrayList<>());
             return;
         }
 
-        // Return cached data for the FIRST page if valid
-        if (lastDocument == null && !forceRefresh && cachedSales != null &&
-            System.currentTimeMillis() - salesCacheTime < CACHE_VALIDITY_MS) {
-            Log.d(TAG, "Returning first page of sales from in-memory cache");
-            if (listener instanceof OnSalesPaginatedListener) {
-                // If we cache, we should also track the last snapshot, but for simplicity
-                // we'll just allow the first page to be cached and re-fetch snapshots if they scroll.
-                // However, the cleanest way is to just let the cache handle the initial load.
-                ((OnSalesPaginatedListener) listener).onSalesLoaded(new ArrayList<>(cachedSales), null); 
-            } else {
-                listener.onSalesLoaded(new ArrayList<>(cachedSales));
-            }
+        // Serve the first page from the live view when it holds a full page
+        if (lastDocument == null && !forceRefresh && liveSalesView != null &&
+            liveSalesView.isReady() && liveSalesView.size() >= limit) {
+            Log.d(TAG, "Returning first page of sales from live view");
+            List<Sale> sales = liveSalesView.head(limit);
+            DocumentSnapshot cursor = liveSalesView.cursorAt(limit - 1);
+            // Remember it as page 0 so the following pages can be cached against its cursor
+            salesPages.put(0, limit, sales, cursor);
+            deliverSalesPage(listener, sales, cursor);
             return;
         }
 
+        if (lastDocument == null && forceRefresh) {
+            salesPages.clear();
+        }
+        // -1 for a cursor we did not hand out: fetched, but not cached
+        final int pageIndex = lastDocument == null ? 0 : salesPages.indexAfter(lastDocument);
+        PageCache.Page<Sale> cachedPage = forceRefresh ? null : salesPages.get(pageIndex, limit);
+        if (cachedPage != null && cachedPage.snapshot.isFresh(CACHE_VALIDITY_MS)) {
+            Log.d(TAG, "Returning page " + pageIndex + " of sales from in-memory cache");
+            deliverSalesPage(listener, cachedPage.snapshot.items, cachedPage.cursor);
+            return;
+        }
+
+        // Expired first page: show it now, call back again only if the refresh differs
+        final OnSalesLoadedListener target;
+        if (pageIndex == 0 && cachedPage != null && staleWhileRevalidate) {
+            Log.d(TAG, "Returning stale first page of sales, revalidating in background");
+            deliverSalesPage(listener, cachedPage.snapshot.items, cachedPage.cursor);
+            target = revalidating(listener, cachedPage.snapshot.items);
+        } else {
+            target = listener;
+        }
+
         Query query = db.collection(SALES_COLLECTION)
                 .orderBy("date", Query.Direction.DESCENDING)
                 .limit(limit);
@@ -264,84 +561,452 @@ public class FirestoreManager {
             query = query.startAfter(lastDocument);
         }
 
-        query.get().addOnSuccessListener(querySnapshot -> {
-            List<Sale> sales = new ArrayList<>();
-            for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                Sale sale = doc.toObject(Sale.class);
-                if (sale != null) {
-                    sale.setSale_id(doc.getId());
-                    sales.add(sale);
-                }
-            }
-
-            // Update in-memory cache ONLY for the first page
-            if (lastDocument == null) {
-                cachedSales = new ArrayList<>(sales);
-                salesCacheTime = System.currentTimeMillis();
-                Log.d(TAG, "Updated first-page sales cache");
+        long requestedAt = SystemClock.elapsedRealtime();
+        fetchPolicy.get(query, new FetchPolicy.OnFetchedListener() {
+            // Main thread. After a provisional page the first page is redelivered if the
+            // server's differs; later pages are appended by the UI, so only cached.
+            private OnSalesLoadedListener next = target;
+
+            @Override
+            public void onFetched(QuerySnapshot querySnapshot, boolean provisional) {
+                recordRoundTrip(querySnapshot, requestedAt);
+                observe(call, querySnapshot);
+                List<Sale> sales = decodeSales(querySnapshot);
+                localSalesStore.upsertAll(sales);
+                DocumentSnapshot nextLast = nextPageCursor(querySnapshot, limit);
+
+                mainHandler.post(() -> {
+                    if (pageIndex >= 0 && !provisional) {
+                        salesPages.put(pageIndex, limit, sales, nextLast);
+                        Log.d(TAG, "Updated sales page cache (page " + pageIndex + ")");
+                    }
+                    OnSalesLoadedListener deliverTo = next;
+                    if (provisional) {
+                        next = pageIndex == 0 && deliverTo != null ? revalidating(deliverTo, sales) : null;
+                    }
+                    if (deliverTo != null) {
+                        deliverSalesPage(deliverTo, sales, nextLast);
+                    }
+                });
             }
 
-            if (listener instanceof OnSalesPaginatedListener) {
-                DocumentSnapshot nextLast = null;
-                if (!querySnapshot.isEmpty()) {
-                    nextLast = querySnapshot.getDocuments().get(querySnapshot.size() - 1);
-                }
-                ((OnSalesPaginatedListener) listener).onSalesLoaded(sales, nextLast);
-            } else {
-                listener.onSalesLoaded(sales);
+            @Override
+            public void onFailed(Exception e) {
+                Log.e(TAG, "Error loading paginated sales", e);
+                target.onError(e.getMessage());
             }
-        }).addOnFailureListener(e -> {
-            Log.e(TAG, "Error loading paginated sales", e);
-            listener.onError(e.getMessage());
         });
     }
 
+    private static void deliverSalesPage(OnSalesLoadedListener listener, List<Sale> sales, DocumentSnapshot cursor) {
+        if (listener instanceof OnSalesPaginatedListener) {
+            ((OnSalesPaginatedListener) listener).onSalesLoaded(sales, SnapshotCursor.of(cursor));
+        } else {
+            listener.onSalesLoaded(sales);
+        }
+    }
+
+    /**
+     * Cursor for the page after this one, or null when the query ran out of documents
+     */
+    private static DocumentSnapshot nextPageCursor(QuerySnapshot querySnapshot, int limit) {
+        if (querySnapshot.size() < limit) return null;
+        return querySnapshot.getDocuments().get(querySnapshot.size() - 1);
+    }
+
     /**
      * Get sales by date range for Reports
      */
     public void getSalesByDateRange(Date startDate, Date endDate, final OnSalesLoadedListener listener) {
+        FirestoreMetrics.Call call = begin("getSalesByDateRange");
+        loadSalesRange(call, startDate, endDate, MeteredListeners.sales(call, listener));
+    }
+
+    /**
+     * getSalesByDateRange, timed as part of {@code call} (which may belong to another operation)
+     */
+    private void loadSalesRange(FirestoreMetrics.Call call, Date startDate, Date endDate,
+                                final OnSalesLoadedListener listener) {
         if (db == null) {
             listener.onSalesLoaded(new ArrayList<>());
             return;
         }
 
-        // Check range cache
-        if (lastRangeSales != null && startDate.equals(lastRangeStart) && endDate.equals(lastRangeEnd) &&
-            System.currentTimeMillis() - rangeCacheTime < CACHE_VALIDITY_MS) {
+        // Ranges inside the live window are answered from memory
+        if (liveSalesView != null && liveSalesView.covers(startDate, endDate)) {
+            Log.d(TAG, "Returning sales by date range from live view");
+            listener.onSalesLoaded(liveSalesView.slice(startDate, endDate));
+            return;
+        }
+
+        // Serve from the range cache, fetching only the parts not loaded yet
+        long now = System.currentTimeMillis();
+        List<SalesRangeCache.Range> gaps = salesRangeCache.gaps(startDate, endDate, now);
+        if (gaps.isEmpty()) {
             Log.d(TAG, "Returning sales by date range from in-memory cache");
-            listener.onSalesLoaded(new ArrayList<>(lastRangeSales));
+            listener.onSalesLoaded(salesRangeCache.slice(startDate, endDate));
+            return;
+        }
+
+        // Loaded before but partly expired: answer with the stale slice, then revalidate
+        final OnSalesLoadedListener target;
+        if (staleWhileRevalidate && salesRangeCache.coversIncludingStale(startDate, endDate, now)) {
+            Log.d(TAG, "Returning stale sales by date range, revalidating in background");
+            List<Sale> stale = salesRangeCache.slice(startDate, endDate);
+            listener.onSalesLoaded(stale);
+            target = revalidating(listener, stale);
+        } else {
+            target = listener;
+        }
+
+        boolean synced = salesDeltaSync != null && salesDeltaSync.hasCompletedInitialSync();
+        if (!fetchPolicy.serverReachable()) {
+            // Offline or over budget: answer from the mirror as last synced, or Firestore's cache,
+            // and cache it as stale so the range is read again once the server is back
+            fetchRangeGaps(call, gaps, startDate, endDate, synced, false, target);
+            return;
+        }
+
+        OnSalesLoadedListener answer = withMirrorDeadline(call, target, startDate, endDate);
+        // Once the mirror holds a full copy, refresh it with a delta and answer locally
+        if (synced) {
+            salesDeltaSync.sync(success -> {
+                if (!success) {
+                    Log.d(TAG, "Delta sync failed, loading range gaps from Firestore");
+                }
+                fetchRangeGaps(call, gaps, startDate, endDate, success, true, answer);
+            });
+            return;
+        }
+        fetchRangeGaps(call, gaps, startDate, endDate, false, true, answer);
+    }
+
+    /**
+     * Answers a range from the local mirror if Firestore has not answered within the fetch
+     * deadline; the real answer follows only if it differs. Main thread only.
+     */
+    private OnSalesLoadedListener withMirrorDeadline(FirestoreMetrics.Call call, OnSalesLoadedListener listener,
+                                                     Date startDate, Date endDate) {
+        return new OnSalesLoadedListener() {
+            private boolean answered = false;
+            private List<Sale> provisional;
+            private final Runnable cancelDeadline = fetchPolicy.deadline(this::answerFromMirror);
+
+            private void answerFromMirror() {
+                if (answered) return;
+                SalesFilter filter = new SalesFilter().setStartDate(startDate).setEndDate(endDate);
+                localSalesStore.query(filter, new OnSalesLoadedListener() {
+                    @Override
+                    public void onSalesLoaded(List<Sale> sales) {
+                        // An empty mirror is no better than waiting
+                        if (answered || sales.isEmpty()) return;
+                        Log.d(TAG, "Sales range missed the fetch deadline, answering from mirror");
+                        call.from(FirestoreMetrics.Source.MIRROR);
+                        provisional = sales;
+                        listener.onSalesLoaded(sales);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        Log.w(TAG, "Mirror fallback failed: " + error);
+                    }
+                });
+            }
+
+            @Override
+            public void onSalesLoaded(List<Sale> sales) {
+                if (answered) return;
+                answered = true;
+                cancelDeadline.run();
+                if (provisional == null || !CacheSnapshot.sameContent(provisional, sales, SALE_CONTENT)) {
+                    listener.onSalesLoaded(sales);
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                if (answered) return;
+                answered = true;
+                cancelDeadline.run();
+                if (provisional == null) {
+                    listener.onError(error);
+                } else {
+                    Log.w(TAG, "Sales range fetch failed after mirror answer: " + error);
+                }
+            }
+        };
+    }
+
+    /**
+     * Load each uncovered gap, from the synced mirror or from Firestore, then answer
+     * the whole range from the cache once every gap has arrived. Gaps that may be behind
+     * the server ({@code current} false) are cached as already stale.
+     */
+    private void fetchRangeGaps(FirestoreMetrics.Call call, List<SalesRangeCache.Range> gaps, Date startDate, Date endDate,
+                                boolean fromMirror, boolean current, final OnSalesLoadedListener listener) {
+        if (fromMirror) {
+            call.from(FirestoreMetrics.Source.MIRROR);
+        }
+        int[] remaining = {gaps.size()};
+        boolean[] failed = {false};
+        for (SalesRangeCache.Range gap : gaps) {
+            OnSalesLoadedListener gapListener = new OnSalesLoadedListener() {
+                @Override
+                public void onSalesLoaded(List<Sale> sales) {
+                    if (failed[0]) return;
+                    long now = System.currentTimeMillis();
+                    salesRangeCache.put(gap, sales, current ? now : now - CACHE_VALIDITY_MS);
+                    if (--remaining[0] == 0) {
+                        Log.d(TAG, "Loaded " + gaps.size() + " range gap(s) from " + (fromMirror ? "synced mirror" : "Firestore"));
+                        listener.onSalesLoaded(salesRangeCache.slice(startDate, endDate));
+                    }
+                }
+
+                @Override
+                public void onError(String error) {
+                    if (failed[0]) return;
+                    failed[0] = true;
+                    listener.onError(error);
+                }
+            };
+            if (fromMirror) {
+                SalesFilter filter = new SalesFilter().setStartDate(gap.getStartDate()).setEndDate(gap.getEndDate());
+                localSalesStore.query(filter, gapListener);
+            } else {
+                fetchRangeFromServer(call, gap, gapListener);
+            }
+        }
+    }
+
+    private void fetchRangeFromServer(FirestoreMetrics.Call call, SalesRangeCache.Range range,
+                                      final OnSalesLoadedListener listener) {
+        String key = range.getStartDate().getTime() + "_" + range.getEndDate().getTime();
+        SingleFlight.Flight<OnSalesLoadedListener> flight = salesRangeFlights.join(key, listener);
+        if (flight == null) {
+            call.from(FirestoreMetrics.Source.COALESCED);
+            Log.d(TAG, "Joining sales range query already in flight");
             return;
         }
 
         db.collection(SALES_COLLECTION)
-                .whereGreaterThanOrEqualTo("date", startDate)
-                .whereLessThanOrEqualTo("date", endDate)
+                .whereGreaterThanOrEqualTo("date", range.getStartDate())
+                .whereLessThanOrEqualTo("date", range.getEndDate())
                 .orderBy("date", Query.Direction.DESCENDING)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    List<Sale> sales = new ArrayList<>();
-                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                        Sale sale = doc.toObject(Sale.class);
-                        if (sale != null) {
-                            sale.setSale_id(doc.getId());
-                            sales.add(sale);
+                .get(fetchPolicy.source())
+                .addOnSuccessListener(resultExecutor, querySnapshot -> {
+                    observe(call, querySnapshot);
+                    List<Sale> sales = decodeSales(querySnapshot);
+                    localSalesStore.upsertAll(sales);
+                    mainHandler.post(() -> {
+                        for (OnSalesLoadedListener waiting : salesRangeFlights.finish(key, flight)) {
+                            waiting.onSalesLoaded(sales);
                         }
-                    }
-                    
-                    // Update range cache
-                    lastRangeSales = new ArrayList<>(sales);
-                    lastRangeStart = startDate;
-                    lastRangeEnd = endDate;
-                    rangeCacheTime = System.currentTimeMillis();
-                    
-                    listener.onSalesLoaded(sales);
+                    });
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error loading sales by date range", e);
-                    listener.onError(e.getMessage());
+                    for (OnSalesLoadedListener waiting : salesRangeFlights.finish(key, flight)) {
+                        waiting.onError(e.getMessage());
+                    }
                 });
     }
     
+    /**
+     * Per-day sales totals for Reports, oldest first. {@code startDate} must be the start
+     * of a day. Ranges already held in memory are totalled locally; otherwise the
+     * daily_summary rollups are read (one small document per day) once they have been
+     * backfilled, falling back to the individual sales until then.
+     */
+    public void getDailySummaries(Date startDate, Date endDate, final OnDailySummariesLoadedListener listener) {
+        FirestoreMetrics.Call call = begin("getDailySummaries");
+        loadDailySummaries(call, startDate, endDate, MeteredListeners.dailySummaries(call, listener));
+    }
+
+    private void loadDailySummaries(FirestoreMetrics.Call call, Date startDate, Date endDate,
+                                    final OnDailySummariesLoadedListener listener) {
+        if (db == null) {
+            listener.onDailySummariesLoaded(new ArrayList<>());
+            return;
+        }
+
+        boolean inMemory = (liveSalesView != null && liveSalesView.covers(startDate, endDate))
+                || salesRangeCache.covers(startDate, endDate, System.currentTimeMillis());
+        if (inMemory || dailySummaryBackfill == null || !dailySummaryBackfill.isComplete()) {
+            loadSalesRange(call, startDate, endDate, summarizing(listener));
+            return;
+        }
+
+        String key = startDate.getTime() + "_" + endDate.getTime();
+        CacheSnapshot<DailySummary> cached = summaryCache.get(key);
+        if (cached != null && cached.isFresh(CACHE_VALIDITY_MS)) {
+            Log.d(TAG, "Returning daily summaries from in-memory cache");
+            listener.onDailySummariesLoaded(cached.items);
+            return;
+        }
+
+        Query query = db.collection(DailySummaries.COLLECTION)
+                .whereGreaterThanOrEqualTo("date", startDate)
+                .whereLessThanOrEqualTo("date", endDate)
+                .orderBy("date", Query.Direction.ASCENDING);
+        fetchPolicy.get(query, new FetchPolicy.OnFetchedListener() {
+            @Override
+            public void onFetched(QuerySnapshot querySnapshot, boolean provisional) {
+                observe(call, querySnapshot);
+                List<DailySummary> summaries = new ArrayList<>(querySnapshot.size());
+                for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+                    summaries.add(DocumentCodecs.decodeDailySummary(doc));
+                }
+                CacheSnapshot<DailySummary> snapshot = CacheSnapshot.of(summaries);
+                mainHandler.post(() -> {
+                    // A provisional answer is shown, then redrawn with the server's
+                    if (!provisional) {
+                        summaryCache.put(key, snapshot);
+                    }
+                    Log.d(TAG, "Loaded " + snapshot.items.size() + " daily summaries" + (provisional ? " from cache" : ""));
+                    listener.onDailySummariesLoaded(snapshot.items);
+                });
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                Log.e(TAG, "Error loading daily summaries", e);
+                listener.onError(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Adapts a sales listener to deliver per-day totals, computed on resultExecutor
+     */
+    private OnSalesLoadedListener summarizing(OnDailySummariesLoadedListener listener) {
+        return new OnSalesLoadedListener() {
+            @Override
+            public void onSalesLoaded(List<Sale> sales) {
+                resultExecutor.execute(() -> {
+                    List<DailySummary> summaries = Collections.unmodifiableList(DailySummary.byDay(sales));
+                    mainHandler.post(() -> listener.onDailySummariesLoaded(summaries));
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                listener.onError(error);
+            }
+        };
+    }
+
+    /**
+     * Count and sums of total_amount, amount_paid and balance over a date range, optionally
+     * only for one payment status ({@code null} for all). Answered from memory when the
+     * range is already loaded, otherwise with one server aggregation instead of the rows.
+     * Offline, or if the aggregation fails, the totals are computed from the sales.
+     */
+    public void getSalesTotals(Date startDate, Date endDate, String paymentStatus,
+                               final OnSalesTotalsLoadedListener listener) {
+        FirestoreMetrics.Call call = begin("getSalesTotals");
+        loadSalesTotals(call, startDate, endDate, paymentStatus, MeteredListeners.totals(call, listener));
+    }
+
+    private void loadSalesTotals(FirestoreMetrics.Call call, Date startDate, Date endDate, String paymentStatus,
+                                 final OnSalesTotalsLoadedListener listener) {
+        if (db == null) {
+            listener.onSalesTotalsLoaded(new SalesTotals());
+            return;
+        }
+
+        // The live view is kept current by its listener, so its totals cost no reads
+        if (liveSalesView != null && liveSalesView.covers(startDate, endDate)) {
+            listener.onSalesTotalsLoaded(SalesTotals.of(liveSalesView.slice(startDate, endDate), paymentStatus));
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (salesRangeCache.covers(startDate, endDate, now) || !fetchPolicy.serverReachable()) {
+            loadSalesRange(call, startDate, endDate, totalling(paymentStatus, listener));
+            return;
+        }
+
+        SalesTotals cached = totalsCache.get(startDate, endDate, paymentStatus, now);
+        if (cached != null) {
+            Log.d(TAG, "Returning sales totals from in-memory cache");
+            listener.onSalesTotalsLoaded(cached);
+            return;
+        }
+
+        Query query = db.collection(SALES_COLLECTION)
+                .whereGreaterThanOrEqualTo("date", startDate)
+                .whereLessThanOrEqualTo("date", endDate);
+        if (paymentStatus != null) {
+            query = query.whereEqualTo("payment_status", paymentStatus);
+        }
+        AggregateField.SumAggregateField totalAmount = AggregateField.sum("total_amount");
+        AggregateField.SumAggregateField amountPaid = AggregateField.sum("amount_paid");
+        AggregateField.SumAggregateField balance = AggregateField.sum("balance");
+        Task<AggregateQuerySnapshot> sums = query
+                .aggregate(AggregateField.count(), totalAmount, amountPaid, balance)
+                .get(AggregateSource.SERVER);
+        // Tombstones have no amounts, so sums skip them, but count() does not
+        Task<AggregateQuerySnapshot> tombstones = query
+                .whereEqualTo("deleted", true)
+                .count()
+                .get(AggregateSource.SERVER);
+
+        Tasks.whenAll(sums, tombstones)
+                .addOnSuccessListener(aVoid -> {
+                    call.from(FirestoreMetrics.Source.SERVER);
+                    AggregateQuerySnapshot result = sums.getResult();
+                    readBudget.record(call.getScreen(), call.getOperation(),
+                            ReadBudget.billedAggregate(result.getCount())
+                                    + ReadBudget.billedAggregate(tombstones.getResult().getCount()));
+                    SalesTotals totals = new SalesTotals(
+                            result.getCount() - tombstones.getResult().getCount(),
+                            doubleOf(result.getDouble(totalAmount)),
+                            doubleOf(result.getDouble(amountPaid)),
+                            doubleOf(result.getDouble(balance)));
+                    totalsCache.put(startDate, endDate, paymentStatus, totals, System.currentTimeMillis());
+                    Log.d(TAG, "Loaded sales totals with an aggregate query (" + totals.getCount() + " sales)");
+                    listener.onSalesTotalsLoaded(totals);
+                })
+                .addOnFailureListener(e -> {
+                    Log.w(TAG, "Aggregate query failed, totalling sales instead", e);
+                    loadSalesRange(call, startDate, endDate, totalling(paymentStatus, listener));
+                });
+    }
+
+    private static double doubleOf(Double value) {
+        return value != null ? value : 0;
+    }
+
+    /**
+     * Adapts a sales listener to deliver the totals of the loaded sales
+     */
+    private OnSalesLoadedListener totalling(String paymentStatus, OnSalesTotalsLoadedListener listener) {
+        return new OnSalesLoadedListener() {
+            @Override
+            public void onSalesLoaded(List<Sale> sales) {
+                listener.onSalesTotalsLoaded(SalesTotals.of(sales, paymentStatus));
+            }
+
+            @Override
+            public void onError(String error) {
+                listener.onError(error);
+            }
+        };
+    }
+
+    /**
+     * Decode a sales query result, skipping tombstones. Called on resultExecutor.
+     */
+    private static List<Sale> decodeSales(QuerySnapshot querySnapshot) {
+        List<Sale> sales = new ArrayList<>(querySnapshot.size());
+        for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+            Sale sale = DocumentCodecs.decodeSale(doc);
+            if (!sale.isDeleted()) {
+                sales.add(sale);
+            }
+        }
+        return sales;
+    }
+
     /**
      * Add new sale
      */
@@ -351,25 +1016,37 @@ public class FirestoreManager {
             return;
         }
 
-        // Invalidate cache since we're adding new data
-        invalidateSalesCache();
-
-        // 1. Instantly write to local cache (Persistence is enabled)
-        db.collection(SALES_COLLECTION)
-            .document(sale.getSale_id())
-            .set(sale)
-            .addOnSuccessListener(aVoid -> {
-                Log.d(TAG, "Sale synced with server: " + sale.getSale_id());
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Server sync failed for sale: " + sale.getSale_id(), e);
-            });
+        // Patch caches in place so screens stay warm
+        applySaleToCaches(sale);
+        localSalesStore.upsert(sale);
 
-        // 2. Also save customer for autocomplete (Optimistic)
+        // 1. Sale and its autocomplete customer entry commit together in one batch
         Customer customer = new Customer();
         customer.setVillage(sale.getVillage());
         customer.setCustomer_name(sale.getCustomer_name());
-        addCustomer(customer, null);
+        applyCustomerToCaches(customer);
+        CustomerSuggestionIndex index = suggestionIndex;
+        if (index != null) {
+            index.recordPurchase(sale.getVillage(), sale.getCustomer_name(), sale.getDate());
+        }
+
+        DocumentReference saleRef = db.collection(SALES_COLLECTION).document(sale.getSale_id());
+        WriteCoalescer.Group group = writeCoalescer.group()
+            .set(saleRef, sale)
+            .update(saleRef, serverUpdatedAt())
+            .set(db.collection(CUSTOMERS_COLLECTION).document(customerDocumentId(customer)), customer);
+        DailySummaries.addChange(db, group, null, sale);
+        group.commit(new WriteCoalescer.OnCommitListener() {
+                @Override
+                public void onCommitted() {
+                    Log.d(TAG, "Sale synced with server: " + sale.getSale_id());
+                }
+
+                @Override
+                public void onFailed(Exception e) {
+                    Log.e(TAG, "Server sync failed for sale: " + sale.getSale_id(), e);
+                }
+            });
 
         // 3. Trigger success IMMEDIATELY for the UI
         Log.d(TAG, "Sale queued locally: " + sale.getSale_id());
@@ -390,26 +1067,41 @@ public class FirestoreManager {
             return;
         }
 
-        // Invalidate cache since we're modifying data
-        invalidateSalesCache();
-
         Log.d(TAG, "Attempting to update sale with ID: " + sale.getSale_id() + " for " + sale.getCustomer_name());
 
-        // Refresh updated_at timestamp
+        // Local estimate for the caches; the stored updated_at is stamped by the server
         sale.setUpdated_at(new Date());
+        applySaleToCaches(sale);
+
+        // The stored document is the version the daily summary counted
+        previousSale(sale.getSale_id(), previous -> {
+            // The sale may have moved out of a range whose totals counted it
+            totalsCache.invalidate(previous != null ? previous.getDate() : null);
+            localSalesStore.upsert(sale);
+            // Use document ID directly for update
+            DocumentReference saleRef = db.collection(SALES_COLLECTION).document(sale.getSale_id());
+            WriteCoalescer.Group group = writeCoalescer.group()
+                .set(saleRef, sale)
+                .update(saleRef, serverUpdatedAt());
+            if (previous != null) {
+                DailySummaries.addChange(db, group, previous, sale);
+            } else {
+                Log.w(TAG, "Previous sale unavailable, daily summary left unchanged: " + sale.getSale_id());
+            }
+            group.commit(new WriteCoalescer.OnCommitListener() {
+                @Override
+                public void onCommitted() {
+                    Log.i(TAG, "Sale updated successfully: " + sale.getSale_id());
+                    listener.onSuccess();
+                }
 
-        // Use document ID directly for update
-        db.collection(SALES_COLLECTION)
-            .document(sale.getSale_id())
-            .set(sale)
-            .addOnSuccessListener(aVoid -> {
-                Log.i(TAG, "Sale updated successfully: " + sale.getSale_id());
-                listener.onSuccess();
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error updating sale: " + sale.getSale_id(), e);
-                listener.onError(e.getMessage());
+                @Override
+                public void onFailed(Exception e) {
+                    Log.e(TAG, "Error updating sale: " + sale.getSale_id(), e);
+                    listener.onError(e.getMessage());
+                }
             });
+        });
     }
     
     /**
@@ -426,34 +1118,121 @@ public class FirestoreManager {
             return;
         }
 
-        // Invalidate cache since we're deleting data
-        invalidateSalesCache();
+        removeSaleFromCaches(saleId);
+
+        // Soft delete: keep a tombstone so other devices' delta sync sees the removal.
+        // Monetary fields are cleared so sums over the collection ignore it.
+        Map<String, Object> tombstone = new HashMap<>();
+        tombstone.put("deleted", true);
+        tombstone.put("updated_at", FieldValue.serverTimestamp());
+        tombstone.put("rate", FieldValue.delete());
+        tombstone.put("quantity", FieldValue.delete());
+        tombstone.put("total_amount", FieldValue.delete());
+        tombstone.put("amount_paid", FieldValue.delete());
+        tombstone.put("balance", FieldValue.delete());
+
+        // Take the sale's totals out of its day's summary, using the stored document
+        previousSale(saleId, previous -> {
+            totalsCache.invalidate(previous != null ? previous.getDate() : null);
+            localSalesStore.delete(saleId);
+            WriteCoalescer.Group group = writeCoalescer.group()
+                .set(db.collection(SALES_COLLECTION).document(saleId), tombstone, SetOptions.merge());
+            if (previous != null) {
+                DailySummaries.addChange(db, group, previous, null);
+            } else {
+                Log.w(TAG, "Previous sale unavailable, daily summary left unchanged: " + saleId);
+            }
+            group.commit(new WriteCoalescer.OnCommitListener() {
+                @Override
+                public void onCommitted() {
+                    Log.d(TAG, "Sale deleted successfully");
+                    listener.onSuccess();
+                }
 
-        // Use document ID directly for delete
-        db.collection(SALES_COLLECTION)
-            .document(saleId)
-            .delete()
-            .addOnSuccessListener(aVoid -> {
-                Log.d(TAG, "Sale deleted successfully");
-                listener.onSuccess();
+                @Override
+                public void onFailed(Exception e) {
+                    Log.e(TAG, "Error deleting sale", e);
+                    listener.onError(e.getMessage());
+                }
+            });
+        });
+    }
+
+    /**
+     * updated_at stamped with the server's clock, so delta sync on other devices does not
+     * depend on this device's clock
+     */
+    private static Map<String, Object> serverUpdatedAt() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("updated_at", FieldValue.serverTimestamp());
+        return fields;
+    }
+
+    /**
+     * The version of a sale the daily summary counted: the stored document, which includes
+     * this device's queued writes. The mirror can lag behind other devices' edits, so it is
+     * only used when the document cannot be read (offline and not in Firestore's cache).
+     * Null when neither has it. Delivered on the main thread.
+     */
+    private void previousSale(String saleId, LocalSalesStore.OnSaleLookupListener listener) {
+        db.collection(SALES_COLLECTION).document(saleId).get(fetchPolicy.source())
+            .addOnSuccessListener(doc -> {
+                readBudget.record(readBudget.getCurrentScreen(), "previousSale", ReadBudget.billedReads(doc));
+                if (!doc.exists() && doc.getMetadata().isFromCache()) {
+                    Log.d(TAG, "Sale not in Firestore's cache, using the mirrored copy: " + saleId);
+                    localSalesStore.get(saleId, listener);
+                    return;
+                }
+                Sale stored = doc.exists() ? DocumentCodecs.decodeSale(doc) : null;
+                listener.onSaleLookup(stored != null && !stored.isDeleted() ? stored : null);
             })
             .addOnFailureListener(e -> {
-                Log.e(TAG, "Error deleting sale", e);
-                listener.onError(e.getMessage());
+                Log.w(TAG, "Could not read previous sale, using the mirrored copy: " + saleId, e);
+                localSalesStore.get(saleId, listener);
             });
     }
 
+    /**
+     * Search and filter sales using the indexed local mirror (no network).
+     * The mirror holds every sale this device has loaded or written.
+     */
+    public void searchSales(SalesFilter filter, final OnSalesLoadedListener listener) {
+        FirestoreMetrics.Call call = begin("searchSales");
+        call.from(FirestoreMetrics.Source.MIRROR);
+        localSalesStore.query(filter, MeteredListeners.sales(call, listener));
+    }
+
+    /**
+     * Insert or replace a written sale in the page and range caches, keeping date order
+     */
+    private void applySaleToCaches(Sale sale) {
+        salesPages.apply(sale);
+        salesRangeCache.apply(sale);
+        salesRangeFlights.detachAll();
+        summaryCache.clear();
+        totalsCache.invalidate(sale.getDate());
+    }
+
+    /**
+     * Totals are left to the caller, which knows the removed sale's date
+     */
+    private void removeSaleFromCaches(String saleId) {
+        salesPages.remove(saleId);
+        salesRangeCache.remove(saleId);
+        salesRangeFlights.detachAll();
+        summaryCache.clear();
+    }
+
     /**
      * Invalidate sales cache - call when sales data is modified
      */
     public void invalidateSalesCache() {
-        cachedSales = null;
-        salesCacheTime = 0;
-        lastRangeSales = null;
-        lastRangeStart = null;
-        lastRangeEnd = null;
-        rangeCacheTime = 0;
-        Log.d(TAG, "Sales and Range caches invalidated");
+        salesPages.clear();
+        salesRangeCache.clear();
+        salesRangeFlights.detachAll();
+        summaryCache.clear();
+        totalsCache.clear();
+        Log.d(TAG, "Sales, Range and summary caches invalidated");
     }
     
     // ============================================
@@ -471,6 +1250,11 @@ public class FirestoreManager {
      * Get all villages with option to force refresh
      */
     public void getAllVillages(final OnVillagesLoadedListener listener, boolean forceRefresh) {
+        FirestoreMetrics.Call call = begin("getAllVillages");
+        loadVillages(call, MeteredListeners.villages(call, listener), forceRefresh);
+    }
+
+    private void loadVillages(FirestoreMetrics.Call call, final OnVillagesLoadedListener listener, boolean forceRefresh) {
         if (db == null) {
             Log.w(TAG, "Firestore not initialized. Returning empty list.");
             listener.onVillagesLoaded(new ArrayList<>());
@@ -478,47 +1262,87 @@ public class FirestoreManager {
         }
 
         // Return cached data if valid and not forcing refresh
-        if (!forceRefresh && cachedVillages != null &&
-            System.currentTimeMillis() - villagesCacheTime < CACHE_VALIDITY_MS) {
-            Log.d(TAG, "Returning " + cachedVillages.size() + " villages from cache");
-            listener.onVillagesLoaded(new ArrayList<>(cachedVillages));
+        CacheSnapshot<Village> cachedVillages = villagesCache.get();
+        if (!forceRefresh && cachedVillages != null && cachedVillages.isFresh(CACHE_VALIDITY_MS)) {
+            Log.d(TAG, "Returning " + cachedVillages.items.size() + " villages from cache");
+            listener.onVillagesLoaded(cachedVillages.items);
+            return;
+        }
+
+        // Expired: show the stale list now, call back again only if the refresh differs
+        final OnVillagesLoadedListener target;
+        if (!forceRefresh && cachedVillages != null && staleWhileRevalidate) {
+            Log.d(TAG, "Returning stale villages, revalidating in background");
+            listener.onVillagesLoaded(cachedVillages.items);
+            target = revalidating(listener, cachedVillages.items);
+        } else {
+            target = listener;
+        }
+
+        SingleFlight.Flight<OnVillagesLoadedListener> flight = villagesFlights.join(VILLAGES_COLLECTION, target);
+        if (flight == null) {
+            call.from(FirestoreMetrics.Source.COALESCED);
+            Log.d(TAG, "Joining villages query already in flight");
             return;
         }
 
         db.collection(VILLAGES_COLLECTION)
             .orderBy("name", Query.Direction.ASCENDING)
-            .get()
-            .addOnSuccessListener(querySnapshot -> {
-                Map<String, Village> uniqueVillages = new HashMap<>();
-                for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                    Village village = doc.toObject(Village.class);
-                    if (village != null) {
-                        String name = village.getName() != null ? village.getName().trim() : "";
-                        if (!name.isEmpty()) {
-                            // Prioritize standardized IDs (where ID == name)
-                            if (!uniqueVillages.containsKey(name) || doc.getId().equals(name)) {
-                                uniqueVillages.put(name, village);
+            .get(fetchPolicy.source())
+            .addOnSuccessListener(resultExecutor, querySnapshot -> {
+                observe(call, querySnapshot);
+                List<Village> villagesList;
+                if (hasLegacyIds()) {
+                    Map<String, Village> uniqueVillages = new HashMap<>();
+                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+                        Village village = DocumentCodecs.decodeVillage(doc);
+                        if (village != null) {
+                            String name = village.getName() != null ? village.getName().trim() : "";
+                            if (!name.isEmpty()) {
+                                // Prioritize standardized IDs (where ID == name)
+                                if (!uniqueVillages.containsKey(name) || doc.getId().equals(name)) {
+                                    uniqueVillages.put(name, village);
+                                }
                             }
                         }
                     }
+                    villagesList = new ArrayList<>(uniqueVillages.values());
+                } else {
+                    // One document per village after the ID migration
+                    villagesList = new ArrayList<>();
+                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+                        Village village = DocumentCodecs.decodeVillage(doc);
+                        if (village != null && village.getName() != null && !village.getName().trim().isEmpty()) {
+                            villagesList.add(village);
+                        }
+                    }
                 }
-                List<Village> villagesList = new ArrayList<>(uniqueVillages.values());
                 // Sort the consolidated list as well
                 Collections.sort(villagesList, (v1, v2) -> v1.getName().compareToIgnoreCase(v2.getName()));
-                // Update cache
-                cachedVillages = new ArrayList<>(villagesList);
-                villagesCacheTime = System.currentTimeMillis();
-                Log.d(TAG, "Loaded and cached " + villagesList.size() + " unique villages");
-                listener.onVillagesLoaded(villagesList);
+                CacheSnapshot<Village> snapshot = CacheSnapshot.of(villagesList);
+                mainHandler.post(() -> {
+                    // Update cache, and the disk snapshot when the list changed
+                    CacheSnapshot<Village> previous = villagesCache.getAndSet(snapshot);
+                    if (previous == null || !CacheSnapshot.sameContent(previous.items, snapshot.items, VILLAGE_CONTENT)) {
+                        referenceDataStore.saveVillages(snapshot.items);
+                    }
+                    Log.d(TAG, "Loaded and cached " + snapshot.items.size() + " unique villages");
+                    for (OnVillagesLoadedListener waiting : villagesFlights.finish(VILLAGES_COLLECTION, flight)) {
+                        waiting.onVillagesLoaded(snapshot.items);
+                    }
+                });
             })
             .addOnFailureListener(e -> {
                 Log.e(TAG, "Error loading villages", e);
                 // Return cached data if available on error
-                if (cachedVillages != null) {
-                    Log.d(TAG, "Returning cached villages on error");
-                    listener.onVillagesLoaded(new ArrayList<>(cachedVillages));
-                } else {
-                    listener.onError(e.getMessage());
+                CacheSnapshot<Village> stale = villagesCache.get();
+                for (OnVillagesLoadedListener waiting : villagesFlights.finish(VILLAGES_COLLECTION, flight)) {
+                    if (stale != null) {
+                        Log.d(TAG, "Returning cached villages on error");
+                        waiting.onVillagesLoaded(stale.items);
+                    } else {
+                        waiting.onError(e.getMessage());
+                    }
                 }
             });
     }
@@ -536,16 +1360,22 @@ public class FirestoreManager {
         invalidateVillagesCache();
 
         String villageId = village.getName().trim();
-        db.collection(VILLAGES_COLLECTION)
-            .document(villageId)
-            .set(village)
-            .addOnSuccessListener(aVoid -> {
-                Log.d(TAG, "Village synced with server: " + villageId);
-                // Cleanup legacy villages with different IDs but same name
-                cleanupLegacyVillages(village.getName(), villageId);
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Server sync failed for village: " + villageId, e);
+        writeCoalescer.group()
+            .set(db.collection(VILLAGES_COLLECTION).document(villageId), village)
+            .commit(new WriteCoalescer.OnCommitListener() {
+                @Override
+                public void onCommitted() {
+                    Log.d(TAG, "Village synced with server: " + villageId);
+                    // Cleanup legacy villages with different IDs but same name
+                    if (hasLegacyIds()) {
+                        cleanupLegacyVillages(village.getName(), villageId);
+                    }
+                }
+
+                @Override
+                public void onFailed(Exception e) {
+                    Log.e(TAG, "Server sync failed for village: " + villageId, e);
+                }
             });
 
         // Trigger success IMMEDIATELY for the UI (Optimistic writing)
@@ -566,16 +1396,20 @@ public class FirestoreManager {
         invalidateVillagesCache();
 
         String villageId = villageName.trim();
-        db.collection(VILLAGES_COLLECTION)
-            .document(villageId)
-            .delete()
-            .addOnSuccessListener(aVoid -> {
-                Log.d(TAG, "Village deleted successfully: " + villageId);
-                listener.onSuccess();
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error deleting village: " + villageId, e);
-                listener.onError(e.getMessage());
+        writeCoalescer.group()
+            .delete(db.collection(VILLAGES_COLLECTION).document(villageId))
+            .commit(new WriteCoalescer.OnCommitListener() {
+                @Override
+                public void onCommitted() {
+                    Log.d(TAG, "Village deleted successfully: " + villageId);
+                    listener.onSuccess();
+                }
+
+                @Override
+                public void onFailed(Exception e) {
+                    Log.e(TAG, "Error deleting village: " + villageId, e);
+                    listener.onError(e.getMessage());
+                }
             });
     }
 
@@ -583,8 +1417,8 @@ public class FirestoreManager {
      * Invalidate villages cache - call when village data is modified
      */
     public void invalidateVillagesCache() {
-        cachedVillages = null;
-        villagesCacheTime = 0;
+        villagesCache.set(null);
+        villagesFlights.detachAll();
         Log.d(TAG, "Villages cache invalidated");
     }
     
@@ -603,6 +1437,11 @@ public class FirestoreManager {
      * Get all pricing records with option to force refresh
      */
     public void getAllPricing(final OnPricingLoadedListener listener, boolean forceRefresh) {
+        FirestoreMetrics.Call call = begin("getAllPricing");
+        loadPricing(call, MeteredListeners.pricing(call, listener), forceRefresh);
+    }
+
+    private void loadPricing(FirestoreMetrics.Call call, final OnPricingLoadedListener listener, boolean forceRefresh) {
         if (db == null) {
             Log.w(TAG, "Firestore not initialized. Returning empty list.");
             listener.onPricingLoaded(new ArrayList<>());
@@ -610,44 +1449,84 @@ public class FirestoreManager {
         }
 
         // Return cached data if valid and not forcing refresh
-        if (!forceRefresh && cachedPricing != null &&
-            System.currentTimeMillis() - pricingCacheTime < CACHE_VALIDITY_MS) {
-            Log.d(TAG, "Returning " + cachedPricing.size() + " pricing from cache");
-            listener.onPricingLoaded(new ArrayList<>(cachedPricing));
+        CacheSnapshot<Pricing> cachedPricing = pricingCache.get();
+        if (!forceRefresh && cachedPricing != null && cachedPricing.isFresh(CACHE_VALIDITY_MS)) {
+            Log.d(TAG, "Returning " + cachedPricing.items.size() + " pricing from cache");
+            listener.onPricingLoaded(cachedPricing.items);
+            return;
+        }
+
+        // Expired: show the stale prices now, call back again only if the refresh differs
+        final OnPricingLoadedListener target;
+        if (!forceRefresh && cachedPricing != null && staleWhileRevalidate) {
+            Log.d(TAG, "Returning stale pricing, revalidating in background");
+            listener.onPricingLoaded(cachedPricing.items);
+            target = revalidating(listener, cachedPricing.items);
+        } else {
+            target = listener;
+        }
+
+        SingleFlight.Flight<OnPricingLoadedListener> flight = pricingFlights.join(PRICING_COLLECTION, target);
+        if (flight == null) {
+            call.from(FirestoreMetrics.Source.COALESCED);
+            Log.d(TAG, "Joining pricing query already in flight");
             return;
         }
 
         db.collection(PRICING_COLLECTION)
-            .get()
-            .addOnSuccessListener(querySnapshot -> {
-                Map<String, Pricing> simplifiedMap = new HashMap<>();
-                for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                    Pricing pricing = doc.toObject(Pricing.class);
-                    if (pricing != null) {
-                        String key = pricing.getPricingKey();
-                        // Prioritize standardized IDs (e.g., "Mix_100gm") over random ones
-                        if (!simplifiedMap.containsKey(key) || doc.getId().equals(key)) {
-                            simplifiedMap.put(key, pricing);
+            .get(fetchPolicy.source())
+            .addOnSuccessListener(resultExecutor, querySnapshot -> {
+                observe(call, querySnapshot);
+                List<Pricing> pricingList;
+                if (hasLegacyIds()) {
+                    Map<String, Pricing> simplifiedMap = new HashMap<>();
+                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+                        Pricing pricing = DocumentCodecs.decodePricing(doc);
+                        if (pricing != null) {
+                            String key = pricing.getPricingKey();
+                            // Prioritize standardized IDs (e.g., "Mix_100gm") over random ones
+                            if (!simplifiedMap.containsKey(key) || doc.getId().equals(key)) {
+                                simplifiedMap.put(key, pricing);
+                            }
+                        }
+                    }
+                    pricingList = new ArrayList<>(simplifiedMap.values());
+                } else {
+                    // One document per tea type and package after the ID migration
+                    pricingList = new ArrayList<>();
+                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+                        Pricing pricing = DocumentCodecs.decodePricing(doc);
+                        if (pricing != null) {
+                            pricingList.add(pricing);
                         }
                     }
                 }
-                List<Pricing> pricingList = new ArrayList<>(simplifiedMap.values());
                 // Sort pricing for consistent UI display (Mix first, then by package size)
                 Collections.sort(pricingList, (p1, p2) -> p1.getPricingKey().compareToIgnoreCase(p2.getPricingKey()));
-                // Update cache
-                cachedPricing = new ArrayList<>(pricingList);
-                pricingCacheTime = System.currentTimeMillis();
-                Log.d(TAG, "Loaded and cached " + pricingList.size() + " unique pricing records");
-                listener.onPricingLoaded(pricingList);
+                CacheSnapshot<Pricing> snapshot = CacheSnapshot.of(pricingList);
+                mainHandler.post(() -> {
+                    // Update cache, and the disk snapshot when prices changed
+                    CacheSnapshot<Pricing> previous = pricingCache.getAndSet(snapshot);
+                    if (previous == null || !CacheSnapshot.sameContent(previous.items, snapshot.items, PRICING_CONTENT)) {
+                        referenceDataStore.savePricing(snapshot.items);
+                    }
+                    Log.d(TAG, "Loaded and cached " + snapshot.items.size() + " unique pricing records");
+                    for (OnPricingLoadedListener waiting : pricingFlights.finish(PRICING_COLLECTION, flight)) {
+                        waiting.onPricingLoaded(snapshot.items);
+                    }
+                });
             })
             .addOnFailureListener(e -> {
                 Log.e(TAG, "Error loading pricing", e);
                 // Return cached data if available on error
-                if (cachedPricing != null) {
-                    Log.d(TAG, "Returning cached pricing on error");
-                    listener.onPricingLoaded(new ArrayList<>(cachedPricing));
-                } else {
-                    listener.onError(e.getMessage());
+                CacheSnapshot<Pricing> stale = pricingCache.get();
+                for (OnPricingLoadedListener waiting : pricingFlights.finish(PRICING_COLLECTION, flight)) {
+                    if (stale != null) {
+                        Log.d(TAG, "Returning cached pricing on error");
+                        waiting.onPricingLoaded(stale.items);
+                    } else {
+                        waiting.onError(e.getMessage());
+                    }
                 }
             });
     }
@@ -667,16 +1546,22 @@ public class FirestoreManager {
         Log.d(TAG, "Enforcing standardized pricing ID: " + pricingId);
 
         // 1. Instantly write to the standardized ID (Local cache first)
-        db.collection(PRICING_COLLECTION)
-            .document(pricingId)
-            .set(pricing)
-            .addOnSuccessListener(aVoid -> {
-                Log.d(TAG, "Pricing synced with server: " + pricingId);
-                // 2. Cleanup: find and delete any legacy documents in background
-                cleanupLegacyPricing(pricing.getTea_type(), pricing.getPackage(), pricingId);
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Server sync failed for pricing: " + pricingId, e);
+        writeCoalescer.group()
+            .set(db.collection(PRICING_COLLECTION).document(pricingId), pricing)
+            .commit(new WriteCoalescer.OnCommitListener() {
+                @Override
+                public void onCommitted() {
+                    Log.d(TAG, "Pricing synced with server: " + pricingId);
+                    // 2. Cleanup: find and delete any legacy documents in background
+                    if (hasLegacyIds()) {
+                        cleanupLegacyPricing(pricing.getTea_type(), pricing.getPackage(), pricingId);
+                    }
+                }
+
+                @Override
+                public void onFailed(Exception e) {
+                    Log.e(TAG, "Server sync failed for pricing: " + pricingId, e);
+                }
             });
             
         // Invalidate cache since we're updating data
@@ -687,12 +1572,48 @@ public class FirestoreManager {
         listener.onSuccess();
     }
 
+    /**
+     * Save several prices in one atomic batch, followed by a single legacy cleanup pass
+     */
+    public void updatePricing(final List<Pricing> pricingList, final OnPricingUpdatedListener listener) {
+        if (db == null) {
+            listener.onError("Firestore not initialized");
+            return;
+        }
+
+        WriteCoalescer.Group group = writeCoalescer.group();
+        Date now = new Date();
+        for (Pricing pricing : pricingList) {
+            pricing.setUpdated_on(now);
+            group.set(db.collection(PRICING_COLLECTION).document(pricing.getPricingKey()), pricing);
+        }
+        group.commit(new WriteCoalescer.OnCommitListener() {
+            @Override
+            public void onCommitted() {
+                Log.d(TAG, pricingList.size() + " prices synced with server");
+                if (hasLegacyIds()) {
+                    cleanupLegacyPricing();
+                }
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                Log.e(TAG, "Server sync failed for pricing batch", e);
+            }
+        });
+
+        invalidatePricingCache();
+
+        Log.d(TAG, pricingList.size() + " prices queued locally");
+        listener.onSuccess();
+    }
+
     /**
      * Invalidate pricing cache - call when pricing data is modified
      */
     public void invalidatePricingCache() {
-        cachedPricing = null;
-        pricingCacheTime = 0;
+        pricingCache.set(null);
+        pricingFlights.detachAll();
         Log.d(TAG, "Pricing cache invalidated");
     }
 
@@ -705,12 +1626,35 @@ public class FirestoreManager {
             .whereEqualTo("package", packageName)
             .get()
             .addOnSuccessListener(querySnapshot -> {
+                recordReads("cleanupLegacyPricing", querySnapshot);
+                WriteCoalescer.Group group = writeCoalescer.group();
                 for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
                     if (!doc.getId().equals(standardizedId)) {
                         Log.i(TAG, "Deleting legacy pricing doc: " + doc.getId());
-                        db.collection(PRICING_COLLECTION).document(doc.getId()).delete();
+                        group.delete(db.collection(PRICING_COLLECTION).document(doc.getId()));
+                    }
+                }
+                group.commit(null);
+            });
+    }
+
+    /**
+     * Deletes every pricing document whose ID is not its standardized key, in one query
+     */
+    private void cleanupLegacyPricing() {
+        db.collection(PRICING_COLLECTION)
+            .get()
+            .addOnSuccessListener(querySnapshot -> {
+                recordReads("cleanupLegacyPricing", querySnapshot);
+                WriteCoalescer.Group group = writeCoalescer.group();
+                for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+                    Pricing pricing = DocumentCodecs.decodePricing(doc);
+                    if (pricing != null && !doc.getId().equals(pricing.getPricingKey())) {
+                        Log.i(TAG, "Deleting legacy pricing doc: " + doc.getId());
+                        group.delete(db.collection(PRICING_COLLECTION).document(doc.getId()));
                     }
                 }
+                group.commit(null);
             });
     }
 
@@ -718,6 +1662,12 @@ public class FirestoreManager {
      * Get pricing by tea type
      */
     public void getPricingByTeaType(final String teaType, final OnPricingLoadedListener listener) {
+        FirestoreMetrics.Call call = begin("getPricingByTeaType");
+        loadPricingByTeaType(call, teaType, MeteredListeners.pricing(call, listener));
+    }
+
+    private void loadPricingByTeaType(FirestoreMetrics.Call call, final String teaType,
+                                      final OnPricingLoadedListener listener) {
         if (db == null) {
             listener.onPricingLoaded(new ArrayList<>());
             return;
@@ -725,16 +1675,18 @@ public class FirestoreManager {
 
         db.collection(PRICING_COLLECTION)
             .whereEqualTo("tea_type", teaType)
-            .get()
-            .addOnSuccessListener(querySnapshot -> {
+            .get(fetchPolicy.source())
+            .addOnSuccessListener(resultExecutor, querySnapshot -> {
+                observe(call, querySnapshot);
                 List<Pricing> pricingList = new ArrayList<>();
                 for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                    Pricing pricing = doc.toObject(Pricing.class);
+                    Pricing pricing = DocumentCodecs.decodePricing(doc);
                     if (pricing != null) {
                         pricingList.add(pricing);
                     }
                 }
-                listener.onPricingLoaded(pricingList);
+                List<Pricing> result = Collections.unmodifiableList(pricingList);
+                mainHandler.post(() -> listener.onPricingLoaded(result));
             })
             .addOnFailureListener(e -> {
                 Log.e(TAG, "Error loading pricing by tea type", e);
@@ -757,80 +1709,174 @@ public class FirestoreManager {
      * Get all customers with option to force refresh
      */
     public void getAllCustomers(final OnCustomersLoadedListener listener, boolean forceRefresh) {
+        FirestoreMetrics.Call call = begin("getAllCustomers");
+        loadCustomers(call, MeteredListeners.customers(call, listener), forceRefresh);
+    }
+
+    private void loadCustomers(FirestoreMetrics.Call call, final OnCustomersLoadedListener listener, boolean forceRefresh) {
         if (db == null) {
             listener.onCustomersLoaded(new ArrayList<>());
             return;
         }
 
         // Return cached data if valid and not forcing refresh
-        if (!forceRefresh && cachedCustomers != null &&
-            System.currentTimeMillis() - customersCacheTime < CACHE_VALIDITY_MS) {
-            Log.d(TAG, "Returning " + cachedCustomers.size() + " customers from cache");
-            listener.onCustomersLoaded(new ArrayList<>(cachedCustomers));
+        CacheSnapshot<Customer> cachedCustomers = customersCache.get();
+        if (!forceRefresh && cachedCustomers != null && cachedCustomers.isFresh(CACHE_VALIDITY_MS)) {
+            Log.d(TAG, "Returning " + cachedCustomers.items.size() + " customers from cache");
+            listener.onCustomersLoaded(cachedCustomers.items);
+            return;
+        }
+
+        // Expired: show the stale list now, call back again only if the refresh differs
+        final OnCustomersLoadedListener target;
+        if (!forceRefresh && cachedCustomers != null && staleWhileRevalidate) {
+            Log.d(TAG, "Returning stale customers, revalidating in background");
+            listener.onCustomersLoaded(cachedCustomers.items);
+            target = revalidating(listener, cachedCustomers.items);
+        } else {
+            target = listener;
+        }
+
+        SingleFlight.Flight<OnCustomersLoadedListener> flight = customersFlights.join(CUSTOMERS_COLLECTION, target);
+        if (flight == null) {
+            call.from(FirestoreMetrics.Source.COALESCED);
+            Log.d(TAG, "Joining customers query already in flight");
             return;
         }
 
         db.collection(CUSTOMERS_COLLECTION)
             .orderBy("customer_name", Query.Direction.ASCENDING)
-            .get()
-            .addOnSuccessListener(querySnapshot -> {
+            .get(fetchPolicy.source())
+            .addOnSuccessListener(resultExecutor, querySnapshot -> {
+                observe(call, querySnapshot);
                 List<Customer> customers = new ArrayList<>();
                 for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                    Customer customer = doc.toObject(Customer.class);
+                    Customer customer = DocumentCodecs.decodeCustomer(doc);
                     if (customer != null) {
                         customers.add(customer);
                     }
                 }
-                // Update cache
-                cachedCustomers = new ArrayList<>(customers);
-                customersCacheTime = System.currentTimeMillis();
-                Log.d(TAG, "Loaded and cached " + customers.size() + " customers");
-                listener.onCustomersLoaded(customers);
+                CacheSnapshot<Customer> snapshot = CacheSnapshot.of(customers);
+                mainHandler.post(() -> {
+                    // Update cache, and the disk snapshot when the list changed
+                    CacheSnapshot<Customer> previous = customersCache.getAndSet(snapshot);
+                    if (previous == null || !CacheSnapshot.sameContent(previous.items, snapshot.items, CUSTOMER_CONTENT)) {
+                        referenceDataStore.saveCustomers(snapshot.items);
+                        customerDirectory.rebuild(snapshot.items);
+                        suggestionIndex = null;
+                    }
+                    Log.d(TAG, "Loaded and cached " + snapshot.items.size() + " customers");
+                    for (OnCustomersLoadedListener waiting : customersFlights.finish(CUSTOMERS_COLLECTION, flight)) {
+                        waiting.onCustomersLoaded(snapshot.items);
+                    }
+                });
             })
             .addOnFailureListener(e -> {
                 Log.e(TAG, "Error loading customers", e);
                 // Return cached data if available on error
-                if (cachedCustomers != null) {
-                    Log.d(TAG, "Returning cached customers on error");
-                    listener.onCustomersLoaded(new ArrayList<>(cachedCustomers));
-                } else {
-                    listener.onError(e.getMessage());
+                CacheSnapshot<Customer> stale = customersCache.get();
+                for (OnCustomersLoadedListener waiting : customersFlights.finish(CUSTOMERS_COLLECTION, flight)) {
+                    if (stale != null) {
+                        Log.d(TAG, "Returning cached customers on error");
+                        waiting.onCustomersLoaded(stale.items);
+                    } else {
+                        waiting.onError(e.getMessage());
+                    }
                 }
             });
     }
 
     /**
-     * Get customers by village
+     * Get customers by village, sorted by name. Answered from the customer directory, which
+     * is built from the full customer list; that list is loaded first if needed.
      */
     public void getCustomersByVillage(final String village, final OnCustomersLoadedListener listener) {
-        if (db == null) {
-            listener.onCustomersLoaded(new ArrayList<>());
+        FirestoreMetrics.Call call = begin("getCustomersByVillage");
+        loadCustomersByVillage(call, village, MeteredListeners.customers(call, listener));
+    }
+
+    private void loadCustomersByVillage(FirestoreMetrics.Call call, final String village,
+                                        final OnCustomersLoadedListener listener) {
+        loadCustomers(call, new OnCustomersLoadedListener() {
+            @Override
+            public void onCustomersLoaded(List<Customer> customers) {
+                List<Customer> inVillage = Collections.unmodifiableList(
+                        new ArrayList<>(customerDirectory.inVillage(village)));
+                Log.d(TAG, "Returning " + inVillage.size() + " customers for village: " + village);
+                listener.onCustomersLoaded(inVillage);
+            }
+
+            @Override
+            public void onError(String error) {
+                listener.onError(error);
+            }
+        }, false);
+    }
+
+    /**
+     * The customer directory, current with the last customer list delivered. Main thread only.
+     */
+    public CustomerDirectory getCustomerDirectory() {
+        return customerDirectory;
+    }
+
+    /**
+     * Get the customer autocomplete index. Built once from the customer list and the local
+     * sales mirror, then kept current as sales and customers are added.
+     */
+    public void getCustomerSuggestionIndex(final OnCustomerSuggestionIndexLoadedListener listener) {
+        CustomerSuggestionIndex index = suggestionIndex;
+        if (index != null) {
+            listener.onIndexLoaded(index);
             return;
         }
+        suggestionIndexWaiters.add(listener);
+        if (suggestionIndexWaiters.size() > 1) return;
+
+        FirestoreMetrics.Call call = begin("getCustomerSuggestionIndex");
+        loadCustomers(call, MeteredListeners.customers(call, new OnCustomersLoadedListener() {
+            @Override
+            public void onCustomersLoaded(List<Customer> customers) {
+                // Stale-while-revalidate may answer twice; the first answer builds the index
+                if (suggestionIndexWaiters.isEmpty()) return;
+                localSalesStore.query(new SalesFilter(), new OnSalesLoadedListener() {
+                    @Override
+                    public void onSalesLoaded(List<Sale> sales) {
+                        resultExecutor.execute(() -> {
+                            CustomerSuggestionIndex built = CustomerSuggestionIndex.build(customers, sales);
+                            Log.d(TAG, "Built suggestion index of " + built.size() + " customers from "
+                                    + sales.size() + " sales");
+                            mainHandler.post(() -> {
+                                suggestionIndex = built;
+                                for (OnCustomerSuggestionIndexLoadedListener waiting : drainSuggestionIndexWaiters()) {
+                                    waiting.onIndexLoaded(built);
+                                }
+                            });
+                        });
+                    }
 
-        db.collection(CUSTOMERS_COLLECTION)
-            .whereEqualTo("village", village)
-            .get()
-            .addOnSuccessListener(querySnapshot -> {
-                List<Customer> customers = new ArrayList<>();
-                for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                    Customer customer = doc.toObject(Customer.class);
-                    if (customer != null) {
-                        customers.add(customer);
+                    @Override
+                    public void onError(String error) {
+                        for (OnCustomerSuggestionIndexLoadedListener waiting : drainSuggestionIndexWaiters()) {
+                            waiting.onError(error);
+                        }
                     }
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                for (OnCustomerSuggestionIndexLoadedListener waiting : drainSuggestionIndexWaiters()) {
+                    waiting.onError(error);
                 }
-                
-                // Sort in app to avoid Firestore index requirement
-                Collections.sort(customers, (c1, c2) -> 
-                    c1.getCustomer_name().compareToIgnoreCase(c2.getCustomer_name()));
-                
-                Log.d(TAG, "Loaded " + customers.size() + " customers for village: " + village);
-                listener.onCustomersLoaded(customers);
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Error loading customers by village", e);
-                listener.onError(e.getMessage());
-            });
+            }
+        }), false);
+    }
+
+    private List<OnCustomerSuggestionIndexLoadedListener> drainSuggestionIndexWaiters() {
+        List<OnCustomerSuggestionIndexLoadedListener> waiting = new ArrayList<>(suggestionIndexWaiters);
+        suggestionIndexWaiters.clear();
+        return waiting;
     }
 
     /**
@@ -842,33 +1888,59 @@ public class FirestoreManager {
             return;
         }
 
-        // Invalidate cache since we're adding new data
-        invalidateCustomersCache();
+        // Patch the cached list and directory instead of reloading every customer
+        applyCustomerToCaches(customer);
 
-        // Use a predictable ID for better offline support
-        String customerId = (customer.getVillage() + "_" + customer.getCustomer_name())
-                .replaceAll("[^a-zA-Z0-9_]", "_");
+        writeCoalescer.group()
+            .set(db.collection(CUSTOMERS_COLLECTION).document(customerDocumentId(customer)), customer)
+            .commit(new WriteCoalescer.OnCommitListener() {
+                @Override
+                public void onCommitted() {
+                    Log.d(TAG, "Customer synced with server: " + customer.getCustomer_name());
+                }
 
-        db.collection(CUSTOMERS_COLLECTION)
-            .document(customerId)
-            .set(customer)
-            .addOnSuccessListener(aVoid -> {
-                Log.d(TAG, "Customer synced with server: " + customer.getCustomer_name());
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Server sync failed for customer: " + customer.getCustomer_name(), e);
+                @Override
+                public void onFailed(Exception e) {
+                    Log.e(TAG, "Server sync failed for customer: " + customer.getCustomer_name(), e);
+                }
             });
 
         // Trigger success IMMEDIATELY for the UI
         if (listener != null) listener.onSuccess();
     }
 
+    /**
+     * Insert a newly written customer into the cached list (ordered like the query, by
+     * name), the directory and the suggestion index, keeping the load time
+     */
+    private void applyCustomerToCaches(Customer customer) {
+        CustomerSuggestionIndex suggestions = suggestionIndex;
+        if (suggestions != null) suggestions.add(customer);
+        CacheSnapshot<Customer> cached = customersCache.get();
+        if (cached == null || !customerDirectory.add(customer)) return;
+        List<Customer> items = new ArrayList<>(cached.items);
+        int index = Collections.binarySearch(items, customer, Comparator.comparing(Customer::getCustomer_name,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        items.add(index >= 0 ? index : -index - 1, customer);
+        customersCache.set(cached.withItems(items));
+        customersFlights.detachAll();
+    }
+
+    /**
+     * Use a predictable ID for better offline support
+     */
+    private static String customerDocumentId(Customer customer) {
+        return (customer.getVillage() + "_" + customer.getCustomer_name())
+                .replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+
     /**
      * Invalidate customers cache - call when customer data is modified
      */
     public void invalidateCustomersCache() {
-        cachedCustomers = null;
-        customersCacheTime = 0;
+        customersCache.set(null);
+        customersFlights.detachAll();
+        suggestionIndex = null;
         Log.d(TAG, "Customers cache invalidated");
     }
 
@@ -876,24 +1948,35 @@ public class FirestoreManager {
     // NOTE OPERATIONS
     // ============================================
 
-    public void getNotesPaginated(int limit, DocumentSnapshot lastDocument, final OnNotesLoadedListener listener) {
-        getNotesPaginated(limit, lastDocument, listener, false);
+    public void getNotesPaginated(int limit, PageCursor after, final OnNotesLoadedListener listener) {
+        getNotesPaginated(limit, after, listener, false);
     }
 
-    public void getNotesPaginated(int limit, DocumentSnapshot lastDocument, final OnNotesLoadedListener listener, boolean forceRefresh) {
+    public void getNotesPaginated(int limit, PageCursor after, final OnNotesLoadedListener listener, boolean forceRefresh) {
+        FirestoreMetrics.Call call = begin("getNotesPaginated");
+        OnNotesLoadedListener metered = MeteredListeners.notes(call, listener);
+        if (after != null && !(after instanceof SnapshotCursor)) {
+            metered.onError("Page cursor was not issued by Firestore");
+            return;
+        }
+        loadNotesPage(call, limit, snapshotOf(after), metered, forceRefresh);
+    }
+
+    private void loadNotesPage(FirestoreMetrics.Call call, int limit, DocumentSnapshot lastDocument,
+                               final OnNotesLoadedListener listener, boolean forceRefresh) {
         if (db == null) {
             listener.onNotesLoaded(new ArrayList<>());
             return;
         }
 
-        if (lastDocument == null && !forceRefresh && cachedNotes != null &&
-            System.currentTimeMillis() - notesCacheTime < CACHE_VALIDITY_MS) {
-            Log.d(TAG, "Returning first page of notes from in-memory cache");
-            if (listener instanceof OnNotesPaginatedListener) {
-                ((OnNotesPaginatedListener) listener).onNotesLoaded(new ArrayList<>(cachedNotes), null);
-            } else {
-                listener.onNotesLoaded(new ArrayList<>(cachedNotes));
-            }
+        if (lastDocument == null && forceRefresh) {
+            notesPages.clear();
+        }
+        final int pageIndex = lastDocument == null ? 0 : notesPages.indexAfter(lastDocument);
+        PageCache.Page<Note> cachedPage = forceRefresh ? null : notesPages.get(pageIndex, limit);
+        if (cachedPage != null && cachedPage.snapshot.isFresh(CACHE_VALIDITY_MS)) {
+            Log.d(TAG, "Returning page " + pageIndex + " of notes from in-memory cache");
+            deliverNotesPage(listener, cachedPage.snapshot.items, cachedPage.cursor);
             return;
         }
 
@@ -905,37 +1988,65 @@ public class FirestoreManager {
             query = query.startAfter(lastDocument);
         }
 
-        query.get().addOnSuccessListener(querySnapshot -> {
-            List<Note> notes = new ArrayList<>();
-            for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                Note note = doc.toObject(Note.class);
-                if (note != null) {
-                    notes.add(note);
+        long requestedAt = SystemClock.elapsedRealtime();
+        fetchPolicy.get(query, new FetchPolicy.OnFetchedListener() {
+            // Main thread; as for sales pages only the first page is redelivered
+            private OnNotesLoadedListener next = listener;
+
+            @Override
+            public void onFetched(QuerySnapshot querySnapshot, boolean provisional) {
+                recordRoundTrip(querySnapshot, requestedAt);
+                observe(call, querySnapshot);
+                List<Note> notes = new ArrayList<>();
+                for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+                    Note note = DocumentCodecs.decodeNote(doc);
+                    if (note != null) {
+                        notes.add(note);
+                    }
                 }
-            }
+                DocumentSnapshot nextLast = nextPageCursor(querySnapshot, limit);
 
-            if (lastDocument == null) {
-                cachedNotes = new ArrayList<>(notes);
-                notesCacheTime = System.currentTimeMillis();
-                Log.d(TAG, "Updated first-page notes cache");
+                mainHandler.post(() -> {
+                    if (pageIndex >= 0 && !provisional) {
+                        notesPages.put(pageIndex, limit, notes, nextLast);
+                        Log.d(TAG, "Updated notes page cache (page " + pageIndex + ")");
+                    }
+                    OnNotesLoadedListener deliverTo = next;
+                    if (provisional && pageIndex != 0) {
+                        next = null;
+                    }
+                    if (deliverTo != null) {
+                        deliverNotesPage(deliverTo, notes, nextLast);
+                    }
+                });
             }
 
-            if (listener instanceof OnNotesPaginatedListener) {
-                DocumentSnapshot nextLast = null;
-                if (!querySnapshot.isEmpty()) {
-                    nextLast = querySnapshot.getDocuments().get(querySnapshot.size() - 1);
-                }
-                ((OnNotesPaginatedListener) listener).onNotesLoaded(notes, nextLast);
-            } else {
-                listener.onNotesLoaded(notes);
+            @Override
+            public void onFailed(Exception e) {
+                Log.e(TAG, "Error loading paginated notes", e);
+                listener.onError(e.getMessage());
             }
-        }).addOnFailureListener(e -> {
-            Log.e(TAG, "Error loading paginated notes", e);
-            listener.onError(e.getMessage());
         });
     }
 
+    private static DocumentSnapshot snapshotOf(PageCursor cursor) {
+        return cursor != null ? ((SnapshotCursor) cursor).snapshot : null;
+    }
+
+    private static void deliverNotesPage(OnNotesLoadedListener listener, List<Note> notes, DocumentSnapshot cursor) {
+        if (listener instanceof OnNotesPaginatedListener) {
+            ((OnNotesPaginatedListener) listener).onNotesLoaded(notes, SnapshotCursor.of(cursor));
+        } else {
+            listener.onNotesLoaded(notes);
+        }
+    }
+
     public void getNoteById(String noteId, final OnNoteLoadedListener listener) {
+        FirestoreMetrics.Call call = begin("getNoteById");
+        loadNote(call, noteId, MeteredListeners.note(call, listener));
+    }
+
+    private void loadNote(FirestoreMetrics.Call call, String noteId, final OnNoteLoadedListener listener) {
         if (db == null || noteId == null) {
             listener.onError("Invalid ID or database not initialized");
             return;
@@ -958,9 +2069,13 @@ public class FirestoreManager {
 
         db.collection(NOTES_COLLECTION)
                 .document(noteId)
-                .get()
+                .get(fetchPolicy.source())
                 .addOnSuccessListener(doc -> {
-                    Note note = doc.toObject(Note.class);
+                    call.from(doc.getMetadata().isFromCache()
+                            ? FirestoreMetrics.Source.FIRESTORE_CACHE : FirestoreMetrics.Source.SERVER);
+                    call.decoded(1);
+                    readBudget.record(call.getScreen(), call.getOperation(), ReadBudget.billedReads(doc));
+                    Note note = DocumentCodecs.decodeNote(doc);
                     if (note != null) {
                         // Update LRU cache
                         synchronized (noteCache) {
@@ -984,14 +2099,18 @@ public class FirestoreManager {
         invalidateNotesCache();
         note.setUpdated_at(new Date());
 
-        db.collection(NOTES_COLLECTION)
-            .document(note.getNote_id())
-            .set(note)
-            .addOnSuccessListener(aVoid -> {
-                Log.d(TAG, "Note synced with server: " + note.getNote_id());
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Server sync failed for note: " + note.getNote_id(), e);
+        writeCoalescer.group()
+            .set(db.collection(NOTES_COLLECTION).document(note.getNote_id()), note)
+            .commit(new WriteCoalescer.OnCommitListener() {
+                @Override
+                public void onCommitted() {
+                    Log.d(TAG, "Note synced with server: " + note.getNote_id());
+                }
+
+                @Override
+                public void onFailed(Exception e) {
+                    Log.e(TAG, "Server sync failed for note: " + note.getNote_id(), e);
+                }
             });
 
         if (listener != null) listener.onSuccess();
@@ -1005,22 +2124,25 @@ public class FirestoreManager {
 
         invalidateNotesCache();
 
-        db.collection(NOTES_COLLECTION)
-            .document(noteId)
-            .delete()
-            .addOnSuccessListener(aVoid -> {
-                Log.d(TAG, "Note deleted from server: " + noteId);
-            })
-            .addOnFailureListener(e -> {
-                Log.e(TAG, "Server deletion failed for note: " + noteId, e);
+        writeCoalescer.group()
+            .delete(db.collection(NOTES_COLLECTION).document(noteId))
+            .commit(new WriteCoalescer.OnCommitListener() {
+                @Override
+                public void onCommitted() {
+                    Log.d(TAG, "Note deleted from server: " + noteId);
+                }
+
+                @Override
+                public void onFailed(Exception e) {
+                    Log.e(TAG, "Server deletion failed for note: " + noteId, e);
+                }
             });
 
         if (listener != null) listener.onSuccess();
     }
 
     public void invalidateNotesCache() {
-        cachedNotes = null;
-        notesCacheTime = 0;
+        notesPages.clear();
         synchronized (noteCache) {
             noteCache.clear();
             noteCacheTimes.clear();
@@ -1041,97 +2163,120 @@ public class FirestoreManager {
     }
     
     // ============================================
-    // LISTENER INTERFACES
+    // STALE-WHILE-REVALIDATE
     // ============================================
-    
-    public interface OnInitializeListener {
-        void onSuccess();
-        void onError(String error);
-    }
-    
-    public interface OnSalesLoadedListener {
-        void onSalesLoaded(List<Sale> sales);
-        void onError(String error);
-    }
-    
-    public interface OnSaleAddedListener {
-        void onSuccess();
-        void onError(String error);
-    }
-    
-    public interface OnSaleUpdatedListener {
-        void onSuccess();
-        void onError(String error);
-    }
-    
-    public interface OnSaleDeletedListener {
-        void onSuccess();
-        void onError(String error);
-    }
-    
-    public interface OnVillagesLoadedListener {
-        void onVillagesLoaded(List<Village> villages);
-        void onError(String error);
-    }
-    
-    public interface OnVillageAddedListener {
-        void onSuccess();
-        void onError(String error);
-    }
-    
-    public interface OnVillageDeletedListener {
-        void onSuccess();
-        void onError(String error);
-    }
-    
-    public interface OnPricingLoadedListener {
-        void onPricingLoaded(List<Pricing> pricingList);
-        void onError(String error);
-    }
-    
-    public interface OnPricingUpdatedListener {
-        void onSuccess();
-        void onError(String error);
+
+    /**
+     * When enabled (the default), getters with an expired cache answer immediately with
+     * the stale data and refresh in the background. The listener is called a second time
+     * only if the refreshed data differs; background failures are logged, not reported.
+     */
+    public void setStaleWhileRevalidate(boolean enabled) {
+        staleWhileRevalidate = enabled;
     }
 
-    public interface OnCustomersLoadedListener {
-        void onCustomersLoaded(List<Customer> customers);
-        void onError(String error);
+    private OnSalesLoadedListener revalidating(OnSalesLoadedListener listener, List<Sale> stale) {
+        if (listener instanceof OnSalesPaginatedListener) {
+            OnSalesPaginatedListener paginated = (OnSalesPaginatedListener) listener;
+            return new OnSalesPaginatedListener() {
+                @Override
+                public void onSalesLoaded(List<Sale> sales, PageCursor next) {
+                    if (!CacheSnapshot.sameContent(stale, sales, SALE_CONTENT)) {
+                        paginated.onSalesLoaded(sales, next);
+                    }
+                }
+
+                @Override
+                public void onSalesLoaded(List<Sale> sales) {
+                    if (!CacheSnapshot.sameContent(stale, sales, SALE_CONTENT)) {
+                        paginated.onSalesLoaded(sales);
+                    }
+                }
+
+                @Override
+                public void onError(String error) {
+                    Log.w(TAG, "Background sales refresh failed: " + error);
+                }
+            };
+        }
+        return new OnSalesLoadedListener() {
+            @Override
+            public void onSalesLoaded(List<Sale> sales) {
+                if (!CacheSnapshot.sameContent(stale, sales, SALE_CONTENT)) {
+                    listener.onSalesLoaded(sales);
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.w(TAG, "Background sales refresh failed: " + error);
+            }
+        };
     }
 
-    public interface OnCustomerAddedListener {
-        void onSuccess();
-        void onError(String error);
+    private OnVillagesLoadedListener revalidating(OnVillagesLoadedListener listener, List<Village> stale) {
+        return new OnVillagesLoadedListener() {
+            @Override
+            public void onVillagesLoaded(List<Village> villages) {
+                if (!CacheSnapshot.sameContent(stale, villages, VILLAGE_CONTENT)) {
+                    listener.onVillagesLoaded(villages);
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.w(TAG, "Background villages refresh failed: " + error);
+            }
+        };
     }
 
-    public interface OnNotesLoadedListener {
-        void onNotesLoaded(List<Note> notes);
-        void onError(String error);
+    private OnPricingLoadedListener revalidating(OnPricingLoadedListener listener, List<Pricing> stale) {
+        return new OnPricingLoadedListener() {
+            @Override
+            public void onPricingLoaded(List<Pricing> pricingList) {
+                if (!CacheSnapshot.sameContent(stale, pricingList, PRICING_CONTENT)) {
+                    listener.onPricingLoaded(pricingList);
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.w(TAG, "Background pricing refresh failed: " + error);
+            }
+        };
     }
 
-    public interface OnNoteAddedListener {
-        void onSuccess();
-        void onError(String error);
+    private OnCustomersLoadedListener revalidating(OnCustomersLoadedListener listener, List<Customer> stale) {
+        return new OnCustomersLoadedListener() {
+            @Override
+            public void onCustomersLoaded(List<Customer> customers) {
+                if (!CacheSnapshot.sameContent(stale, customers, CUSTOMER_CONTENT)) {
+                    listener.onCustomersLoaded(customers);
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.w(TAG, "Background customers refresh failed: " + error);
+            }
+        };
     }
 
-    public interface OnNoteDeletedListener {
+    // ============================================
+    // LISTENER INTERFACES
+    // ============================================
+    // Listeners of the repository calls are declared by the repository interfaces
+
+    public interface OnInitializeListener {
         void onSuccess();
         void onError(String error);
     }
 
-    public interface OnNoteLoadedListener {
-        void onNoteLoaded(Note note);
+    public interface OnCustomerSuggestionIndexLoadedListener {
+        void onIndexLoaded(CustomerSuggestionIndex index);
         void onError(String error);
     }
 
-    public interface OnSalesPaginatedListener extends OnSalesLoadedListener {
-        void onSalesLoaded(List<Sale> sales, DocumentSnapshot lastVisible);
-    }
-
-    public interface OnNotesPaginatedListener extends OnNotesLoadedListener {
-        void onNotesLoaded(List<Note> notes, DocumentSnapshot lastVisible);
-    }
-
     /**
      * Finds and deletes legacy villages with non-standard IDs.
      */
@@ -1140,12 +2285,15 @@ public class FirestoreManager {
             .whereEqualTo("name", villageName)
             .get()
             .addOnSuccessListener(querySnapshot -> {
+                recordReads("cleanupLegacyVillages", querySnapshot);
+                WriteCoalescer.Group group = writeCoalescer.group();
                 for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
                     if (!doc.getId().equals(standardizedId)) {
                         Log.i(TAG, "Deleting legacy village doc: " + doc.getId());
-                        db.collection(VILLAGES_COLLECTION).document(doc.getId()).delete();
+                        group.delete(db.collection(VILLAGES_COLLECTION).document(doc.getId()));
                     }
                 }
+                group.commit(null);
             });
     }
 }
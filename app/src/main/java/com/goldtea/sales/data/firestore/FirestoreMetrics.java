@@ -0,0 +1,297 @@
+package com.goldtea.sales.data.firestore;
+
+import android.os.SystemClock;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-process counters for FirestoreManager operations: latency histograms by the source
+ * that answered, cache hit ratio, documents decoded and result sizes.
+ *
+ * Each operation call is timed from the request to its first answer (with
+ * stale-while-revalidate that is the stale answer). Thread safe; read it with
+ * {@link #snapshot()} or write a text report with {@link #dumpTo(File)}.
+ */
+public final class FirestoreMetrics {
+
+    /**
+     * Where an answer came from
+     */
+    public enum Source {
+        MEMORY,           // In-memory caches and the live view
+        MIRROR,           // Local SQLite mirror of the sales collection
+        FIRESTORE_CACHE,  // Firestore's offline cache
+        SERVER,
+        COALESCED         // Attached to an identical query already in flight
+    }
+
+    // Upper bounds of the latency buckets, in ms; the last bucket is open-ended
+    private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    /**
+     * Latency distribution over fixed buckets
+     */
+    public static final class Histogram {
+        private final long[] counts = new long[BUCKET_BOUNDS_MS.length + 1];
+        private long count;
+        private long totalMs;
+        private long maxMs;
+
+        private void record(long ms) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MS.length && ms > BUCKET_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+            count++;
+            totalMs += ms;
+            maxMs = Math.max(maxMs, ms);
+        }
+
+        private Histogram copy() {
+            Histogram copy = new Histogram();
+            System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+            copy.count = count;
+            copy.totalMs = totalMs;
+            copy.maxMs = maxMs;
+            return copy;
+        }
+
+        public long getCount() { return count; }
+
+        public long getMaxMs() { return maxMs; }
+
+        public double getMeanMs() {
+            return count == 0 ? 0 : (double) totalMs / count;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given percentile (0-100), capped at the maximum
+         */
+        public long percentileMs(double percentile) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i < BUCKET_BOUNDS_MS.length ? Math.min(BUCKET_BOUNDS_MS[i], maxMs) : maxMs;
+                }
+            }
+            return maxMs;
+        }
+    }
+
+    /**
+     * Totals for one operation
+     */
+    public static final class OperationStats {
+        private final Map<Source, Histogram> latency = new EnumMap<>(Source.class);
+        private long hits;
+        private long misses;
+        private long errors;
+        private long documentsDecoded;
+        private long resultItems;
+        private long maxResultItems;
+
+        private OperationStats copy() {
+            OperationStats copy = new OperationStats();
+            for (Map.Entry<Source, Histogram> entry : latency.entrySet()) {
+                copy.latency.put(entry.getKey(), entry.getValue().copy());
+            }
+            copy.hits = hits;
+            copy.misses = misses;
+            copy.errors = errors;
+            copy.documentsDecoded = documentsDecoded;
+            copy.resultItems = resultItems;
+            copy.maxResultItems = maxResultItems;
+            return copy;
+        }
+
+        /**
+         * Latency by source; sources that never answered are absent
+         */
+        public Map<Source, Histogram> getLatency() { return latency; }
+
+        public long getHits() { return hits; }
+
+        public long getMisses() { return misses; }
+
+        public long getErrors() { return errors; }
+
+        public long getDocumentsDecoded() { return documentsDecoded; }
+
+        public long getMaxResultItems() { return maxResultItems; }
+
+        public double getHitRatio() {
+            long answered = hits + misses;
+            return answered == 0 ? 0 : (double) hits / answered;
+        }
+
+        public double getMeanResultItems() {
+            long answered = hits + misses;
+            return answered == 0 ? 0 : (double) resultItems / answered;
+        }
+    }
+
+    /**
+     * One timed call. Only the first answer or error is recorded.
+     */
+    public final class Call {
+        private final String operation;
+        private final String screen;
+        private final long startedAt = SystemClock.elapsedRealtime();
+        private volatile Source source = Source.MEMORY;
+        private boolean finished = false;
+
+        private Call(String operation, String screen) {
+            this.operation = operation;
+            this.screen = screen;
+        }
+
+        String getOperation() {
+            return operation;
+        }
+
+        /**
+         * Screen that was showing when the call started
+         */
+        String getScreen() {
+            return screen;
+        }
+
+        /**
+         * The source that will answer; set before the answer is delivered
+         */
+        void from(Source source) {
+            this.source = source;
+        }
+
+        void decoded(int documents) {
+            synchronized (FirestoreMetrics.this) {
+                stats(operation).documentsDecoded += documents;
+            }
+        }
+
+        void done(int resultItems) {
+            long elapsed = SystemClock.elapsedRealtime() - startedAt;
+            synchronized (FirestoreMetrics.this) {
+                if (finished) return;
+                finished = true;
+                OperationStats stats = stats(operation);
+                Histogram histogram = stats.latency.get(source);
+                if (histogram == null) {
+                    histogram = new Histogram();
+                    stats.latency.put(source, histogram);
+                }
+                histogram.record(elapsed);
+                if (source == Source.MEMORY) {
+                    stats.hits++;
+                } else {
+                    stats.misses++;
+                }
+                stats.resultItems += resultItems;
+                stats.maxResultItems = Math.max(stats.maxResultItems, resultItems);
+            }
+        }
+
+        void failed() {
+            synchronized (FirestoreMetrics.this) {
+                if (finished) return;
+                finished = true;
+                stats(operation).errors++;
+            }
+        }
+    }
+
+    private final Map<String, OperationStats> operations = new TreeMap<>();
+    private long since = System.currentTimeMillis();
+
+    Call begin(String operation) {
+        return begin(operation, ReadBudget.BACKGROUND);
+    }
+
+    Call begin(String operation, String screen) {
+        return new Call(operation, screen);
+    }
+
+    private OperationStats stats(String operation) {
+        OperationStats stats = operations.get(operation);
+        if (stats == null) {
+            stats = new OperationStats();
+            operations.put(operation, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Copy of the current counters by operation name
+     */
+    public synchronized Map<String, OperationStats> snapshot() {
+        Map<String, OperationStats> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, OperationStats> entry : operations.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copy;
+    }
+
+    public synchronized void reset() {
+        operations.clear();
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * Plain-text table of every operation
+     */
+    public String report() {
+        Map<String, OperationStats> stats = snapshot();
+        long start;
+        synchronized (this) {
+            start = since;
+        }
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        StringBuilder out = new StringBuilder();
+        out.append("Firestore metrics ").append(format.format(new Date(start)))
+                .append(" - ").append(format.format(new Date())).append('\n');
+        for (Map.Entry<String, OperationStats> entry : stats.entrySet()) {
+            OperationStats op = entry.getValue();
+            out.append('\n').append(entry.getKey()).append(String.format(Locale.US,
+                    ": %d calls, hit ratio %.0f%%, %d errors, %d docs decoded, %.1f items/result (max %d)%n",
+                    op.hits + op.misses, op.getHitRatio() * 100, op.errors, op.documentsDecoded,
+                    op.getMeanResultItems(), op.maxResultItems));
+            for (Map.Entry<Source, Histogram> latency : op.latency.entrySet()) {
+                Histogram h = latency.getValue();
+                out.append(String.format(Locale.US,
+                        "  %-15s n=%-5d mean=%.0fms p50=%dms p90=%dms p99=%dms max=%dms%n",
+                        latency.getKey(), h.count, h.getMeanMs(), h.percentileMs(50),
+                        h.percentileMs(90), h.percentileMs(99), h.maxMs));
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Write {@link #report()} to {@code file}, replacing it
+     */
+    public File dumpTo(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(report().getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+}
@@ -0,0 +1,224 @@
+package com.goldtea.sales.data.firestore;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.goldtea.sales.data.model.Pricing;
+import com.goldtea.sales.data.model.Village;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One-shot migration that rewrites pricing and village documents stored under
+ * non-standard IDs to their standardized IDs ("Mix_100gm", trimmed village name).
+ *
+ * Each collection is walked in pages ordered by document ID. A legacy document is
+ * copied to its standardized ID unless that document already exists (the standardized
+ * one wins, matching the old load-time dedup), then deleted, in the same batch. The
+ * last committed page is remembered so an interrupted run resumes where it stopped.
+ * Completion is recorded locally and in meta/migrations so other devices skip the work.
+ */
+class LegacyIdMigration {
+    private static final String TAG = "LegacyIdMigration";
+    static final int VERSION = 1;
+
+    private static final String PREFS_NAME = "GoldTeaMigrations";
+    private static final String KEY_VERSION = "legacy_ids_version";
+    private static final String KEY_CURSOR_PREFIX = "legacy_ids_cursor_";
+    private static final String META_COLLECTION = "meta";
+    private static final String MIGRATIONS_DOC = "migrations";
+    private static final int PAGE_LIMIT = 100;
+
+    private final FirebaseFirestore db;
+    private final WriteCoalescer writeCoalescer;
+    private final SharedPreferences prefs;
+    private final String pricingCollection;
+    private final String villagesCollection;
+    private final ReadBudget readBudget;
+    private boolean running = false;
+
+    LegacyIdMigration(Context context, FirebaseFirestore db, WriteCoalescer writeCoalescer,
+                      String pricingCollection, String villagesCollection, ReadBudget readBudget) {
+        this.db = db;
+        this.readBudget = readBudget;
+        this.writeCoalescer = writeCoalescer;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.pricingCollection = pricingCollection;
+        this.villagesCollection = villagesCollection;
+    }
+
+    /**
+     * True once every legacy ID has been rewritten; cleanup queries and dedup can be skipped
+     */
+    boolean isComplete() {
+        return prefs.getInt(KEY_VERSION, 0) >= VERSION;
+    }
+
+    void run() {
+        if (isComplete() || running) return;
+        running = true;
+
+        // Another device may already have done the work
+        db.collection(META_COLLECTION).document(MIGRATIONS_DOC).get()
+                .addOnSuccessListener(doc -> {
+                    readBudget.record(ReadBudget.BACKGROUND, "legacyIdMigration", ReadBudget.billedReads(doc));
+                    Long remoteVersion = doc.exists() ? doc.getLong(KEY_VERSION) : null;
+                    if (remoteVersion != null && remoteVersion >= VERSION && !doc.getMetadata().isFromCache()) {
+                        Log.d(TAG, "Legacy ID migration already recorded remotely");
+                        markComplete(false);
+                        return;
+                    }
+                    migrateCollection(pricingCollection, () -> migrateCollection(villagesCollection, () -> markComplete(true)));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Could not read migration marker", e);
+                    running = false;
+                });
+    }
+
+    private void migrateCollection(String collection, Runnable onDone) {
+        String cursor = prefs.getString(KEY_CURSOR_PREFIX + collection, null);
+        migratePage(collection, cursor, onDone);
+    }
+
+    private void migratePage(String collection, String afterId, Runnable onDone) {
+        Query query = db.collection(collection).orderBy(FieldPath.documentId()).limit(PAGE_LIMIT);
+        if (afterId != null) {
+            query = query.startAfter(afterId);
+        }
+
+        query.get().addOnSuccessListener(querySnapshot -> {
+            readBudget.record(ReadBudget.BACKGROUND, "legacyIdMigration", ReadBudget.billedReads(querySnapshot));
+            // A cached page may be incomplete; try again when the server is reachable
+            if (querySnapshot.getMetadata().isFromCache()) {
+                Log.d(TAG, "Offline, postponing legacy ID migration");
+                running = false;
+                return;
+            }
+
+            List<DocumentSnapshot> docs = querySnapshot.getDocuments();
+            Map<DocumentSnapshot, DocumentReference> legacy = new LinkedHashMap<>();
+            for (DocumentSnapshot doc : docs) {
+                String standardId = standardId(collection, doc);
+                if (standardId != null && !standardId.equals(doc.getId())) {
+                    legacy.put(doc, db.collection(collection).document(standardId));
+                }
+            }
+
+            String lastId = docs.isEmpty() ? afterId : docs.get(docs.size() - 1).getId();
+            Runnable next = () -> {
+                prefs.edit().putString(KEY_CURSOR_PREFIX + collection, lastId).apply();
+                if (docs.size() == PAGE_LIMIT) {
+                    migratePage(collection, lastId, onDone);
+                } else {
+                    onDone.run();
+                }
+            };
+
+            if (legacy.isEmpty()) {
+                next.run();
+            } else {
+                rewritePage(collection, legacy, next);
+            }
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, "Legacy ID migration failed on " + collection, e);
+            running = false;
+        });
+    }
+
+    /**
+     * Copy legacy documents whose standardized twin is missing, delete them all, in one batch
+     */
+    private void rewritePage(String collection, Map<DocumentSnapshot, DocumentReference> legacy, Runnable next) {
+        List<DocumentSnapshot> legacyDocs = new ArrayList<>(legacy.keySet());
+        List<Task<DocumentSnapshot>> lookups = new ArrayList<>();
+        for (DocumentSnapshot doc : legacyDocs) {
+            lookups.add(legacy.get(doc).get());
+        }
+
+        Tasks.whenAll(lookups).addOnSuccessListener(aVoid -> {
+            for (Task<DocumentSnapshot> lookup : lookups) {
+                readBudget.record(ReadBudget.BACKGROUND, "legacyIdMigration", ReadBudget.billedReads(lookup.getResult()));
+            }
+            WriteCoalescer.Group group = writeCoalescer.group();
+            Set<String> copied = new HashSet<>();
+            for (int i = 0; i < legacyDocs.size(); i++) {
+                DocumentSnapshot doc = legacyDocs.get(i);
+                DocumentReference standardRef = legacy.get(doc);
+                boolean exists = lookups.get(i).getResult().exists();
+                // Several legacy docs can map to one ID; copy only the first
+                if (!exists && copied.add(standardRef.getId())) {
+                    group.set(standardRef, standardized(collection, doc));
+                }
+                Log.i(TAG, "Migrating legacy " + collection + " doc " + doc.getId() + " -> " + standardRef.getId());
+                group.delete(doc.getReference());
+            }
+            group.commit(new WriteCoalescer.OnCommitListener() {
+                @Override
+                public void onCommitted() {
+                    next.run();
+                }
+
+                @Override
+                public void onFailed(Exception e) {
+                    Log.e(TAG, "Legacy ID batch failed on " + collection, e);
+                    running = false;
+                }
+            });
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, "Could not look up standardized documents in " + collection, e);
+            running = false;
+        });
+    }
+
+    private void markComplete(boolean recordRemotely) {
+        if (recordRemotely) {
+            writeCoalescer.group()
+                    .set(db.collection(META_COLLECTION).document(MIGRATIONS_DOC),
+                            Collections.singletonMap(KEY_VERSION, VERSION),
+                            SetOptions.merge())
+                    .commit(null);
+        }
+        prefs.edit()
+                .putInt(KEY_VERSION, VERSION)
+                .remove(KEY_CURSOR_PREFIX + pricingCollection)
+                .remove(KEY_CURSOR_PREFIX + villagesCollection)
+                .apply();
+        running = false;
+        Log.i(TAG, "Legacy ID migration v" + VERSION + " complete");
+    }
+
+    private String standardId(String collection, DocumentSnapshot doc) {
+        if (collection.equals(pricingCollection)) {
+            Pricing pricing = DocumentCodecs.decodePricing(doc);
+            return pricing != null && pricing.getPackage() != null ? pricing.getPricingKey() : null;
+        }
+        Village village = DocumentCodecs.decodeVillage(doc);
+        String name = village != null && village.getName() != null ? village.getName().trim() : "";
+        return name.isEmpty() ? null : name;
+    }
+
+    private Object standardized(String collection, DocumentSnapshot doc) {
+        if (collection.equals(pricingCollection)) {
+            return DocumentCodecs.decodePricing(doc);
+        }
+        Village village = DocumentCodecs.decodeVillage(doc);
+        village.setName(village.getName().trim());
+        return village;
+    }
+}
@@ -0,0 +1,241 @@
+package com.goldtea.sales.data.firestore;
+
+import android.util.Log;
+
+import com.goldtea.sales.data.local.LocalSalesStore;
+import com.goldtea.sales.data.model.Sale;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Live, listener-backed view of every sale dated on or after the window start
+ * (by default the first day of the current month), newest first.
+ *
+ * A single long-lived snapshot listener applies ADDED / MODIFIED / REMOVED changes
+ * in place, so Dashboard, View Sales and Reports can read the window without
+ * issuing their own queries. Local writes show up immediately through Firestore's
+ * latency compensation. Snapshots from the offline cache may be missing sales, so the
+ * view only answers reads once the server has confirmed it.
+ */
+class LiveSalesView {
+    private static final String TAG = "LiveSalesView";
+
+    interface OnChangeListener {
+        /**
+         * @param changedDates dates of the sales added, removed or edited, old and new
+         *                     (null for a sale without a date); empty when only readiness changed
+         */
+        void onLiveSalesChanged(List<Date> changedDates);
+    }
+
+    private final FirebaseFirestore db;
+    private final String collection;
+    private final LocalSalesStore localSalesStore;
+    private final OnChangeListener changeListener;
+    private final ReadBudget readBudget;
+    private final SyncStateTracker syncState;
+
+    private ListenerRegistration registration;
+    private Date windowStart;
+    private boolean ready = false;
+
+    // Query-ordered state, maintained with the DocumentChange indices (tombstones included)
+    private final List<DocumentSnapshot> docs = new ArrayList<>();
+    private final List<Sale> sales = new ArrayList<>();
+
+    // Published read-only view without tombstones
+    private List<Sale> visibleSales = Collections.emptyList();
+    private List<DocumentSnapshot> visibleDocs = Collections.emptyList();
+
+    LiveSalesView(FirebaseFirestore db, String collection, LocalSalesStore localSalesStore,
+                  OnChangeListener changeListener, ReadBudget readBudget, SyncStateTracker syncState) {
+        this.db = db;
+        this.readBudget = readBudget;
+        this.syncState = syncState;
+        this.collection = collection;
+        this.localSalesStore = localSalesStore;
+        this.changeListener = changeListener;
+    }
+
+    void start(Date windowStart) {
+        if (registration != null && windowStart.equals(this.windowStart)) return;
+        stop();
+        this.windowStart = windowStart;
+
+        registration = db.collection(collection)
+                .whereGreaterThanOrEqualTo("date", windowStart)
+                .orderBy("date", Query.Direction.DESCENDING)
+                // Metadata changes too, to hear when a cached snapshot is confirmed by the server
+                .addSnapshotListener(MetadataChanges.INCLUDE, (querySnapshot, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Live sales listener failed", e);
+                        return;
+                    }
+                    if (querySnapshot == null) return;
+                    readBudget.record(ReadBudget.BACKGROUND, "liveSales", ReadBudget.billedChanges(querySnapshot));
+                    List<DocumentChange> changes = querySnapshot.getDocumentChanges();
+                    List<Date> changedDates = new ArrayList<>();
+                    if (!changes.isEmpty()) {
+                        applyChanges(changes, changedDates);
+                    }
+                    boolean wasReady = ready;
+                    if (!querySnapshot.getMetadata().isFromCache()) {
+                        ready = true;
+                    }
+                    // Changes also reach the mirror, so they are announced even before the server confirms
+                    if (!changes.isEmpty() || ready != wasReady) {
+                        changeListener.onLiveSalesChanged(changedDates);
+                    }
+                });
+        Log.d(TAG, "Listening to sales since " + windowStart);
+    }
+
+    void stop() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        ready = false;
+        docs.clear();
+        sales.clear();
+        visibleSales = Collections.emptyList();
+        visibleDocs = Collections.emptyList();
+    }
+
+    /**
+     * True when the server has confirmed the listener's data and the range lies inside the window
+     */
+    boolean covers(Date start, Date end) {
+        return ready && windowStart != null && start != null && end != null && !start.before(windowStart);
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Read-only view of the sales dated within [start, end], newest first
+     */
+    List<Sale> slice(Date start, Date end) {
+        List<Sale> view = visibleSales;
+        int from = firstAtOrBefore(view, end.getTime());
+        int to = firstAtOrBefore(view, start.getTime() - 1);
+        return view.subList(from, Math.max(from, to));
+    }
+
+    int size() {
+        return visibleSales.size();
+    }
+
+    List<Sale> head(int limit) {
+        List<Sale> view = visibleSales;
+        return view.subList(0, Math.min(limit, view.size()));
+    }
+
+    /**
+     * Snapshot of the sale at {@code index}, usable as a startAfter() cursor
+     */
+    DocumentSnapshot cursorAt(int index) {
+        List<DocumentSnapshot> view = visibleDocs;
+        return index >= 0 && index < view.size() ? view.get(index) : null;
+    }
+
+    private void applyChanges(List<DocumentChange> changes, List<Date> changedDates) {
+        List<Sale> changed = new ArrayList<>();
+        List<String> deletedIds = new ArrayList<>();
+
+        for (DocumentChange change : changes) {
+            DocumentSnapshot doc = change.getDocument();
+            syncState.observe(doc);
+            switch (change.getType()) {
+                case ADDED: {
+                    Sale sale = DocumentCodecs.decodeSale(doc);
+                    docs.add(change.getNewIndex(), doc);
+                    sales.add(change.getNewIndex(), sale);
+                    changedDates.add(dateOf(sale));
+                    collectForMirror(sale, doc, changed, deletedIds);
+                    break;
+                }
+                case MODIFIED: {
+                    Sale sale = DocumentCodecs.decodeSale(doc);
+                    changedDates.add(dateOf(sales.get(change.getOldIndex())));
+                    changedDates.add(dateOf(sale));
+                    if (change.getOldIndex() == change.getNewIndex()) {
+                        docs.set(change.getNewIndex(), doc);
+                        sales.set(change.getNewIndex(), sale);
+                    } else {
+                        docs.remove(change.getOldIndex());
+                        sales.remove(change.getOldIndex());
+                        docs.add(change.getNewIndex(), doc);
+                        sales.add(change.getNewIndex(), sale);
+                    }
+                    collectForMirror(sale, doc, changed, deletedIds);
+                    break;
+                }
+                case REMOVED:
+                    // Left the window (e.g. date edited); not a delete
+                    changedDates.add(dateOf(sales.get(change.getOldIndex())));
+                    docs.remove(change.getOldIndex());
+                    sales.remove(change.getOldIndex());
+                    break;
+            }
+        }
+        localSalesStore.applyDelta(changed, deletedIds);
+        publish();
+    }
+
+    private static Date dateOf(Sale sale) {
+        return sale != null ? sale.getDate() : null;
+    }
+
+    private void collectForMirror(Sale sale, DocumentSnapshot doc, List<Sale> changed, List<String> deletedIds) {
+        if (sale == null) return;
+        if (sale.isDeleted()) {
+            deletedIds.add(doc.getId());
+        } else {
+            changed.add(sale);
+        }
+    }
+
+    private void publish() {
+        List<Sale> nextSales = new ArrayList<>(sales.size());
+        List<DocumentSnapshot> nextDocs = new ArrayList<>(docs.size());
+        for (int i = 0; i < sales.size(); i++) {
+            Sale sale = sales.get(i);
+            if (sale != null && !sale.isDeleted()) {
+                nextSales.add(sale);
+                nextDocs.add(docs.get(i));
+            }
+        }
+        visibleSales = Collections.unmodifiableList(nextSales);
+        visibleDocs = Collections.unmodifiableList(nextDocs);
+    }
+
+    /**
+     * Index of the first sale (newest first) dated at or before {@code millis}.
+     * Sales without a date sort last in the query, so they count as "before".
+     */
+    private static int firstAtOrBefore(List<Sale> sorted, long millis) {
+        int lo = 0;
+        int hi = sorted.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            Date date = sorted.get(mid).getDate();
+            if (date != null && date.getTime() > millis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
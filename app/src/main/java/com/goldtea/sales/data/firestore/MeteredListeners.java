@@ -0,0 +1,201 @@
+package com.goldtea.sales.data.firestore;
+
+import com.goldtea.sales.data.model.Customer;
+import com.goldtea.sales.data.model.DailySummary;
+import com.goldtea.sales.data.model.Note;
+import com.goldtea.sales.data.model.Pricing;
+import com.goldtea.sales.data.model.Sale;
+import com.goldtea.sales.data.model.SalesTotals;
+import com.goldtea.sales.data.model.Village;
+import com.goldtea.sales.data.repository.PageCursor;
+
+import java.util.List;
+
+/**
+ * Listener wrappers that end a {@link FirestoreMetrics.Call} on the first answer or error
+ */
+final class MeteredListeners {
+
+    private MeteredListeners() {
+    }
+
+    static FirestoreManager.OnSalesLoadedListener sales(FirestoreMetrics.Call call,
+                                                        FirestoreManager.OnSalesLoadedListener listener) {
+        if (listener instanceof FirestoreManager.OnSalesPaginatedListener) {
+            FirestoreManager.OnSalesPaginatedListener paginated = (FirestoreManager.OnSalesPaginatedListener) listener;
+            return new FirestoreManager.OnSalesPaginatedListener() {
+                @Override
+                public void onSalesLoaded(List<Sale> sales, PageCursor next) {
+                    call.done(sales.size());
+                    paginated.onSalesLoaded(sales, next);
+                }
+
+                @Override
+                public void onSalesLoaded(List<Sale> sales) {
+                    call.done(sales.size());
+                    paginated.onSalesLoaded(sales);
+                }
+
+                @Override
+                public void onError(String error) {
+                    call.failed();
+                    paginated.onError(error);
+                }
+            };
+        }
+        return new FirestoreManager.OnSalesLoadedListener() {
+            @Override
+            public void onSalesLoaded(List<Sale> sales) {
+                call.done(sales.size());
+                listener.onSalesLoaded(sales);
+            }
+
+            @Override
+            public void onError(String error) {
+                call.failed();
+                listener.onError(error);
+            }
+        };
+    }
+
+    static FirestoreManager.OnNotesLoadedListener notes(FirestoreMetrics.Call call,
+                                                        FirestoreManager.OnNotesLoadedListener listener) {
+        if (listener instanceof FirestoreManager.OnNotesPaginatedListener) {
+            FirestoreManager.OnNotesPaginatedListener paginated = (FirestoreManager.OnNotesPaginatedListener) listener;
+            return new FirestoreManager.OnNotesPaginatedListener() {
+                @Override
+                public void onNotesLoaded(List<Note> notes, PageCursor next) {
+                    call.done(notes.size());
+                    paginated.onNotesLoaded(notes, next);
+                }
+
+                @Override
+                public void onNotesLoaded(List<Note> notes) {
+                    call.done(notes.size());
+                    paginated.onNotesLoaded(notes);
+                }
+
+                @Override
+                public void onError(String error) {
+                    call.failed();
+                    paginated.onError(error);
+                }
+            };
+        }
+        return new FirestoreManager.OnNotesLoadedListener() {
+            @Override
+            public void onNotesLoaded(List<Note> notes) {
+                call.done(notes.size());
+                listener.onNotesLoaded(notes);
+            }
+
+            @Override
+            public void onError(String error) {
+                call.failed();
+                listener.onError(error);
+            }
+        };
+    }
+
+    static FirestoreManager.OnNoteLoadedListener note(FirestoreMetrics.Call call,
+                                                      FirestoreManager.OnNoteLoadedListener listener) {
+        return new FirestoreManager.OnNoteLoadedListener() {
+            @Override
+            public void onNoteLoaded(Note note) {
+                call.done(1);
+                listener.onNoteLoaded(note);
+            }
+
+            @Override
+            public void onError(String error) {
+                call.failed();
+                listener.onError(error);
+            }
+        };
+    }
+
+    static FirestoreManager.OnVillagesLoadedListener villages(FirestoreMetrics.Call call,
+                                                              FirestoreManager.OnVillagesLoadedListener listener) {
+        return new FirestoreManager.OnVillagesLoadedListener() {
+            @Override
+            public void onVillagesLoaded(List<Village> villages) {
+                call.done(villages.size());
+                listener.onVillagesLoaded(villages);
+            }
+
+            @Override
+            public void onError(String error) {
+                call.failed();
+                listener.onError(error);
+            }
+        };
+    }
+
+    static FirestoreManager.OnPricingLoadedListener pricing(FirestoreMetrics.Call call,
+                                                            FirestoreManager.OnPricingLoadedListener listener) {
+        return new FirestoreManager.OnPricingLoadedListener() {
+            @Override
+            public void onPricingLoaded(List<Pricing> pricingList) {
+                call.done(pricingList.size());
+                listener.onPricingLoaded(pricingList);
+            }
+
+            @Override
+            public void onError(String error) {
+                call.failed();
+                listener.onError(error);
+            }
+        };
+    }
+
+    static FirestoreManager.OnCustomersLoadedListener customers(FirestoreMetrics.Call call,
+                                                                FirestoreManager.OnCustomersLoadedListener listener) {
+        return new FirestoreManager.OnCustomersLoadedListener() {
+            @Override
+            public void onCustomersLoaded(List<Customer> customers) {
+                call.done(customers.size());
+                listener.onCustomersLoaded(customers);
+            }
+
+            @Override
+            public void onError(String error) {
+                call.failed();
+                listener.onError(error);
+            }
+        };
+    }
+
+    static FirestoreManager.OnDailySummariesLoadedListener dailySummaries(FirestoreMetrics.Call call,
+                                                                          FirestoreManager.OnDailySummariesLoadedListener listener) {
+        return new FirestoreManager.OnDailySummariesLoadedListener() {
+            @Override
+            public void onDailySummariesLoaded(List<DailySummary> summaries) {
+                call.done(summaries.size());
+                listener.onDailySummariesLoaded(summaries);
+            }
+
+            @Override
+            public void onError(String error) {
+                call.failed();
+                listener.onError(error);
+            }
+        };
+    }
+
+    static FirestoreManager.OnSalesTotalsLoadedListener totals(FirestoreMetrics.Call call,
+                                                               FirestoreManager.OnSalesTotalsLoadedListener listener) {
+        return new FirestoreManager.OnSalesTotalsLoadedListener() {
+            @Override
+            public void onSalesTotalsLoaded(SalesTotals totals) {
+                call.done(1);
+                listener.onSalesTotalsLoaded(totals);
+            }
+
+            @Override
+            public void onError(String error) {
+                call.failed();
+                listener.onError(error);
+            }
+        };
+    }
+}
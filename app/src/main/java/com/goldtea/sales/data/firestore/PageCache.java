@@ -0,0 +1,149 @@
+package com.goldtea.sales.data.firestore;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Pages of a newest-first paginated query, kept with the cursor each page ended on.
+ *
+ * Page N+1 was loaded with startAfter(cursor of page N), so a caller holding that cursor
+ * can be answered from memory and keeps scrolling into pages that are not cached yet.
+ * A null cursor marks the last page. Local writes are patched into the page whose date
+ * range they fall in; cursors are never moved, so later pages stay consistent.
+ */
+final class PageCache<T> {
+
+    /**
+     * One cached page and where the next page starts
+     */
+    static final class Page<T> {
+        final CacheSnapshot<T> snapshot;
+        final DocumentSnapshot cursor;   // null when this is the last page
+        final Date boundary;             // Sort key of the cursor document
+        final int limit;                 // Page size it was loaded with
+
+        private Page(CacheSnapshot<T> snapshot, DocumentSnapshot cursor, Date boundary, int limit) {
+            this.snapshot = snapshot;
+            this.cursor = cursor;
+            this.boundary = boundary;
+            this.limit = limit;
+        }
+
+        private Page<T> withItems(List<T> items) {
+            return new Page<>(snapshot.withItems(items), cursor, boundary, limit);
+        }
+    }
+
+    private final Function<T, String> idOf;
+    private final Function<T, Date> sortKeyOf;
+    private final List<Page<T>> pages = new ArrayList<>();
+
+    PageCache(Function<T, String> idOf, Function<T, Date> sortKeyOf) {
+        this.idOf = idOf;
+        this.sortKeyOf = sortKeyOf;
+    }
+
+    /**
+     * The cached page at {@code index}, or null. The first page must have been loaded with
+     * the same limit (callers size their first screen with it); later pages only continue
+     * the cursor chain, so any size will do.
+     */
+    synchronized Page<T> get(int index, int limit) {
+        if (index < 0 || index >= pages.size()) return null;
+        Page<T> page = pages.get(index);
+        return index > 0 || page.limit == limit ? page : null;
+    }
+
+    /**
+     * Index of the page that follows {@code cursor}, or -1 when the cursor is not one of ours
+     */
+    synchronized int indexAfter(DocumentSnapshot cursor) {
+        for (int i = 0; i < pages.size(); i++) {
+            if (sameDocument(pages.get(i).cursor, cursor)) return i + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Store page {@code index}. Pages after it are dropped when its cursor moved, since they
+     * were loaded from the old one. Pages can only be added at the end of the cached run.
+     */
+    synchronized void put(int index, int limit, List<T> items, DocumentSnapshot cursor) {
+        if (index > pages.size()) return;
+
+        Date boundary = cursor != null && !items.isEmpty() ? sortKeyOf.apply(items.get(items.size() - 1)) : null;
+        Page<T> page = new Page<>(CacheSnapshot.of(items), cursor, boundary, limit);
+        if (index == pages.size()) {
+            pages.add(page);
+            return;
+        }
+        boolean cursorMoved = !sameDocument(pages.get(index).cursor, cursor);
+        pages.set(index, page);
+        if (cursorMoved) {
+            truncate(index + 1);
+        }
+    }
+
+    /**
+     * Insert or replace a written item in the page its sort key falls in. Items older than
+     * every cached page are left for the query that loads their page.
+     */
+    synchronized void apply(T item) {
+        removeFromPages(idOf.apply(item));
+        Date key = sortKeyOf.apply(item);
+        if (key == null) return;
+
+        for (int i = 0; i < pages.size(); i++) {
+            Page<T> page = pages.get(i);
+            if (page.cursor == null || page.boundary == null || !key.before(page.boundary)) {
+                List<T> items = new ArrayList<>(page.snapshot.items);
+                int position = 0;
+                while (position < items.size() && sortKeyOf.apply(items.get(position)) != null
+                        && !sortKeyOf.apply(items.get(position)).before(key)) {
+                    position++;
+                }
+                items.add(position, item);
+                pages.set(i, page.withItems(items));
+                return;
+            }
+        }
+    }
+
+    synchronized void remove(String id) {
+        removeFromPages(id);
+    }
+
+    synchronized void clear() {
+        pages.clear();
+    }
+
+    private void removeFromPages(String id) {
+        if (id == null) return;
+        for (int i = 0; i < pages.size(); i++) {
+            Page<T> page = pages.get(i);
+            List<T> items = new ArrayList<>(page.snapshot.items);
+            for (int j = 0; j < items.size(); j++) {
+                if (id.equals(idOf.apply(items.get(j)))) {
+                    items.remove(j);
+                    pages.set(i, page.withItems(items));
+                    return;
+                }
+            }
+        }
+    }
+
+    private void truncate(int size) {
+        while (pages.size() > size) {
+            pages.remove(pages.size() - 1);
+        }
+    }
+
+    private static boolean sameDocument(DocumentSnapshot a, DocumentSnapshot b) {
+        if (a == b) return true;
+        return a != null && b != null && a.getReference().getPath().equals(b.getReference().getPath());
+    }
+}
@@ -0,0 +1,198 @@
+package com.goldtea.sales.data.firestore;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts billed Firestore document reads per day, attributed to the screen and
+ * operation that caused them, and enforces a daily budget.
+ *
+ * Reads are billed as Firestore bills them: one per document returned by the server
+ * (one for an empty result), none for answers from the offline cache, one per 1000
+ * index entries for aggregations. Totals are kept in SharedPreferences and start over
+ * each day. Past the budget the listener is told once; in CACHE_ONLY mode user-facing
+ * queries are then answered from the offline cache until the next day.
+ */
+public class ReadBudget {
+    private static final String TAG = "ReadBudget";
+    public static final String BACKGROUND = "Background";
+    // Firestore's free tier includes 50,000 document reads per day
+    public static final long DEFAULT_DAILY_BUDGET = 50000;
+
+    private static final String PREFS_NAME = "GoldTeaReadBudget";
+    private static final String KEY_DAY = "day";
+    private static final String KEY_TOTAL = "total";
+    private static final String KEY_WARNED = "warned";
+    private static final String KEY_BUDGET = "daily_budget";
+    private static final String KEY_MODE = "mode";
+    private static final String READS_PREFIX = "reads:";
+
+    public enum Mode {
+        WARN,        // Keep reading from the server, only notify
+        CACHE_ONLY   // Serve user-facing queries from the offline cache
+    }
+
+    public interface OnBudgetExceededListener {
+        void onBudgetExceeded(long readsToday, long dailyBudget);
+    }
+
+    private final SharedPreferences prefs;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile String currentScreen = BACKGROUND;
+    private OnBudgetExceededListener budgetListener;
+
+    ReadBudget(Context context) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Screen that reads are attributed to from now on; set when a screen is shown
+     */
+    public void setCurrentScreen(String screen) {
+        currentScreen = screen != null ? screen : BACKGROUND;
+    }
+
+    public String getCurrentScreen() {
+        return currentScreen;
+    }
+
+    public void setOnBudgetExceededListener(OnBudgetExceededListener listener) {
+        budgetListener = listener;
+    }
+
+    public long getDailyBudget() {
+        return prefs.getLong(KEY_BUDGET, DEFAULT_DAILY_BUDGET);
+    }
+
+    public void setDailyBudget(long budget) {
+        prefs.edit().putLong(KEY_BUDGET, Math.max(1, budget)).putBoolean(KEY_WARNED, false).apply();
+    }
+
+    public Mode getMode() {
+        return Mode.valueOf(prefs.getString(KEY_MODE, Mode.WARN.name()));
+    }
+
+    public void setMode(Mode mode) {
+        prefs.edit().putString(KEY_MODE, mode.name()).apply();
+    }
+
+    public synchronized long getReadsToday() {
+        return isToday() ? prefs.getLong(KEY_TOTAL, 0) : 0;
+    }
+
+    /**
+     * Today's reads keyed by "screen / operation"
+     */
+    public synchronized Map<String, Long> getReadsTodayByOperation() {
+        Map<String, Long> reads = new TreeMap<>();
+        if (!isToday()) return reads;
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (entry.getKey().startsWith(READS_PREFIX) && entry.getValue() instanceof Long) {
+                reads.put(entry.getKey().substring(READS_PREFIX.length()), (Long) entry.getValue());
+            }
+        }
+        return reads;
+    }
+
+    public boolean isOverBudget() {
+        return getReadsToday() >= getDailyBudget();
+    }
+
+    /**
+     * True when queries should be answered from the offline cache only
+     */
+    public boolean isCacheOnly() {
+        return getMode() == Mode.CACHE_ONLY && isOverBudget();
+    }
+
+    // Billing rules
+
+    static long billedReads(QuerySnapshot querySnapshot) {
+        if (querySnapshot.getMetadata().isFromCache()) return 0;
+        return Math.max(1, querySnapshot.size());
+    }
+
+    static long billedReads(DocumentSnapshot doc) {
+        return doc.getMetadata().isFromCache() ? 0 : 1;
+    }
+
+    /**
+     * A snapshot listener update: the first snapshot reads every document, later ones only
+     * the documents that changed. Local writes not yet sent to the server are not billed.
+     */
+    static long billedChanges(QuerySnapshot querySnapshot) {
+        if (querySnapshot.getMetadata().isFromCache()) return 0;
+        long billed = 0;
+        for (DocumentChange change : querySnapshot.getDocumentChanges()) {
+            if (!change.getDocument().getMetadata().hasPendingWrites()) billed++;
+        }
+        return billed;
+    }
+
+    static long billedAggregate(long indexEntries) {
+        return Math.max(1, (indexEntries + 999) / 1000);
+    }
+
+    /**
+     * Add {@code reads} for an operation; thread safe
+     */
+    void record(String screen, String operation, long reads) {
+        if (reads <= 0) return;
+        long total;
+        long budget = getDailyBudget();
+        boolean notify = false;
+        synchronized (this) {
+            SharedPreferences.Editor editor = prefs.edit();
+            boolean newDay = !isToday();
+            if (newDay) {
+                clearDay(editor);
+            }
+            String key = READS_PREFIX + screen + " / " + operation;
+            total = (newDay ? 0 : prefs.getLong(KEY_TOTAL, 0)) + reads;
+            editor.putLong(key, (newDay ? 0 : prefs.getLong(key, 0)) + reads).putLong(KEY_TOTAL, total);
+            boolean warned = !newDay && prefs.getBoolean(KEY_WARNED, false);
+            if (total >= budget && !warned) {
+                editor.putBoolean(KEY_WARNED, true);
+                notify = true;
+            }
+            editor.apply();
+        }
+        if (notify) {
+            Log.w(TAG, "Daily read budget exceeded: " + total + " of " + budget);
+            long reached = total;
+            mainHandler.post(() -> {
+                if (budgetListener != null) budgetListener.onBudgetExceeded(reached, budget);
+            });
+        }
+    }
+
+    private boolean isToday() {
+        return today().equals(prefs.getString(KEY_DAY, null));
+    }
+
+    private void clearDay(SharedPreferences.Editor editor) {
+        for (String key : prefs.getAll().keySet()) {
+            if (key.startsWith(READS_PREFIX)) {
+                editor.remove(key);
+            }
+        }
+        editor.putString(KEY_DAY, today()).putLong(KEY_TOTAL, 0).putBoolean(KEY_WARNED, false);
+    }
+
+    private static String today() {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+    }
+}
@@ -0,0 +1,172 @@
+package com.goldtea.sales.data.firestore;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.goldtea.sales.data.local.LocalSalesStore;
+import com.goldtea.sales.data.model.Sale;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Watermark-based incremental sync of the sales collection into LocalSalesStore.
+ *
+ * The first run copies the whole collection (ordered by document ID, so documents
+ * without updated_at are included). After that only documents with
+ * updated_at > watermark are read. The watermark is the highest updated_at read back
+ * from the server, which the write path stamps with the server's clock. Deleted sales
+ * are soft-delete tombstones (deleted = true), which lets removals propagate through
+ * the same query.
+ * Pages are decoded on the given executor; sync state lives on the main thread.
+ */
+class SalesDeltaSync {
+    private static final String TAG = "SalesDeltaSync";
+    private static final String PREFS_NAME = "GoldTeaSalesSync";
+    private static final String KEY_WATERMARK = "sales_watermark";
+    private static final int PAGE_LIMIT = 500;
+    // updated_at is stamped by the server, but older sales carry device clocks; re-read a
+    // small overlap to absorb their skew
+    private static final long CLOCK_SKEW_MS = 5 * 60 * 1000;
+
+    interface OnSyncCompleteListener {
+        void onSyncComplete(boolean success);
+    }
+
+    private final FirebaseFirestore db;
+    private final String collection;
+    private final LocalSalesStore localSalesStore;
+    private final SharedPreferences prefs;
+    private final Executor decodeExecutor;
+    private final ReadBudget readBudget;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private boolean running = false;
+    private final List<OnSyncCompleteListener> waiting = new ArrayList<>();
+
+    SalesDeltaSync(Context context, FirebaseFirestore db, String collection, LocalSalesStore localSalesStore,
+                   Executor decodeExecutor, ReadBudget readBudget) {
+        this.db = db;
+        this.readBudget = readBudget;
+        this.decodeExecutor = decodeExecutor;
+        this.collection = collection;
+        this.localSalesStore = localSalesStore;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * True once a full copy has been made, so the mirror can answer range queries
+     */
+    boolean hasCompletedInitialSync() {
+        return getWatermark() > 0;
+    }
+
+    long getWatermark() {
+        return prefs.getLong(KEY_WATERMARK, 0);
+    }
+
+    /**
+     * Pull everything changed since the watermark. Concurrent callers share one run.
+     */
+    void sync(OnSyncCompleteListener listener) {
+        if (listener != null) waiting.add(listener);
+        if (running) return;
+        running = true;
+
+        long watermark = getWatermark();
+        if (watermark == 0) {
+            Log.d(TAG, "No watermark yet, copying full sales collection");
+        }
+        fetchPage(watermark, null, watermark, 0);
+    }
+
+    private void fetchPage(long watermark, DocumentSnapshot cursor, long maxSeen, int totalSoFar) {
+        Query query;
+        if (watermark == 0) {
+            query = db.collection(collection).orderBy(FieldPath.documentId());
+        } else {
+            Date since = new Date(Math.max(1, watermark - CLOCK_SKEW_MS));
+            query = db.collection(collection)
+                    .whereGreaterThan("updated_at", since)
+                    .orderBy("updated_at", Query.Direction.ASCENDING);
+        }
+        query = query.limit(PAGE_LIMIT);
+        if (cursor != null) {
+            query = query.startAfter(cursor);
+        }
+
+        query.get().addOnSuccessListener(decodeExecutor, querySnapshot -> {
+            readBudget.record(ReadBudget.BACKGROUND, "salesDeltaSync", ReadBudget.billedReads(querySnapshot));
+            long newMax = applyPage(querySnapshot, maxSeen);
+            mainHandler.post(() -> onPageApplied(querySnapshot, watermark, newMax, totalSoFar));
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, "Delta sync failed", e);
+            finish(false);
+        });
+    }
+
+    private void onPageApplied(QuerySnapshot querySnapshot, long watermark, long newMax, int totalSoFar) {
+        int total = totalSoFar + querySnapshot.size();
+
+        // Results served from the offline cache may be incomplete: keep them,
+        // but never advance the watermark past what the server confirmed.
+        if (querySnapshot.getMetadata().isFromCache()) {
+            Log.d(TAG, "Delta sync served from offline cache (" + total + " docs), watermark kept");
+            finish(false);
+            return;
+        }
+
+        if (querySnapshot.size() == PAGE_LIMIT) {
+            DocumentSnapshot last = querySnapshot.getDocuments().get(querySnapshot.size() - 1);
+            fetchPage(watermark, last, newMax, total);
+            return;
+        }
+
+        // An empty collection still counts as synced
+        long committed = Math.max(newMax, watermark == 0 ? 1 : watermark);
+        prefs.edit().putLong(KEY_WATERMARK, committed).apply();
+        Log.d(TAG, "Delta sync read " + total + " docs, watermark now " + committed);
+        finish(true);
+    }
+
+    /**
+     * Merge one page into the mirror and return the highest updated_at seen (decode thread)
+     */
+    private long applyPage(QuerySnapshot querySnapshot, long maxSeen) {
+        List<Sale> changed = new ArrayList<>();
+        List<String> deletedIds = new ArrayList<>();
+        long max = maxSeen;
+        for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+            Sale sale = DocumentCodecs.decodeSale(doc);
+            if (sale.isDeleted()) {
+                deletedIds.add(doc.getId());
+            } else {
+                changed.add(sale);
+            }
+            if (sale.getUpdated_at() != null) {
+                max = Math.max(max, sale.getUpdated_at().getTime());
+            }
+        }
+        localSalesStore.applyDelta(changed, deletedIds);
+        return max;
+    }
+
+    private void finish(boolean success) {
+        running = false;
+        List<OnSyncCompleteListener> listeners = new ArrayList<>(waiting);
+        waiting.clear();
+        for (OnSyncCompleteListener listener : listeners) {
+            listener.onSyncComplete(success);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.goldtea.sales.data.firestore;
+
+import com.goldtea.sales.data.model.Sale;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * In-memory cache of sales by date, tracking which date intervals have been loaded.
+ *
+ * Loaded intervals are kept sorted and merged when they overlap or touch, so a YEAR
+ * load also answers any WEEK or MONTH inside it. A request is answered by slicing the
+ * cached sales; only the parts of the range not yet covered need to be fetched.
+ * Intervals go stale after the cache TTL; stale data is kept (for stale-while-revalidate)
+ * until it is reloaded or a day old. Mutations happen on the main thread.
+ *
+ * The sales list is copy-on-write: every change publishes a new unmodifiable list,
+ * so slices are read-only views that need no copy and stay valid after later writes.
+ */
+class SalesRangeCache {
+
+    /**
+     * Inclusive millisecond range [start, end]
+     */
+    static class Range {
+        final long start;
+        final long end;
+
+        Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        Date getStartDate() {
+            return new Date(start);
+        }
+
+        Date getEndDate() {
+            return new Date(end);
+        }
+    }
+
+    private static class Interval {
+        long start;
+        long end;
+        long loadedAt;
+
+        Interval(long start, long end, long loadedAt) {
+            this.start = start;
+            this.end = end;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static final Comparator<Sale> NEWEST_FIRST = (a, b) -> Long.compare(dateOf(b), dateOf(a));
+
+    private static final long MAX_STALE_MS = 24 * 60 * 60 * 1000;
+
+    private final long ttlMs;
+    // Sorted by start, never overlapping; fresh intervals are never adjacent to each other
+    private List<Interval> intervals = new ArrayList<>();
+    // Sorted newest first, replaced (never mutated) on every change
+    private volatile List<Sale> sales = Collections.emptyList();
+
+    SalesRangeCache(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Parts of [start, end] that are not covered by a fresh interval, oldest first
+     */
+    List<Range> gaps(Date startDate, Date endDate, long now) {
+        return gaps(startDate, endDate, now, false);
+    }
+
+    /**
+     * True when the range was loaded at some point, even if part of it is stale
+     */
+    boolean coversIncludingStale(Date startDate, Date endDate, long now) {
+        return gaps(startDate, endDate, now, true).isEmpty();
+    }
+
+    private List<Range> gaps(Date startDate, Date endDate, long now, boolean includeStale) {
+        prune(now);
+        long cursor = startDate.getTime();
+        long end = endDate.getTime();
+        List<Range> gaps = new ArrayList<>();
+        for (Interval interval : intervals) {
+            if (!includeStale && !isFresh(interval, now)) continue;
+            if (interval.end < cursor) continue;
+            if (interval.start > end) break;
+            if (interval.start > cursor) {
+                gaps.add(new Range(cursor, interval.start - 1));
+            }
+            cursor = Math.max(cursor, interval.end + 1);
+            if (cursor > end) break;
+        }
+        if (cursor <= end) {
+            gaps.add(new Range(cursor, end));
+        }
+        return gaps;
+    }
+
+    boolean covers(Date startDate, Date endDate, long now) {
+        return gaps(startDate, endDate, now).isEmpty();
+    }
+
+    /**
+     * Record the complete result for [start, end], replacing what was cached there
+     */
+    void put(Range range, List<Sale> loaded, long now) {
+        List<Sale> inRange = new ArrayList<>(loaded.size());
+        for (Sale sale : loaded) {
+            long date = dateOf(sale);
+            if (date >= range.start && date <= range.end) inRange.add(sale);
+        }
+        // Queries already return newest first, so this is a linear pass
+        Collections.sort(inRange, NEWEST_FIRST);
+
+        // Everything outside the range is either newer or older than all of it: splice, don't re-sort
+        List<Sale> current = sales;
+        int newerEnd = firstAtOrBefore(current, range.end);
+        int olderStart = Math.max(newerEnd, firstAtOrBefore(current, range.start - 1));
+        List<Sale> next = new ArrayList<>(current.size() - (olderStart - newerEnd) + inRange.size());
+        next.addAll(current.subList(0, newerEnd));
+        next.addAll(inRange);
+        next.addAll(current.subList(olderStart, current.size()));
+        sales = Collections.unmodifiableList(next);
+        addInterval(range.start, range.end, now);
+    }
+
+    /**
+     * Read-only view of the cached sales within [start, end], newest first
+     */
+    List<Sale> slice(Date startDate, Date endDate) {
+        List<Sale> view = sales;
+        int from = firstAtOrBefore(view, endDate.getTime());
+        int to = firstAtOrBefore(view, startDate.getTime() - 1);
+        return view.subList(from, Math.max(from, to));
+    }
+
+    /**
+     * Insert or replace a sale written locally, if its date falls inside a loaded interval
+     */
+    void apply(Sale sale) {
+        List<Sale> next = without(sales, sale.getSale_id());
+        long date = dateOf(sale);
+        if (isCovered(date)) {
+            next.add(firstAtOrBefore(next, date), sale);
+        }
+        sales = Collections.unmodifiableList(next);
+    }
+
+    void remove(String saleId) {
+        if (saleId == null) return;
+        sales = Collections.unmodifiableList(without(sales, saleId));
+    }
+
+    void clear() {
+        intervals.clear();
+        sales = Collections.emptyList();
+    }
+
+    private static List<Sale> without(List<Sale> source, String saleId) {
+        List<Sale> copy = new ArrayList<>(source);
+        for (int i = 0; i < copy.size(); i++) {
+            if (saleId != null && saleId.equals(copy.get(i).getSale_id())) {
+                copy.remove(i);
+                break;
+            }
+        }
+        return copy;
+    }
+
+    private void addInterval(long start, long end, long now) {
+        Interval merged = new Interval(start, end, now);
+        List<Interval> next = new ArrayList<>(intervals.size() + 2);
+        for (Interval interval : intervals) {
+            boolean touches = interval.end + 1 >= start && interval.start <= end + 1;
+            if (touches && isFresh(interval, now)) {
+                // Fold fresh neighbours into one, keeping the older load time
+                merged.start = Math.min(merged.start, interval.start);
+                merged.end = Math.max(merged.end, interval.end);
+                merged.loadedAt = Math.min(merged.loadedAt, interval.loadedAt);
+            } else if (interval.end >= start && interval.start <= end) {
+                // Stale interval overlapped by the reload: keep only the parts outside it
+                if (interval.start < start) next.add(new Interval(interval.start, start - 1, interval.loadedAt));
+                if (interval.end > end) next.add(new Interval(end + 1, interval.end, interval.loadedAt));
+            } else {
+                next.add(interval);
+            }
+        }
+        next.add(merged);
+        Collections.sort(next, (a, b) -> Long.compare(a.start, b.start));
+        intervals = next;
+    }
+
+    private boolean isFresh(Interval interval, long now) {
+        return now - interval.loadedAt < ttlMs;
+    }
+
+    /**
+     * Drop intervals too old to serve even as stale data, and any sales no longer covered
+     */
+    private void prune(long now) {
+        boolean removed = false;
+        Iterator<Interval> it = intervals.iterator();
+        while (it.hasNext()) {
+            if (now - it.next().loadedAt >= MAX_STALE_MS) {
+                it.remove();
+                removed = true;
+            }
+        }
+        if (!removed) return;
+        List<Sale> next = new ArrayList<>();
+        for (Sale sale : sales) {
+            if (isCovered(dateOf(sale))) next.add(sale);
+        }
+        sales = Collections.unmodifiableList(next);
+    }
+
+    private boolean isCovered(long date) {
+        for (Interval interval : intervals) {
+            if (date < interval.start) return false;
+            if (date <= interval.end) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Index of the first sale (newest first) dated at or before {@code date}
+     */
+    private static int firstAtOrBefore(List<Sale> sorted, long date) {
+        int lo = 0;
+        int hi = sorted.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (dateOf(sorted.get(mid)) > date) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static long dateOf(Sale sale) {
+        return sale.getDate() != null ? sale.getDate().getTime() : Long.MIN_VALUE;
+    }
+}
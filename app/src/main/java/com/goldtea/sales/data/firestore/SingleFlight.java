@@ -0,0 +1,59 @@
+package com.goldtea.sales.data.firestore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces identical concurrent queries.
+ *
+ * The first caller for a key starts the query; callers with the same key that arrive
+ * while it runs are attached to it, and every attached listener receives the one
+ * result. Keys describe the query shape (collection and filters).
+ */
+final class SingleFlight<L> {
+
+    /**
+     * One running query and the listeners waiting for it
+     */
+    static final class Flight<L> {
+        private final List<L> listeners = new ArrayList<>();
+    }
+
+    private final Map<String, Flight<L>> inFlight = new HashMap<>();
+
+    /**
+     * Attach {@code listener} to the query for {@code key}. Returns the new flight when the
+     * caller has to start the query, or null when it joined one that is already running.
+     */
+    synchronized Flight<L> join(String key, L listener) {
+        Flight<L> running = inFlight.get(key);
+        if (running != null) {
+            running.listeners.add(listener);
+            return null;
+        }
+        Flight<L> flight = new Flight<>();
+        flight.listeners.add(listener);
+        inFlight.put(key, flight);
+        return flight;
+    }
+
+    /**
+     * End a flight and return its listeners; later callers start a new query
+     */
+    synchronized List<L> finish(String key, Flight<L> flight) {
+        if (inFlight.get(key) == flight) {
+            inFlight.remove(key);
+        }
+        return new ArrayList<>(flight.listeners);
+    }
+
+    /**
+     * Make the next caller start a fresh query (after a local write). Running queries
+     * still answer the listeners already attached to them.
+     */
+    synchronized void detachAll() {
+        inFlight.clear();
+    }
+}
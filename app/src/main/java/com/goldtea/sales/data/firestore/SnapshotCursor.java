@@ -0,0 +1,19 @@
+package com.goldtea.sales.data.firestore;
+
+import com.goldtea.sales.data.repository.PageCursor;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+/**
+ * Page cursor handed out by FirestoreManager: the last document of a page, for startAfter()
+ */
+final class SnapshotCursor implements PageCursor {
+    final DocumentSnapshot snapshot;
+
+    private SnapshotCursor(DocumentSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    static PageCursor of(DocumentSnapshot snapshot) {
+        return snapshot != null ? new SnapshotCursor(snapshot) : null;
+    }
+}
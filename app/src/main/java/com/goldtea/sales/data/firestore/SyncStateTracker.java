@@ -0,0 +1,244 @@
+package com.goldtea.sales.data.firestore;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks local writes until the server has acknowledged them.
+ *
+ * Writes are recorded per document path when WriteCoalescer queues them and settled
+ * by the batch commit callbacks, which Firestore only completes once the server has the
+ * write. Pending paths are kept in SharedPreferences: writes left over from an earlier
+ * run are settled by {@link FirebaseFirestore#waitForPendingWrites()}, or earlier when a
+ * server snapshot of the document shows no pending writes. Main thread only.
+ */
+public class SyncStateTracker {
+    private static final String TAG = "SyncStateTracker";
+    private static final String PREFS_NAME = "GoldTeaSyncState";
+
+    public enum Status {
+        PENDING,   // Written locally, not yet acknowledged by the server
+        SYNCED,
+        FAILED     // Rejected by the server; the local change will not be retried
+    }
+
+    public interface OnSyncStateChangedListener {
+        void onSyncStateChanged(SyncStateTracker tracker);
+    }
+
+    /**
+     * Sync state of one document
+     */
+    public static final class Record {
+        private final String path;
+        private final long queuedAt;
+        private Status status = Status.PENDING;
+        // Commits still outstanding in this run; writes restored from an earlier run have none
+        private int outstanding;
+        private String error;
+
+        private Record(String path, long queuedAt) {
+            this.path = path;
+            this.queuedAt = queuedAt;
+        }
+
+        public String getPath() { return path; }
+
+        public long getQueuedAt() { return queuedAt; }
+
+        public Status getStatus() { return status; }
+
+        public String getError() { return error; }
+    }
+
+    private final SharedPreferences prefs;
+    // Pending and failed records, oldest first
+    private final Map<String, Record> records = new LinkedHashMap<>();
+    private final List<OnSyncStateChangedListener> listeners = new ArrayList<>();
+    private final List<Runnable> drainedCallbacks = new ArrayList<>();
+
+    SyncStateTracker(Context context) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (entry.getValue() instanceof Long) {
+                records.put(entry.getKey(), new Record(entry.getKey(), (Long) entry.getValue()));
+            }
+        }
+        if (!records.isEmpty()) {
+            Log.d(TAG, records.size() + " write(s) still pending from an earlier run");
+        }
+    }
+
+    /**
+     * Settle writes restored from an earlier run once Firestore's queue has drained
+     */
+    void awaitRestored(FirebaseFirestore db) {
+        if (records.isEmpty()) return;
+        db.waitForPendingWrites().addOnSuccessListener(aVoid -> {
+            boolean changed = false;
+            for (Record record : new ArrayList<>(records.values())) {
+                if (record.status == Status.PENDING && record.outstanding == 0) {
+                    settle(record);
+                    changed = true;
+                }
+            }
+            if (changed) notifyChanged();
+        });
+    }
+
+    void queued(Collection<String> paths) {
+        long now = System.currentTimeMillis();
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String path : paths) {
+            Record record = records.get(path);
+            if (record == null || record.status == Status.FAILED) {
+                records.remove(path);
+                record = new Record(path, now);
+                records.put(path, record);
+                editor.putLong(path, now);
+            }
+            record.outstanding++;
+        }
+        editor.apply();
+        notifyChanged();
+    }
+
+    void committed(Collection<String> paths) {
+        for (String path : paths) {
+            Record record = records.get(path);
+            if (record == null || record.status != Status.PENDING) continue;
+            // A later write to the same document may still be on its way
+            if (record.outstanding > 0) record.outstanding--;
+            if (record.outstanding == 0) settle(record);
+        }
+        notifyChanged();
+    }
+
+    void failed(Collection<String> paths, Exception e) {
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String path : paths) {
+            Record record = records.get(path);
+            if (record == null) continue;
+            record.status = Status.FAILED;
+            record.outstanding = 0;
+            record.error = e.getMessage();
+            editor.remove(path);
+        }
+        editor.apply();
+        notifyChanged();
+    }
+
+    /**
+     * A document seen in a server snapshot: no pending writes means every local write to it
+     * has been acknowledged
+     */
+    void observe(DocumentSnapshot doc) {
+        if (records.isEmpty() || doc.getMetadata().isFromCache() || doc.getMetadata().hasPendingWrites()) return;
+        Record record = records.get(doc.getReference().getPath());
+        if (record != null && record.status == Status.PENDING) {
+            settle(record);
+            notifyChanged();
+        }
+    }
+
+    private void settle(Record record) {
+        record.status = Status.SYNCED;
+        records.remove(record.path);
+        prefs.edit().remove(record.path).apply();
+    }
+
+    /**
+     * Writes the server has not acknowledged yet
+     */
+    public int getPendingCount() {
+        int count = 0;
+        for (Record record : records.values()) {
+            if (record.status == Status.PENDING) count++;
+        }
+        return count;
+    }
+
+    public int getFailedCount() {
+        return records.size() - getPendingCount();
+    }
+
+    /**
+     * Age of the oldest pending write in milliseconds, 0 when nothing is pending
+     */
+    public long getOldestPendingAgeMs() {
+        for (Record record : records.values()) {
+            if (record.status == Status.PENDING) {
+                return System.currentTimeMillis() - record.queuedAt;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Status of a document, e.g. getStatus("sales/" + saleId); documents without
+     * outstanding or failed writes are SYNCED
+     */
+    public Status getStatus(String path) {
+        Record record = records.get(path);
+        return record != null ? record.status : Status.SYNCED;
+    }
+
+    /**
+     * Pending and failed records, oldest first
+     */
+    public List<Record> getRecords() {
+        return Collections.unmodifiableList(new ArrayList<>(records.values()));
+    }
+
+    /**
+     * Forget failed writes once they have been shown to the user
+     */
+    public void clearFailed() {
+        records.values().removeIf(record -> record.status == Status.FAILED);
+        notifyChanged();
+    }
+
+    public void addOnSyncStateChangedListener(OnSyncStateChangedListener listener) {
+        if (!listeners.contains(listener)) listeners.add(listener);
+    }
+
+    public void removeOnSyncStateChangedListener(OnSyncStateChangedListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Run {@code callback} now if nothing is pending, otherwise once the backlog has drained.
+     * Lets background work wait instead of competing with queued writes.
+     */
+    void whenDrained(Runnable callback) {
+        if (getPendingCount() == 0) {
+            callback.run();
+        } else {
+            drainedCallbacks.add(callback);
+        }
+    }
+
+    private void notifyChanged() {
+        for (OnSyncStateChangedListener listener : new ArrayList<>(listeners)) {
+            listener.onSyncStateChanged(this);
+        }
+        if (!drainedCallbacks.isEmpty() && getPendingCount() == 0) {
+            List<Runnable> callbacks = new ArrayList<>(drainedCallbacks);
+            drainedCallbacks.clear();
+            for (Runnable callback : callbacks) {
+                callback.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.goldtea.sales.data.firestore;
+
+import com.goldtea.sales.data.model.SalesTotals;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Aggregate query results by date range and payment status.
+ *
+ * A sale write only invalidates the totals whose range contains the sale's date, so a
+ * change today keeps last month's totals. Entries expire after the cache TTL.
+ * Main thread only.
+ */
+class TotalsCache {
+
+    private static class Entry {
+        final long start;
+        final long end;
+        final SalesTotals totals;
+        final long loadedAt;
+
+        Entry(long start, long end, SalesTotals totals, long loadedAt) {
+            this.start = start;
+            this.end = end;
+            this.totals = totals;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final long ttlMs;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    TotalsCache(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Fresh totals for the range and status, or null
+     */
+    SalesTotals get(Date startDate, Date endDate, String paymentStatus, long now) {
+        Entry entry = entries.get(key(startDate, endDate, paymentStatus));
+        return entry != null && now - entry.loadedAt < ttlMs ? entry.totals : null;
+    }
+
+    void put(Date startDate, Date endDate, String paymentStatus, SalesTotals totals, long now) {
+        entries.put(key(startDate, endDate, paymentStatus),
+                new Entry(startDate.getTime(), endDate.getTime(), totals, now));
+    }
+
+    /**
+     * Drop the totals whose range contains {@code date}; all of them when it is unknown
+     */
+    void invalidate(Date date) {
+        if (date == null) {
+            entries.clear();
+            return;
+        }
+        long millis = date.getTime();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (millis >= entry.start && millis <= entry.end) it.remove();
+        }
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    private static String key(Date startDate, Date endDate, String paymentStatus) {
+        return startDate.getTime() + "_" + endDate.getTime() + "_" + paymentStatus;
+    }
+}
@@ -0,0 +1,248 @@
+package com.goldtea.sales.data.firestore;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects Firestore writes and commits them as WriteBatches.
+ *
+ * Writes that belong to one logical operation are built as a {@link Group} and always
+ * land in the same batch, so they commit atomically. Groups committed within
+ * FLUSH_WINDOW_MS of each other share a batch as well, which turns bursts of writes
+ * into one round trip and one entry in the offline sync queue. A shared batch that the
+ * server rejects is retried group by group, so one bad write fails only its own group.
+ * Every written document is reported to the SyncStateTracker until its batch is
+ * acknowledged. Commits from other threads are posted to the main thread.
+ */
+class WriteCoalescer {
+    private static final String TAG = "WriteCoalescer";
+    // Firestore rejects batches with more than 500 operations
+    static final int MAX_BATCH_OPS = 500;
+    private static final long FLUSH_WINDOW_MS = 100;
+
+    interface OnCommitListener {
+        void onCommitted();
+        void onFailed(Exception e);
+    }
+
+    private interface Op {
+        void apply(WriteBatch batch);
+    }
+
+    /**
+     * Writes that must be committed together
+     */
+    class Group {
+        private final List<Op> ops = new ArrayList<>();
+        private final List<String> paths = new ArrayList<>();
+
+        Group set(DocumentReference ref, Object data) {
+            ops.add(batch -> batch.set(ref, data));
+            paths.add(ref.getPath());
+            return this;
+        }
+
+        Group set(DocumentReference ref, Object data, SetOptions options) {
+            ops.add(batch -> batch.set(ref, data, options));
+            paths.add(ref.getPath());
+            return this;
+        }
+
+        Group update(DocumentReference ref, Map<String, Object> fields) {
+            ops.add(batch -> batch.update(ref, fields));
+            paths.add(ref.getPath());
+            return this;
+        }
+
+        Group delete(DocumentReference ref) {
+            ops.add(batch -> batch.delete(ref));
+            paths.add(ref.getPath());
+            return this;
+        }
+
+        int size() {
+            return ops.size();
+        }
+
+        void commit(OnCommitListener listener) {
+            if (Looper.myLooper() != Looper.getMainLooper()) {
+                handler.post(() -> enqueue(this, listener));
+                return;
+            }
+            enqueue(this, listener);
+        }
+    }
+
+    private static class Pending {
+        final Group group;
+        final OnCommitListener listener;
+
+        Pending(Group group, OnCommitListener listener) {
+            this.group = group;
+            this.listener = listener;
+        }
+    }
+
+    private final FirebaseFirestore db;
+    private final FirestoreMetrics metrics;
+    private final SyncStateTracker syncState;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<Pending> pending = new ArrayList<>();
+    private int pendingOps = 0;
+    private boolean flushScheduled = false;
+    private final Runnable flushRunnable = this::flush;
+
+    WriteCoalescer(FirebaseFirestore db, FirestoreMetrics metrics, SyncStateTracker syncState) {
+        this.db = db;
+        this.metrics = metrics;
+        this.syncState = syncState;
+    }
+
+    Group group() {
+        return new Group();
+    }
+
+    private void enqueue(Group group, OnCommitListener listener) {
+        if (group.size() == 0) {
+            if (listener != null) listener.onCommitted();
+            return;
+        }
+        // Keep every batch under the limit: ship what is queued before it would overflow
+        if (pendingOps > 0 && pendingOps + group.size() > MAX_BATCH_OPS) {
+            flush();
+        }
+        pending.add(new Pending(group, listener));
+        pendingOps += group.size();
+        syncState.queued(group.paths);
+
+        if (pendingOps >= MAX_BATCH_OPS) {
+            flush();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            handler.postDelayed(flushRunnable, FLUSH_WINDOW_MS);
+        }
+    }
+
+    /**
+     * Commit everything queued so far (call before the app goes to the background)
+     */
+    void flush() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            handler.post(this::flush);
+            return;
+        }
+        handler.removeCallbacks(flushRunnable);
+        flushScheduled = false;
+        if (pending.isEmpty()) return;
+
+        List<Pending> toCommit = new ArrayList<>(pending);
+        pending.clear();
+        pendingOps = 0;
+
+        WriteBatch batch = db.batch();
+        List<Pending> inBatch = new ArrayList<>();
+        int ops = 0;
+        for (Pending write : toCommit) {
+            List<Op> groupOps = write.group.ops;
+            if (groupOps.size() > MAX_BATCH_OPS) {
+                // Too large to be atomic; commit it in slices on its own
+                Log.w(TAG, "Group of " + groupOps.size() + " writes exceeds batch limit, splitting");
+                commitOversized(write);
+                continue;
+            }
+            if (ops + groupOps.size() > MAX_BATCH_OPS) {
+                commit(batch, inBatch, ops);
+                batch = db.batch();
+                inBatch = new ArrayList<>();
+                ops = 0;
+            }
+            for (Op op : groupOps) {
+                op.apply(batch);
+            }
+            inBatch.add(write);
+            ops += groupOps.size();
+        }
+        if (!inBatch.isEmpty()) {
+            commit(batch, inBatch, ops);
+        }
+    }
+
+    private void commit(WriteBatch batch, List<Pending> writes, int ops) {
+        Log.d(TAG, "Committing batch of " + ops + " writes from " + writes.size() + " operations");
+        // Measured until the server acknowledges, so offline time in the queue is included
+        FirestoreMetrics.Call call = metrics.begin("commitBatch");
+        call.from(FirestoreMetrics.Source.SERVER);
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    call.done(ops);
+                    for (Pending write : writes) {
+                        syncState.committed(write.group.paths);
+                        if (write.listener != null) write.listener.onCommitted();
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    call.failed();
+                    if (writes.size() > 1) {
+                        // Nothing in the batch was applied; find the group that was rejected
+                        Log.w(TAG, "Batch commit failed, retrying its " + writes.size() + " operations one by one", e);
+                        for (Pending write : writes) {
+                            WriteBatch single = db.batch();
+                            for (Op op : write.group.ops) {
+                                op.apply(single);
+                            }
+                            commit(single, Collections.singletonList(write), write.group.size());
+                        }
+                        return;
+                    }
+                    Log.e(TAG, "Batch commit failed", e);
+                    for (Pending write : writes) {
+                        syncState.failed(write.group.paths, e);
+                        if (write.listener != null) write.listener.onFailed(e);
+                    }
+                });
+    }
+
+    private void commitOversized(Pending write) {
+        List<Op> groupOps = write.group.ops;
+        int slices = (groupOps.size() + MAX_BATCH_OPS - 1) / MAX_BATCH_OPS;
+        int[] remaining = {slices};
+        boolean[] failed = {false};
+        for (int start = 0; start < groupOps.size(); start += MAX_BATCH_OPS) {
+            WriteBatch batch = db.batch();
+            List<Op> slice = groupOps.subList(start, Math.min(start + MAX_BATCH_OPS, groupOps.size()));
+            for (Op op : slice) {
+                op.apply(batch);
+            }
+            FirestoreMetrics.Call call = metrics.begin("commitBatch");
+            call.from(FirestoreMetrics.Source.SERVER);
+            batch.commit()
+                    .addOnSuccessListener(aVoid -> {
+                        call.done(slice.size());
+                        if (--remaining[0] == 0 && !failed[0]) {
+                            syncState.committed(write.group.paths);
+                            if (write.listener != null) write.listener.onCommitted();
+                        }
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Batch slice commit failed", e);
+                        call.failed();
+                        if (!failed[0]) {
+                            failed[0] = true;
+                            syncState.failed(write.group.paths, e);
+                            if (write.listener != null) write.listener.onFailed(e);
+                        }
+                    });
+        }
+    }
+}
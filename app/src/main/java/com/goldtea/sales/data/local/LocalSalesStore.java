@@ -0,0 +1,271 @@
+package com.goldtea.sales.data.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+
+import com.goldtea.sales.data.firestore.FirestoreManager;
+import com.goldtea.sales.data.model.Sale;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Indexed local copy of the sales collection, kept current by FirestoreManager.
+ *
+ * All database work runs on one background thread, so writes and queries are applied
+ * in the order they were issued. Query results are delivered on the main thread.
+ */
+public class LocalSalesStore {
+    private static final String TAG = "LocalSalesStore";
+    private static LocalSalesStore instance;
+
+    public interface OnSaleLookupListener {
+        /**
+         * @param sale the mirrored copy, or null if the sale is not mirrored
+         */
+        void onSaleLookup(Sale sale);
+    }
+
+    private final SalesDatabase database;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private LocalSalesStore(Context context) {
+        database = new SalesDatabase(context);
+    }
+
+    public static synchronized LocalSalesStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new LocalSalesStore(context);
+        }
+        return instance;
+    }
+
+    // ============================================
+    // WRITES (asynchronous)
+    // ============================================
+
+    public void upsert(Sale sale) {
+        if (sale == null || sale.getSale_id() == null) return;
+        List<Sale> single = new ArrayList<>(1);
+        single.add(sale);
+        upsertAll(single);
+    }
+
+    public void upsertAll(Collection<Sale> sales) {
+        if (sales == null || sales.isEmpty()) return;
+        applyDelta(sales, Collections.<String>emptyList());
+    }
+
+    /**
+     * Apply a sync delta (changed rows and tombstoned IDs) in a single transaction
+     */
+    public void applyDelta(Collection<Sale> changed, Collection<String> deletedIds) {
+        // Snapshot the rows now: callers may mutate Sale objects after handing them over
+        List<ContentValues> rows = new ArrayList<>(changed.size());
+        for (Sale sale : changed) {
+            if (sale != null && sale.getSale_id() != null) {
+                rows.add(toContentValues(sale));
+            }
+        }
+        List<String> ids = new ArrayList<>(deletedIds);
+        if (rows.isEmpty() && ids.isEmpty()) return;
+        executor.execute(() -> {
+            SQLiteDatabase db = database.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (ContentValues row : rows) {
+                    db.insertWithOnConflict(SalesDatabase.TABLE_SALES, null, row, SQLiteDatabase.CONFLICT_REPLACE);
+                }
+                for (String id : ids) {
+                    db.delete(SalesDatabase.TABLE_SALES, SalesDatabase.COL_SALE_ID + " = ?", new String[]{id});
+                }
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e(TAG, "Error applying sync delta", e);
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    public void delete(String saleId) {
+        if (saleId == null) return;
+        executor.execute(() -> {
+            try {
+                database.getWritableDatabase().delete(SalesDatabase.TABLE_SALES,
+                        SalesDatabase.COL_SALE_ID + " = ?", new String[]{saleId});
+            } catch (Exception e) {
+                Log.e(TAG, "Error removing mirrored sale: " + saleId, e);
+            }
+        });
+    }
+
+    // ============================================
+    // QUERIES
+    // ============================================
+
+    /**
+     * Run an indexed query in the background and deliver the result on the main thread
+     */
+    public void query(SalesFilter filter, FirestoreManager.OnSalesLoadedListener listener) {
+        executor.execute(() -> {
+            try {
+                List<Sale> sales = querySync(filter);
+                mainHandler.post(() -> listener.onSalesLoaded(sales));
+            } catch (Exception e) {
+                Log.e(TAG, "Error querying local sales", e);
+                mainHandler.post(() -> listener.onError(e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Read the mirrored copy of one sale, delivered on the main thread. The lookup is
+     * queued behind writes already issued, so it sees the state before any later write.
+     */
+    public void get(String saleId, OnSaleLookupListener listener) {
+        executor.execute(() -> {
+            Sale sale = null;
+            try (Cursor cursor = database.getReadableDatabase().query(SalesDatabase.TABLE_SALES, null,
+                    SalesDatabase.COL_SALE_ID + " = ?", new String[]{saleId}, null, null, null)) {
+                if (cursor.moveToFirst()) {
+                    sale = fromCursor(cursor);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error looking up mirrored sale: " + saleId, e);
+            }
+            Sale found = sale;
+            mainHandler.post(() -> listener.onSaleLookup(found));
+        });
+    }
+
+    /**
+     * Blocking query, newest first. Must not be called on the main thread.
+     */
+    @WorkerThread
+    public List<Sale> querySync(SalesFilter filter) {
+        StringBuilder where = new StringBuilder();
+        List<String> args = new ArrayList<>();
+
+        if (filter.getStartDate() != null) {
+            appendClause(where, SalesDatabase.COL_DATE + " >= ?");
+            args.add(String.valueOf(filter.getStartDate().getTime()));
+        }
+        if (filter.getEndDate() != null) {
+            appendClause(where, SalesDatabase.COL_DATE + " <= ?");
+            args.add(String.valueOf(filter.getEndDate().getTime()));
+        }
+        if (filter.getVillage() != null) {
+            appendClause(where, SalesDatabase.COL_VILLAGE + " = ?");
+            args.add(filter.getVillage());
+        }
+        if (filter.getCustomerName() != null) {
+            appendClause(where, SalesDatabase.COL_CUSTOMER_NAME + " = ?");
+            args.add(filter.getCustomerName());
+        }
+        if (filter.getPaymentStatus() != null) {
+            appendClause(where, SalesDatabase.COL_PAYMENT_STATUS + " = ?");
+            args.add(filter.getPaymentStatus());
+        }
+        if (filter.getTeaType() != null) {
+            appendClause(where, SalesDatabase.COL_TEA_TYPE + " = ?");
+            args.add(filter.getTeaType());
+        }
+        if (filter.getSearchText() != null && !filter.getSearchText().isEmpty()) {
+            appendClause(where, "(" + SalesDatabase.COL_CUSTOMER_NAME + " LIKE ? ESCAPE '\\' OR "
+                    + SalesDatabase.COL_VILLAGE + " LIKE ? ESCAPE '\\')");
+            String pattern = "%" + escapeLike(filter.getSearchText()) + "%";
+            args.add(pattern);
+            args.add(pattern);
+        }
+
+        String limit = filter.getLimit() > 0 ? String.valueOf(filter.getLimit()) : null;
+        List<Sale> sales = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().query(SalesDatabase.TABLE_SALES, null,
+                where.length() > 0 ? where.toString() : null,
+                args.toArray(new String[0]), null, null,
+                SalesDatabase.COL_DATE + " DESC", limit)) {
+            while (cursor.moveToNext()) {
+                sales.add(fromCursor(cursor));
+            }
+        }
+        return sales;
+    }
+
+    // ============================================
+    // MAPPING
+    // ============================================
+
+    private static void appendClause(StringBuilder where, String clause) {
+        if (where.length() > 0) where.append(" AND ");
+        where.append(clause);
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static ContentValues toContentValues(Sale sale) {
+        ContentValues values = new ContentValues();
+        values.put(SalesDatabase.COL_SALE_ID, sale.getSale_id());
+        values.put(SalesDatabase.COL_DATE, toMillis(sale.getDate()));
+        values.put(SalesDatabase.COL_DAY, sale.getDay());
+        values.put(SalesDatabase.COL_VILLAGE, sale.getVillage());
+        values.put(SalesDatabase.COL_CUSTOMER_NAME, sale.getCustomer_name());
+        values.put(SalesDatabase.COL_BRAND, sale.getBrand());
+        values.put(SalesDatabase.COL_TEA_TYPE, sale.getTea_type());
+        values.put(SalesDatabase.COL_PACKAGING, sale.getPackaging());
+        values.put(SalesDatabase.COL_RATE, sale.getRate());
+        values.put(SalesDatabase.COL_QUANTITY, sale.getQuantity());
+        values.put(SalesDatabase.COL_TOTAL_AMOUNT, sale.getTotal_amount());
+        values.put(SalesDatabase.COL_PAYMENT_STATUS, sale.getPayment_status());
+        values.put(SalesDatabase.COL_AMOUNT_PAID, sale.getAmount_paid());
+        values.put(SalesDatabase.COL_BALANCE, sale.getBalance());
+        values.put(SalesDatabase.COL_CREATED_AT, toMillis(sale.getCreated_at()));
+        values.put(SalesDatabase.COL_UPDATED_AT, toMillis(sale.getUpdated_at()));
+        return values;
+    }
+
+    private static Sale fromCursor(Cursor cursor) {
+        Sale sale = Sale.blank();
+        sale.setSale_id(cursor.getString(cursor.getColumnIndexOrThrow(SalesDatabase.COL_SALE_ID)));
+        sale.setDate(toDate(cursor, SalesDatabase.COL_DATE));
+        sale.setDay(cursor.getString(cursor.getColumnIndexOrThrow(SalesDatabase.COL_DAY)));
+        sale.setVillage(cursor.getString(cursor.getColumnIndexOrThrow(SalesDatabase.COL_VILLAGE)));
+        sale.setCustomer_name(cursor.getString(cursor.getColumnIndexOrThrow(SalesDatabase.COL_CUSTOMER_NAME)));
+        sale.setBrand(cursor.getString(cursor.getColumnIndexOrThrow(SalesDatabase.COL_BRAND)));
+        sale.setTea_type(cursor.getString(cursor.getColumnIndexOrThrow(SalesDatabase.COL_TEA_TYPE)));
+        sale.setPackaging(cursor.getString(cursor.getColumnIndexOrThrow(SalesDatabase.COL_PACKAGING)));
+        sale.setRate(cursor.getDouble(cursor.getColumnIndexOrThrow(SalesDatabase.COL_RATE)));
+        sale.setQuantity(cursor.getDouble(cursor.getColumnIndexOrThrow(SalesDatabase.COL_QUANTITY)));
+        sale.setTotal_amount(cursor.getDouble(cursor.getColumnIndexOrThrow(SalesDatabase.COL_TOTAL_AMOUNT)));
+        sale.setPayment_status(cursor.getString(cursor.getColumnIndexOrThrow(SalesDatabase.COL_PAYMENT_STATUS)));
+        sale.setAmount_paid(cursor.getDouble(cursor.getColumnIndexOrThrow(SalesDatabase.COL_AMOUNT_PAID)));
+        sale.setBalance(cursor.getDouble(cursor.getColumnIndexOrThrow(SalesDatabase.COL_BALANCE)));
+        sale.setCreated_at(toDate(cursor, SalesDatabase.COL_CREATED_AT));
+        sale.setUpdated_at(toDate(cursor, SalesDatabase.COL_UPDATED_AT));
+        return sale;
+    }
+
+    private static Long toMillis(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+
+    private static Date toDate(Cursor cursor, String column) {
+        int index = cursor.getColumnIndexOrThrow(column);
+        return cursor.isNull(index) ? null : new Date(cursor.getLong(index));
+    }
+}
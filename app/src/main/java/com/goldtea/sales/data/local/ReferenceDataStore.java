@@ -0,0 +1,168 @@
+package com.goldtea.sales.data.local;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.goldtea.sales.data.model.Customer;
+import com.goldtea.sales.data.model.Pricing;
+import com.goldtea.sales.data.model.Village;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * On-disk snapshot of the reference data (villages, pricing, customers), so the New Sale
+ * dropdowns work right after a cold start instead of waiting for Firestore.
+ *
+ * Each dataset is one small JSON file. Loads are synchronous (a few KB); saves are
+ * written atomically on a background thread. A snapshot is only a starting point:
+ * FirestoreManager serves it as stale data and reconciles it with the server.
+ */
+public class ReferenceDataStore {
+    private static final String TAG = "ReferenceDataStore";
+    private static final String DIRECTORY = "reference_data";
+    // Bump when a model changes shape; older files are then ignored
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String VILLAGES_FILE = "villages.json";
+    private static final String PRICING_FILE = "pricing.json";
+    private static final String CUSTOMERS_FILE = "customers.json";
+
+    private static ReferenceDataStore instance;
+
+    /**
+     * Items read from disk and the time they were saved
+     */
+    public static final class Snapshot<T> {
+        public final List<T> items;
+        public final long savedAt;
+
+        Snapshot(List<T> items, long savedAt) {
+            this.items = items;
+            this.savedAt = savedAt;
+        }
+    }
+
+    private static final class FileContents<T> {
+        int version;
+        long savedAt;
+        List<T> items;
+    }
+
+    // Dates as epoch millis, independent of locale and Gson's default date format
+    private static final TypeAdapter<Date> DATE_MILLIS = new TypeAdapter<Date>() {
+        @Override
+        public void write(JsonWriter out, Date value) throws IOException {
+            out.value(value.getTime());
+        }
+
+        @Override
+        public Date read(JsonReader in) throws IOException {
+            return new Date(in.nextLong());
+        }
+    }.nullSafe();
+
+    private final File directory;
+    private final Gson gson = new GsonBuilder().registerTypeAdapter(Date.class, DATE_MILLIS).create();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private ReferenceDataStore(Context context) {
+        directory = new File(context.getApplicationContext().getFilesDir(), DIRECTORY);
+    }
+
+    public static synchronized ReferenceDataStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new ReferenceDataStore(context);
+        }
+        return instance;
+    }
+
+    public Snapshot<Village> loadVillages() {
+        return load(VILLAGES_FILE, Village.class);
+    }
+
+    public Snapshot<Pricing> loadPricing() {
+        return load(PRICING_FILE, Pricing.class);
+    }
+
+    public Snapshot<Customer> loadCustomers() {
+        return load(CUSTOMERS_FILE, Customer.class);
+    }
+
+    public void saveVillages(List<Village> villages) {
+        save(VILLAGES_FILE, villages, Village.class);
+    }
+
+    public void savePricing(List<Pricing> pricingList) {
+        save(PRICING_FILE, pricingList, Pricing.class);
+    }
+
+    public void saveCustomers(List<Customer> customers) {
+        save(CUSTOMERS_FILE, customers, Customer.class);
+    }
+
+    /**
+     * Read a dataset, or null when there is no usable snapshot
+     */
+    private <T> Snapshot<T> load(String fileName, Class<T> itemType) {
+        AtomicFile file = new AtomicFile(new File(directory, fileName));
+        try {
+            String json = new String(file.readFully(), StandardCharsets.UTF_8);
+            FileContents<T> contents = gson.fromJson(json, contentsType(itemType));
+            if (contents == null || contents.version != FORMAT_VERSION || contents.items == null) {
+                return null;
+            }
+            Log.d(TAG, "Loaded " + contents.items.size() + " items from " + fileName);
+            return new Snapshot<>(Collections.unmodifiableList(contents.items), contents.savedAt);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            Log.w(TAG, "Ignoring unreadable snapshot " + fileName, e);
+            return null;
+        }
+    }
+
+    private <T> void save(String fileName, List<T> items, Class<T> itemType) {
+        FileContents<T> contents = new FileContents<>();
+        contents.version = FORMAT_VERSION;
+        contents.savedAt = System.currentTimeMillis();
+        contents.items = new ArrayList<>(items);
+        executor.execute(() -> {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                Log.e(TAG, "Could not create " + directory);
+                return;
+            }
+            AtomicFile file = new AtomicFile(new File(directory, fileName));
+            FileOutputStream out = null;
+            try {
+                out = file.startWrite();
+                out.write(gson.toJson(contents, contentsType(itemType)).getBytes(StandardCharsets.UTF_8));
+                file.finishWrite(out);
+            } catch (IOException e) {
+                Log.e(TAG, "Error saving snapshot " + fileName, e);
+                if (out != null) file.failWrite(out);
+            }
+        });
+    }
+
+    private static Type contentsType(Class<?> itemType) {
+        return TypeToken.getParameterized(FileContents.class, itemType).getType();
+    }
+}
@@ -0,0 +1,72 @@
+package com.goldtea.sales.data.local;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * On-device relational mirror of the Firestore "sales" collection.
+ * The mirror is disposable: an upgrade simply drops it and the sync layer refills it.
+ */
+public class SalesDatabase extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "sales_mirror.db";
+    private static final int DATABASE_VERSION = 1;
+
+    static final String TABLE_SALES = "sales";
+
+    // Column names match the Firestore field names
+    static final String COL_SALE_ID = "sale_id";
+    static final String COL_DATE = "date";
+    static final String COL_DAY = "day";
+    static final String COL_VILLAGE = "village";
+    static final String COL_CUSTOMER_NAME = "customer_name";
+    static final String COL_BRAND = "brand";
+    static final String COL_TEA_TYPE = "tea_type";
+    static final String COL_PACKAGING = "packaging";
+    static final String COL_RATE = "rate";
+    static final String COL_QUANTITY = "quantity";
+    static final String COL_TOTAL_AMOUNT = "total_amount";
+    static final String COL_PAYMENT_STATUS = "payment_status";
+    static final String COL_AMOUNT_PAID = "amount_paid";
+    static final String COL_BALANCE = "balance";
+    static final String COL_CREATED_AT = "created_at";
+    static final String COL_UPDATED_AT = "updated_at";
+
+    public SalesDatabase(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_SALES + " ("
+                + COL_SALE_ID + " TEXT PRIMARY KEY NOT NULL, "
+                + COL_DATE + " INTEGER, "
+                + COL_DAY + " TEXT, "
+                + COL_VILLAGE + " TEXT, "
+                + COL_CUSTOMER_NAME + " TEXT COLLATE NOCASE, "
+                + COL_BRAND + " TEXT, "
+                + COL_TEA_TYPE + " TEXT, "
+                + COL_PACKAGING + " TEXT, "
+                + COL_RATE + " REAL, "
+                + COL_QUANTITY + " REAL, "
+                + COL_TOTAL_AMOUNT + " REAL, "
+                + COL_PAYMENT_STATUS + " TEXT, "
+                + COL_AMOUNT_PAID + " REAL, "
+                + COL_BALANCE + " REAL, "
+                + COL_CREATED_AT + " INTEGER, "
+                + COL_UPDATED_AT + " INTEGER)");
+
+        // Every screen orders by date, so each filter index ends with it
+        db.execSQL("CREATE INDEX idx_sales_date ON " + TABLE_SALES + " (" + COL_DATE + ")");
+        db.execSQL("CREATE INDEX idx_sales_village_date ON " + TABLE_SALES + " (" + COL_VILLAGE + ", " + COL_DATE + ")");
+        db.execSQL("CREATE INDEX idx_sales_customer_date ON " + TABLE_SALES + " (" + COL_CUSTOMER_NAME + ", " + COL_DATE + ")");
+        db.execSQL("CREATE INDEX idx_sales_status_date ON " + TABLE_SALES + " (" + COL_PAYMENT_STATUS + ", " + COL_DATE + ")");
+        db.execSQL("CREATE INDEX idx_sales_tea_type_date ON " + TABLE_SALES + " (" + COL_TEA_TYPE + ", " + COL_DATE + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SALES);
+        onCreate(db);
+    }
+}
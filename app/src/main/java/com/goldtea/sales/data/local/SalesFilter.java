@@ -0,0 +1,41 @@
+package com.goldtea.sales.data.local;
+
+import java.util.Date;
+
+/**
+ * Criteria for querying sales. Unset (null) fields do not filter.
+ */
+public class SalesFilter {
+    private Date startDate;
+    private Date endDate;
+    private String village;
+    private String customerName;
+    private String paymentStatus;
+    private String teaType;
+    private String searchText;  // Matches customer name or village (contains, case-insensitive)
+    private int limit = 0;      // 0 = no limit
+
+    public Date getStartDate() { return startDate; }
+    public SalesFilter setStartDate(Date startDate) { this.startDate = startDate; return this; }
+
+    public Date getEndDate() { return endDate; }
+    public SalesFilter setEndDate(Date endDate) { this.endDate = endDate; return this; }
+
+    public String getVillage() { return village; }
+    public SalesFilter setVillage(String village) { this.village = village; return this; }
+
+    public String getCustomerName() { return customerName; }
+    public SalesFilter setCustomerName(String customerName) { this.customerName = customerName; return this; }
+
+    public String getPaymentStatus() { return paymentStatus; }
+    public SalesFilter setPaymentStatus(String paymentStatus) { this.paymentStatus = paymentStatus; return this; }
+
+    public String getTeaType() { return teaType; }
+    public SalesFilter setTeaType(String teaType) { this.teaType = teaType; return this; }
+
+    public String getSearchText() { return searchText; }
+    public SalesFilter setSearchText(String searchText) { this.searchText = searchText; return this; }
+
+    public int getLimit() { return limit; }
+    public SalesFilter setLimit(int limit) { this.limit = limit; return this; }
+}
@@ -0,0 +1,194 @@
+package com.goldtea.sales.data.model;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Totals of all sales on one day - stored in daily_summary/{yyyy-MM-dd}
+ * and kept current with increments on every sale write
+ */
+public class DailySummary {
+    public static final String UNKNOWN = "Unknown";
+
+    private String day;        // yyyy-MM-dd, same as the document ID
+    private Date date;         // Start of the day, for range queries
+    private long count;
+    private double total_amount;
+    private double amount_paid;
+    private double balance;
+    private Map<String, Bucket> tea_types = new HashMap<>();
+    private Map<String, Bucket> packaging = new HashMap<>();
+    private Map<String, Bucket> payment_status = new HashMap<>();
+    private Map<String, Bucket> customers = new HashMap<>();  // Keyed by customerKey()
+
+    /**
+     * Number of sales and their total amount within one group
+     */
+    public static class Bucket {
+        private long count;
+        private double total_amount;
+
+        public Bucket() {
+        }
+
+        public Bucket(long count, double total_amount) {
+            this.count = count;
+            this.total_amount = total_amount;
+        }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+
+        public double getTotal_amount() { return total_amount; }
+        public void setTotal_amount(double total_amount) { this.total_amount = total_amount; }
+    }
+
+    public DailySummary() {
+    }
+
+    public DailySummary(Date date) {
+        this.day = dayKey(date);
+        this.date = startOfDay(date);
+    }
+
+    public String getDay() { return day; }
+    public void setDay(String day) { this.day = day; }
+
+    public Date getDate() { return date; }
+    public void setDate(Date date) { this.date = date; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public double getTotal_amount() { return total_amount; }
+    public void setTotal_amount(double total_amount) { this.total_amount = total_amount; }
+
+    public double getAmount_paid() { return amount_paid; }
+    public void setAmount_paid(double amount_paid) { this.amount_paid = amount_paid; }
+
+    public double getBalance() { return balance; }
+    public void setBalance(double balance) { this.balance = balance; }
+
+    public Map<String, Bucket> getTea_types() { return tea_types; }
+    public void setTea_types(Map<String, Bucket> tea_types) { this.tea_types = tea_types; }
+
+    public Map<String, Bucket> getPackaging() { return packaging; }
+    public void setPackaging(Map<String, Bucket> packaging) { this.packaging = packaging; }
+
+    public Map<String, Bucket> getPayment_status() { return payment_status; }
+    public void setPayment_status(Map<String, Bucket> payment_status) { this.payment_status = payment_status; }
+
+    public Map<String, Bucket> getCustomers() { return customers; }
+    public void setCustomers(Map<String, Bucket> customers) { this.customers = customers; }
+
+    /**
+     * Add (sign = 1) or remove (sign = -1) one sale's contribution
+     */
+    public void add(Sale sale, int sign) {
+        count += sign;
+        total_amount += sign * sale.getTotal_amount();
+        amount_paid += sign * sale.getAmount_paid();
+        balance += sign * sale.getBalance();
+        addTo(tea_types, labelOf(sale.getTea_type()), sign, sale.getTotal_amount());
+        addTo(packaging, labelOf(sale.getPackaging()), sign, sale.getTotal_amount());
+        addTo(payment_status, labelOf(sale.getPayment_status()), sign, sale.getTotal_amount());
+        addTo(customers, customerKey(sale.getCustomer_name(), sale.getVillage()), sign, sale.getTotal_amount());
+    }
+
+    /**
+     * Fold another summary (e.g. another day) into this one
+     */
+    public void add(DailySummary other) {
+        count += other.count;
+        total_amount += other.total_amount;
+        amount_paid += other.amount_paid;
+        balance += other.balance;
+        addAll(tea_types, other.tea_types);
+        addAll(packaging, other.packaging);
+        addAll(payment_status, other.payment_status);
+        addAll(customers, other.customers);
+    }
+
+    private static void addTo(Map<String, Bucket> buckets, String key, long count, double amount) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new Bucket();
+            buckets.put(key, bucket);
+        }
+        bucket.count += count;
+        bucket.total_amount += count * amount;
+    }
+
+    private static void addAll(Map<String, Bucket> target, Map<String, Bucket> source) {
+        if (source == null) return;
+        for (Map.Entry<String, Bucket> entry : source.entrySet()) {
+            Bucket bucket = target.get(entry.getKey());
+            if (bucket == null) {
+                target.put(entry.getKey(), new Bucket(entry.getValue().count, entry.getValue().total_amount));
+            } else {
+                bucket.count += entry.getValue().count;
+                bucket.total_amount += entry.getValue().total_amount;
+            }
+        }
+    }
+
+    // Helpers shared by the write path and the readers
+
+    /**
+     * One summary per day that has sales, oldest first
+     */
+    public static List<DailySummary> byDay(Collection<Sale> sales) {
+        Map<String, DailySummary> days = new TreeMap<>();
+        for (Sale sale : sales) {
+            if (sale.getDate() == null) continue;
+            String key = dayKey(sale.getDate());
+            DailySummary summary = days.get(key);
+            if (summary == null) {
+                summary = new DailySummary(sale.getDate());
+                days.put(key, summary);
+            }
+            summary.add(sale, 1);
+        }
+        return new ArrayList<>(days.values());
+    }
+
+    public static String labelOf(String value) {
+        return value == null || value.trim().isEmpty() ? UNKNOWN : value;
+    }
+
+    public static String customerKey(String customerName, String village) {
+        return labelOf(customerName) + "|" + labelOf(village);
+    }
+
+    public static String customerNameOf(String customerKey) {
+        int separator = customerKey.lastIndexOf('|');
+        return separator < 0 ? customerKey : customerKey.substring(0, separator);
+    }
+
+    public static String villageOf(String customerKey) {
+        int separator = customerKey.lastIndexOf('|');
+        return separator < 0 ? UNKNOWN : customerKey.substring(separator + 1);
+    }
+
+    public static String dayKey(Date date) {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(date);
+    }
+
+    public static Date startOfDay(Date date) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTime();
+    }
+}
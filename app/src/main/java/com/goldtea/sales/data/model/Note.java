@@ -16,6 +16,16 @@ public class Note {
         this.updated_at = new Date();
     }
 
+    private Note(boolean withDefaults) {
+    }
+
+    /**
+     * Note with no fields set, used when decoding stored documents
+     */
+    public static Note blank() {
+        return new Note(false);
+    }
+
     public Note(String title, String content) {
         this();
         this.title = title;
@@ -25,6 +25,7 @@ public class Sale {
     private double balance;
     private Date created_at;
     private Date updated_at;
+    private boolean deleted;  // Soft-delete tombstone so removals reach other devices' delta sync
     
     public Sale() {
         // Generate a unique ID by default
@@ -32,6 +33,17 @@ public class Sale {
         this.created_at = new Date();
         this.updated_at = new Date();
     }
+
+    private Sale(boolean withDefaults) {
+        // No generated ID or timestamps; the caller fills every field
+    }
+
+    /**
+     * Empty instance for decoders, skipping the UUID and Date allocations of the default constructor
+     */
+    public static Sale blank() {
+        return new Sale(false);
+    }
     
     // Getters and Setters
     // ID getters/setters removed for Firestore
@@ -84,4 +96,7 @@ public class Sale {
     
     public Date getUpdated_at() { return updated_at; }
     public void setUpdated_at(Date updated_at) { this.updated_at = updated_at; }
+    
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
 }
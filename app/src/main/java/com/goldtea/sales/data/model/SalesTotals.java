@@ -0,0 +1,46 @@
+package com.goldtea.sales.data.model;
+
+import java.util.List;
+
+/**
+ * Count and amount sums over a set of sales - what the summary cards show
+ */
+public class SalesTotals {
+    private long count;
+    private double total_amount;
+    private double amount_paid;
+    private double balance;
+
+    public SalesTotals() {
+    }
+
+    public SalesTotals(long count, double total_amount, double amount_paid, double balance) {
+        this.count = count;
+        this.total_amount = total_amount;
+        this.amount_paid = amount_paid;
+        this.balance = balance;
+    }
+
+    public long getCount() { return count; }
+
+    public double getTotal_amount() { return total_amount; }
+
+    public double getAmount_paid() { return amount_paid; }
+
+    public double getBalance() { return balance; }
+
+    /**
+     * Totals of the given sales, optionally only those with {@code paymentStatus}
+     */
+    public static SalesTotals of(List<Sale> sales, String paymentStatus) {
+        SalesTotals totals = new SalesTotals();
+        for (Sale sale : sales) {
+            if (paymentStatus != null && !paymentStatus.equals(sale.getPayment_status())) continue;
+            totals.count++;
+            totals.total_amount += sale.getTotal_amount();
+            totals.amount_paid += sale.getAmount_paid();
+            totals.balance += sale.getBalance();
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,31 @@
+package com.goldtea.sales.data.repository;
+
+import com.goldtea.sales.data.model.Customer;
+
+import java.util.List;
+
+/**
+ * Customer data access
+ */
+public interface CustomerRepository {
+
+    void getAllCustomers(OnCustomersLoadedListener listener);
+
+    void getAllCustomers(OnCustomersLoadedListener listener, boolean forceRefresh);
+
+    void getCustomersByVillage(String village, OnCustomersLoadedListener listener);
+
+    void addCustomer(Customer customer, OnCustomerAddedListener listener);
+
+    void invalidateCustomersCache();
+
+    interface OnCustomersLoadedListener {
+        void onCustomersLoaded(List<Customer> customers);
+        void onError(String error);
+    }
+
+    interface OnCustomerAddedListener {
+        void onSuccess();
+        void onError(String error);
+    }
+}
@@ -0,0 +1,13 @@
+package com.goldtea.sales.data.repository;
+
+/**
+ * Complete data layer as seen by the UI. FirestoreManager is the production
+ * implementation; InMemoryRepository stands in for it when measuring screens offline.
+ * Listeners and page cursors are the repositories' own types, so neither side of the
+ * interface depends on the other's storage.
+ */
+public interface DataRepository extends SalesRepository, VillageRepository, PricingRepository,
+        CustomerRepository, NoteRepository {
+
+    void invalidateAllCaches();
+}
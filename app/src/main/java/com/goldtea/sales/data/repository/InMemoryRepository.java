@@ -0,0 +1,658 @@
+package com.goldtea.sales.data.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.goldtea.sales.data.local.SalesFilter;
+import com.goldtea.sales.data.model.Customer;
+import com.goldtea.sales.data.model.DailySummary;
+import com.goldtea.sales.data.model.Note;
+import com.goldtea.sales.data.model.Pricing;
+import com.goldtea.sales.data.model.Sale;
+import com.goldtea.sales.data.model.SalesTotals;
+import com.goldtea.sales.data.model.Village;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process fake backend for load testing screens without a Firebase project.
+ *
+ * Every call is answered on the main thread after a configurable latency and can be
+ * made to fail at a configurable rate. Document reads are counted the way Firestore
+ * bills them (one per returned document, minimum one per query).
+ *
+ * Sales are kept ordered by date, newest first, so reads cost no more than the
+ * documents they return. Page cursors hold the position of a page's last item, so
+ * like Firestore's startAfter() they stay valid while items are added or removed.
+ */
+public class InMemoryRepository implements DataRepository {
+    private static final String TAG = "InMemoryRepository";
+
+    private static final String[] TEA_TYPES = {"Mix", "Barik"};
+    private static final String[] PACKAGES = {"100gm", "250gm", "500gm", "1kg"};
+    private static final int[] DEFAULT_RATES = {50, 120, 230, 450};
+
+    private final Handler mainHandler;
+    // Replaces mainHandler when set; callbacks then run without the simulated latency
+    private final Executor callbackExecutor;
+    private final Random random = new Random();
+    private final AtomicLong documentReads = new AtomicLong();
+
+    // Newest first; saleKeys holds each sale's key as it was inserted
+    private final TreeMap<DateKey, Sale> sales = new TreeMap<>();
+    private final Map<String, DateKey> saleKeys = new HashMap<>();
+    private final Map<String, Village> villages = new LinkedHashMap<>();
+    private final Map<String, Pricing> pricing = new LinkedHashMap<>();
+    private final Map<String, Customer> customers = new LinkedHashMap<>();
+    private final Map<String, Note> notes = new LinkedHashMap<>();
+    private final List<OnSalesChangedListener> salesChangedListeners = new ArrayList<>();
+
+    private volatile long latencyMs = 0;
+    private volatile double failureRate = 0;
+
+    public InMemoryRepository() {
+        this.mainHandler = new Handler(Looper.getMainLooper());
+        this.callbackExecutor = null;
+    }
+
+    /**
+     * Answer on {@code callbackExecutor} instead of the main thread, for JVM tests
+     */
+    InMemoryRepository(Executor callbackExecutor) {
+        this.mainHandler = null;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    // ============================================
+    // CONFIGURATION
+    // ============================================
+
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = Math.max(0, latencyMs);
+    }
+
+    /**
+     * Fraction of calls (0.0 - 1.0) that report an error instead of data
+     */
+    public void setFailureRate(double failureRate) {
+        this.failureRate = Math.max(0, Math.min(1, failureRate));
+    }
+
+    @Override
+    public long getRoundTripMs() {
+        return latencyMs;
+    }
+
+    public long getDocumentReads() {
+        return documentReads.get();
+    }
+
+    public void resetDocumentReads() {
+        documentReads.set(0);
+    }
+
+    /**
+     * Fill the store with a deterministic data set: villages, full pricing, customers
+     * and {@code saleCount} sales spread over the last {@code days} days.
+     */
+    public synchronized void seedSyntheticData(int saleCount, int days, long seed) {
+        Random seeded = new Random(seed);
+        int villageCount = 25;
+        int customersPerVillage = 40;
+        SimpleDateFormat dayFormat = new SimpleDateFormat("EEEE", Locale.getDefault());
+
+        for (int t = 0; t < TEA_TYPES.length; t++) {
+            for (int p = 0; p < PACKAGES.length; p++) {
+                Pricing price = new Pricing();
+                price.setTea_type(TEA_TYPES[t]);
+                price.setPackage(PACKAGES[p]);
+                price.setRate(DEFAULT_RATES[p] + t * 10);
+                pricing.put(price.getPricingKey(), price);
+            }
+        }
+
+        for (int v = 0; v < villageCount; v++) {
+            Village village = new Village();
+            village.setName("Village " + (v + 1));
+            villages.put(village.getName(), village);
+            for (int c = 0; c < customersPerVillage; c++) {
+                Customer customer = new Customer();
+                customer.setVillage(village.getName());
+                customer.setCustomer_name("Customer " + (v + 1) + "-" + (c + 1));
+                customers.put(customerKey(customer), customer);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        long span = Math.max(1, days) * 24L * 60 * 60 * 1000;
+        for (int i = 0; i < saleCount; i++) {
+            int v = seeded.nextInt(villageCount) + 1;
+            int c = seeded.nextInt(customersPerVillage) + 1;
+            int t = seeded.nextInt(TEA_TYPES.length);
+            int p = seeded.nextInt(PACKAGES.length);
+            double quantity = 1 + seeded.nextInt(5);
+            double rate = DEFAULT_RATES[p] + t * 10;
+
+            Sale sale = new Sale();
+            sale.setDate(new Date(now - (long) (seeded.nextDouble() * span)));
+            sale.setDay(dayFormat.format(sale.getDate()));
+            sale.setVillage("Village " + v);
+            sale.setCustomer_name("Customer " + v + "-" + c);
+            sale.setBrand("GOLD");
+            sale.setTea_type(TEA_TYPES[t]);
+            sale.setPackaging(PACKAGES[p]);
+            sale.setRate(rate);
+            sale.setQuantity(quantity);
+            sale.setTotal_amount(rate * quantity);
+            boolean paid = seeded.nextInt(4) != 0;
+            sale.setPayment_status(paid ? "Paid" : "Pending");
+            sale.setAmount_paid(paid ? sale.getTotal_amount() : 0);
+            sale.setBalance(paid ? 0 : sale.getTotal_amount());
+            putSale(sale);
+        }
+        Log.d(TAG, "Seeded " + saleCount + " synthetic sales over " + days + " days");
+    }
+
+    // ============================================
+    // SALES OPERATIONS
+    // ============================================
+
+    @Override
+    public void getSalesPaginated(int limit, PageCursor after, OnSalesLoadedListener listener) {
+        getSalesPaginated(limit, after, listener, false);
+    }
+
+    @Override
+    public void getSalesPaginated(int limit, PageCursor after, OnSalesLoadedListener listener, boolean forceRefresh) {
+        if (after != null && !(after instanceof IndexCursor && ((IndexCursor) after).sales)) {
+            post(() -> listener.onError("Page cursor was not issued for sales"), 0);
+            return;
+        }
+        List<Sale> page = new ArrayList<>();
+        DateKey last = null;
+        synchronized (this) {
+            Map<DateKey, Sale> rest = after != null ? sales.tailMap(((IndexCursor) after).key, false) : sales;
+            for (Map.Entry<DateKey, Sale> entry : rest.entrySet()) {
+                if (page.size() >= limit) break;
+                page.add(entry.getValue());
+                last = entry.getKey();
+            }
+        }
+        PageCursor next = page.size() < limit ? null : new IndexCursor(true, last);
+        deliver(page.size(), listener::onError, () -> {
+            if (listener instanceof OnSalesPaginatedListener) {
+                ((OnSalesPaginatedListener) listener).onSalesLoaded(page, next);
+            } else {
+                listener.onSalesLoaded(page);
+            }
+        });
+    }
+
+    @Override
+    public void getSalesByDateRange(Date startDate, Date endDate, OnSalesLoadedListener listener) {
+        List<Sale> result = salesBetween(startDate, endDate);
+        deliver(result.size(), listener::onError, () -> listener.onSalesLoaded(result));
+    }
+
+    @Override
+    public void getDailySummaries(Date startDate, Date endDate, OnDailySummariesLoadedListener listener) {
+        List<Sale> inRange = salesBetween(startDate, endDate);
+        // Billed like the rollup documents: one read per day
+        List<DailySummary> result = DailySummary.byDay(inRange);
+        deliver(result.size(), listener::onError, () -> listener.onDailySummariesLoaded(result));
+    }
+
+    @Override
+    public void getSalesTotals(Date startDate, Date endDate, String paymentStatus,
+                               OnSalesTotalsLoadedListener listener) {
+        List<Sale> inRange = salesBetween(startDate, endDate);
+        SalesTotals totals = SalesTotals.of(inRange, paymentStatus);
+        // Aggregations are billed one read per 1000 index entries scanned
+        int reads = (int) Math.max(1, (totals.getCount() + 999) / 1000);
+        deliver(reads, listener::onError, () -> listener.onSalesTotalsLoaded(totals));
+    }
+
+    @Override
+    public void addSale(Sale sale, OnSaleAddedListener listener) {
+        Customer customer = new Customer();
+        customer.setVillage(sale.getVillage());
+        customer.setCustomer_name(sale.getCustomer_name());
+        write(listener::onError, () -> {
+            putSale(sale);
+            customers.put(customerKey(customer), customer);
+        }, () -> {
+            listener.onSuccess();
+            notifySalesChanged();
+        });
+    }
+
+    @Override
+    public void updateSale(Sale sale, OnSaleUpdatedListener listener) {
+        if (sale.getSale_id() == null) {
+            listener.onError("Cannot update sale: Sale ID is null");
+            return;
+        }
+        sale.setUpdated_at(new Date());
+        write(listener::onError, () -> putSale(sale), () -> {
+            listener.onSuccess();
+            notifySalesChanged();
+        });
+    }
+
+    @Override
+    public void deleteSale(String saleId, OnSaleDeletedListener listener) {
+        if (saleId == null) {
+            listener.onError("Cannot delete sale: Sale ID is null");
+            return;
+        }
+        write(listener::onError, () -> removeSale(saleId), () -> {
+            listener.onSuccess();
+            notifySalesChanged();
+        });
+    }
+
+    @Override
+    public void searchSales(SalesFilter filter, OnSalesLoadedListener listener) {
+        String search = filter.getSearchText() != null ? filter.getSearchText().toLowerCase(Locale.ROOT) : "";
+        List<Sale> candidates = filter.getStartDate() != null || filter.getEndDate() != null
+                ? salesBetween(filter.getStartDate(), filter.getEndDate())
+                : allSales();
+        List<Sale> result = new ArrayList<>();
+        for (Sale sale : candidates) {
+            if (filter.getLimit() > 0 && result.size() >= filter.getLimit()) break;
+            Date date = sale.getDate();
+            if (filter.getStartDate() != null && (date == null || date.before(filter.getStartDate()))) continue;
+            if (filter.getEndDate() != null && (date == null || date.after(filter.getEndDate()))) continue;
+            if (filter.getVillage() != null && !filter.getVillage().equals(sale.getVillage())) continue;
+            if (filter.getCustomerName() != null && !filter.getCustomerName().equalsIgnoreCase(sale.getCustomer_name())) continue;
+            if (filter.getPaymentStatus() != null && !filter.getPaymentStatus().equals(sale.getPayment_status())) continue;
+            if (filter.getTeaType() != null && !filter.getTeaType().equals(sale.getTea_type())) continue;
+            if (!search.isEmpty()) {
+                String customer = sale.getCustomer_name() != null ? sale.getCustomer_name().toLowerCase(Locale.ROOT) : "";
+                String village = sale.getVillage() != null ? sale.getVillage().toLowerCase(Locale.ROOT) : "";
+                if (!customer.contains(search) && !village.contains(search)) continue;
+            }
+            result.add(sale);
+        }
+        // Local query: answered without simulated network latency and not billed
+        post(() -> listener.onSalesLoaded(result), 0);
+    }
+
+    @Override
+    public void invalidateSalesCache() {
+        // Nothing cached in front of the store
+    }
+
+    @Override
+    public void addSalesChangedListener(OnSalesChangedListener listener) {
+        if (!salesChangedListeners.contains(listener)) {
+            salesChangedListeners.add(listener);
+        }
+    }
+
+    @Override
+    public void removeSalesChangedListener(OnSalesChangedListener listener) {
+        salesChangedListeners.remove(listener);
+    }
+
+    private void notifySalesChanged() {
+        for (OnSalesChangedListener listener : new ArrayList<>(salesChangedListeners)) {
+            listener.onSalesChanged();
+        }
+    }
+
+    // ============================================
+    // VILLAGE OPERATIONS
+    // ============================================
+
+    @Override
+    public void getAllVillages(OnVillagesLoadedListener listener) {
+        getAllVillages(listener, false);
+    }
+
+    @Override
+    public void getAllVillages(OnVillagesLoadedListener listener, boolean forceRefresh) {
+        List<Village> result;
+        synchronized (this) {
+            result = new ArrayList<>(villages.values());
+        }
+        Collections.sort(result, (v1, v2) -> v1.getName().compareToIgnoreCase(v2.getName()));
+        deliver(result.size(), listener::onError, () -> listener.onVillagesLoaded(result));
+    }
+
+    @Override
+    public void addVillage(Village village, OnVillageAddedListener listener) {
+        write(listener::onError, () -> villages.put(village.getName().trim(), village), listener::onSuccess);
+    }
+
+    @Override
+    public void deleteVillage(String villageName, OnVillageDeletedListener listener) {
+        write(listener::onError, () -> villages.remove(villageName.trim()), listener::onSuccess);
+    }
+
+    @Override
+    public void invalidateVillagesCache() {
+        // Nothing cached in front of the store
+    }
+
+    // ============================================
+    // PRICING OPERATIONS
+    // ============================================
+
+    @Override
+    public void getAllPricing(OnPricingLoadedListener listener) {
+        getAllPricing(listener, false);
+    }
+
+    @Override
+    public void getAllPricing(OnPricingLoadedListener listener, boolean forceRefresh) {
+        List<Pricing> result;
+        synchronized (this) {
+            result = new ArrayList<>(pricing.values());
+        }
+        Collections.sort(result, (p1, p2) -> p1.getPricingKey().compareToIgnoreCase(p2.getPricingKey()));
+        deliver(result.size(), listener::onError, () -> listener.onPricingLoaded(result));
+    }
+
+    @Override
+    public void getPricingByTeaType(String teaType, OnPricingLoadedListener listener) {
+        List<Pricing> result = new ArrayList<>();
+        synchronized (this) {
+            for (Pricing price : pricing.values()) {
+                if (teaType != null && teaType.equals(price.getTea_type())) {
+                    result.add(price);
+                }
+            }
+        }
+        deliver(result.size(), listener::onError, () -> listener.onPricingLoaded(result));
+    }
+
+    @Override
+    public void updatePricing(Pricing price, OnPricingUpdatedListener listener) {
+        price.setUpdated_on(new Date());
+        write(listener::onError, () -> pricing.put(price.getPricingKey(), price), listener::onSuccess);
+    }
+
+    @Override
+    public void updatePricing(List<Pricing> pricingList, OnPricingUpdatedListener listener) {
+        Date now = new Date();
+        for (Pricing price : pricingList) {
+            price.setUpdated_on(now);
+        }
+        write(listener::onError, () -> {
+            for (Pricing price : pricingList) {
+                pricing.put(price.getPricingKey(), price);
+            }
+        }, listener::onSuccess);
+    }
+
+    @Override
+    public void invalidatePricingCache() {
+        // Nothing cached in front of the store
+    }
+
+    // ============================================
+    // CUSTOMER OPERATIONS
+    // ============================================
+
+    @Override
+    public void getAllCustomers(OnCustomersLoadedListener listener) {
+        getAllCustomers(listener, false);
+    }
+
+    @Override
+    public void getAllCustomers(OnCustomersLoadedListener listener, boolean forceRefresh) {
+        List<Customer> result;
+        synchronized (this) {
+            result = new ArrayList<>(customers.values());
+        }
+        Collections.sort(result, (c1, c2) -> c1.getCustomer_name().compareTo(c2.getCustomer_name()));
+        deliver(result.size(), listener::onError, () -> listener.onCustomersLoaded(result));
+    }
+
+    @Override
+    public void getCustomersByVillage(String village, OnCustomersLoadedListener listener) {
+        List<Customer> result = new ArrayList<>();
+        synchronized (this) {
+            for (Customer customer : customers.values()) {
+                if (village != null && village.equals(customer.getVillage())) {
+                    result.add(customer);
+                }
+            }
+        }
+        Collections.sort(result, (c1, c2) -> c1.getCustomer_name().compareToIgnoreCase(c2.getCustomer_name()));
+        deliver(result.size(), listener::onError, () -> listener.onCustomersLoaded(result));
+    }
+
+    @Override
+    public void addCustomer(Customer customer, OnCustomerAddedListener listener) {
+        write(listener != null ? listener::onError : null,
+                () -> customers.put(customerKey(customer), customer),
+                listener != null ? listener::onSuccess : null);
+    }
+
+    @Override
+    public void invalidateCustomersCache() {
+        // Nothing cached in front of the store
+    }
+
+    // ============================================
+    // NOTE OPERATIONS
+    // ============================================
+
+    @Override
+    public void getNotesPaginated(int limit, PageCursor after, OnNotesLoadedListener listener) {
+        getNotesPaginated(limit, after, listener, false);
+    }
+
+    @Override
+    public void getNotesPaginated(int limit, PageCursor after, OnNotesLoadedListener listener, boolean forceRefresh) {
+        if (after != null && !(after instanceof IndexCursor && !((IndexCursor) after).sales)) {
+            post(() -> listener.onError("Page cursor was not issued for notes"), 0);
+            return;
+        }
+        // Notes are few; sort them per call, most recently updated first
+        TreeMap<DateKey, Note> sorted = new TreeMap<>();
+        synchronized (this) {
+            for (Note note : notes.values()) {
+                sorted.put(DateKey.of(note), note);
+            }
+        }
+        Map<DateKey, Note> rest = after != null ? sorted.tailMap(((IndexCursor) after).key, false) : sorted;
+        List<Note> page = new ArrayList<>();
+        DateKey last = null;
+        for (Map.Entry<DateKey, Note> entry : rest.entrySet()) {
+            if (page.size() >= limit) break;
+            page.add(entry.getValue());
+            last = entry.getKey();
+        }
+        PageCursor next = page.size() < limit ? null : new IndexCursor(false, last);
+        deliver(page.size(), listener::onError, () -> {
+            if (listener instanceof OnNotesPaginatedListener) {
+                ((OnNotesPaginatedListener) listener).onNotesLoaded(page, next);
+            } else {
+                listener.onNotesLoaded(page);
+            }
+        });
+    }
+
+    @Override
+    public void getNoteById(String noteId, OnNoteLoadedListener listener) {
+        Note note;
+        synchronized (this) {
+            note = noteId != null ? notes.get(noteId) : null;
+        }
+        deliver(1, listener::onError, () -> {
+            if (note != null) {
+                listener.onNoteLoaded(note);
+            } else {
+                listener.onError("Note not found");
+            }
+        });
+    }
+
+    @Override
+    public void addNote(Note note, OnNoteAddedListener listener) {
+        note.setUpdated_at(new Date());
+        write(listener != null ? listener::onError : null,
+                () -> notes.put(note.getNote_id(), note),
+                listener != null ? listener::onSuccess : null);
+    }
+
+    @Override
+    public void deleteNote(String noteId, OnNoteDeletedListener listener) {
+        write(listener != null ? listener::onError : null,
+                () -> notes.remove(noteId),
+                listener != null ? listener::onSuccess : null);
+    }
+
+    @Override
+    public void invalidateNotesCache() {
+        // Nothing cached in front of the store
+    }
+
+    @Override
+    public void invalidateAllCaches() {
+        // Nothing cached in front of the store
+    }
+
+    // ============================================
+    // SIMULATION HELPERS
+    // ============================================
+
+    private interface ErrorCallback {
+        void onError(String error);
+    }
+
+    /**
+     * Position in a date index: newest first, undated last, then by ID.
+     * Sales are ordered by sale date, notes by last update.
+     */
+    private static final class DateKey implements Comparable<DateKey> {
+        final long time;
+        // Null sorts before every ID, for range bounds
+        final String id;
+
+        DateKey(long time, String id) {
+            this.time = time;
+            this.id = id;
+        }
+
+        static DateKey of(Sale sale) {
+            Date date = sale.getDate();
+            return new DateKey(date != null ? date.getTime() : Long.MIN_VALUE, sale.getSale_id());
+        }
+
+        static DateKey of(Note note) {
+            Date date = note.getUpdated_at();
+            return new DateKey(date != null ? date.getTime() : Long.MIN_VALUE, note.getNote_id());
+        }
+
+        @Override
+        public int compareTo(DateKey other) {
+            int byTime = Long.compare(other.time, time);
+            if (byTime != 0) return byTime;
+            if (id == null) return other.id == null ? 0 : -1;
+            if (other.id == null) return 1;
+            return id.compareTo(other.id);
+        }
+    }
+
+    /**
+     * Key of the last item of a sales or notes page
+     */
+    private static final class IndexCursor implements PageCursor {
+        final boolean sales;
+        final DateKey key;
+
+        IndexCursor(boolean sales, DateKey key) {
+            this.sales = sales;
+            this.key = key;
+        }
+    }
+
+    // Callers hold the lock
+    private void putSale(Sale sale) {
+        removeSale(sale.getSale_id());
+        DateKey key = DateKey.of(sale);
+        sales.put(key, sale);
+        saleKeys.put(sale.getSale_id(), key);
+    }
+
+    private void removeSale(String saleId) {
+        DateKey key = saleKeys.remove(saleId);
+        if (key != null) sales.remove(key);
+    }
+
+    private synchronized List<Sale> allSales() {
+        return new ArrayList<>(sales.values());
+    }
+
+    /**
+     * Dated sales from {@code start} to {@code end} inclusive (either may be null), newest first
+     */
+    private synchronized List<Sale> salesBetween(Date start, Date end) {
+        if (start != null && end != null && start.after(end)) return new ArrayList<>();
+        DateKey from = new DateKey(end != null ? end.getTime() : Long.MAX_VALUE, null);
+        // Exclusive bound just past the oldest included millisecond; undated sales stay out
+        DateKey to = new DateKey(start != null ? start.getTime() - 1 : Long.MIN_VALUE, null);
+        return new ArrayList<>(sales.subMap(from, true, to, false).values());
+    }
+
+    private void post(Runnable action, long delayMs) {
+        if (callbackExecutor != null) {
+            callbackExecutor.execute(action);
+        } else {
+            mainHandler.postDelayed(action, delayMs);
+        }
+    }
+
+    /**
+     * Answer a read after the configured latency, counting billed document reads
+     */
+    private void deliver(int documents, ErrorCallback onError, Runnable onSuccess) {
+        boolean fail = random.nextDouble() < failureRate;
+        post(() -> {
+            if (fail) {
+                if (onError != null) onError.onError("Simulated backend failure");
+                return;
+            }
+            documentReads.addAndGet(Math.max(1, documents));
+            onSuccess.run();
+        }, latencyMs);
+    }
+
+    /**
+     * Apply a write after the configured latency unless the simulated backend rejects it
+     */
+    private void write(ErrorCallback onError, Runnable mutation, Runnable onSuccess) {
+        boolean fail = random.nextDouble() < failureRate;
+        post(() -> {
+            if (fail) {
+                if (onError != null) onError.onError("Simulated backend failure");
+                return;
+            }
+            synchronized (this) {
+                mutation.run();
+            }
+            if (onSuccess != null) onSuccess.run();
+        }, latencyMs);
+    }
+
+    private static String customerKey(Customer customer) {
+        return customer.getVillage() + "_" + customer.getCustomer_name();
+    }
+}
@@ -0,0 +1,48 @@
+package com.goldtea.sales.data.repository;
+
+import com.goldtea.sales.data.model.Note;
+
+import java.util.List;
+
+/**
+ * Notepad data access
+ */
+public interface NoteRepository {
+
+    void getNotesPaginated(int limit, PageCursor after, OnNotesLoadedListener listener);
+
+    void getNotesPaginated(int limit, PageCursor after, OnNotesLoadedListener listener, boolean forceRefresh);
+
+    void getNoteById(String noteId, OnNoteLoadedListener listener);
+
+    void addNote(Note note, OnNoteAddedListener listener);
+
+    void deleteNote(String noteId, OnNoteDeletedListener listener);
+
+    void invalidateNotesCache();
+
+    interface OnNotesLoadedListener {
+        void onNotesLoaded(List<Note> notes);
+        void onError(String error);
+    }
+
+    // next is the cursor for the following page, null when there are no more pages
+    interface OnNotesPaginatedListener extends OnNotesLoadedListener {
+        void onNotesLoaded(List<Note> notes, PageCursor next);
+    }
+
+    interface OnNoteLoadedListener {
+        void onNoteLoaded(Note note);
+        void onError(String error);
+    }
+
+    interface OnNoteAddedListener {
+        void onSuccess();
+        void onError(String error);
+    }
+
+    interface OnNoteDeletedListener {
+        void onSuccess();
+        void onError(String error);
+    }
+}
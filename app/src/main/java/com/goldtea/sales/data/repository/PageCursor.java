@@ -0,0 +1,8 @@
+package com.goldtea.sales.data.repository;
+
+/**
+ * Position after the last item of a page, handed out with the page and passed back to
+ * fetch the next one. Opaque to callers; only the repository that issued it can read it.
+ */
+public interface PageCursor {
+}
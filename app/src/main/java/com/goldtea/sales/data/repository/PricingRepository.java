@@ -0,0 +1,36 @@
+package com.goldtea.sales.data.repository;
+
+import com.goldtea.sales.data.model.Pricing;
+
+import java.util.List;
+
+/**
+ * Pricing data access
+ */
+public interface PricingRepository {
+
+    void getAllPricing(OnPricingLoadedListener listener);
+
+    void getAllPricing(OnPricingLoadedListener listener, boolean forceRefresh);
+
+    void getPricingByTeaType(String teaType, OnPricingLoadedListener listener);
+
+    void updatePricing(Pricing pricing, OnPricingUpdatedListener listener);
+
+    /**
+     * Save several prices as one atomic write
+     */
+    void updatePricing(List<Pricing> pricingList, OnPricingUpdatedListener listener);
+
+    void invalidatePricingCache();
+
+    interface OnPricingLoadedListener {
+        void onPricingLoaded(List<Pricing> pricingList);
+        void onError(String error);
+    }
+
+    interface OnPricingUpdatedListener {
+        void onSuccess();
+        void onError(String error);
+    }
+}
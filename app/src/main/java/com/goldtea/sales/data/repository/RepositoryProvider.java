@@ -0,0 +1,31 @@
+package com.goldtea.sales.data.repository;
+
+import android.content.Context;
+
+import com.goldtea.sales.data.firestore.FirestoreManager;
+
+/**
+ * Hands out the active data layer. Defaults to FirestoreManager; an override
+ * (e.g. a seeded InMemoryRepository) can be installed for load testing.
+ */
+public final class RepositoryProvider {
+    private static DataRepository override;
+
+    private RepositoryProvider() {
+    }
+
+    public static synchronized DataRepository get(Context context) {
+        if (override != null) {
+            return override;
+        }
+        return FirestoreManager.getInstance(context);
+    }
+
+    /**
+     * Replace the data layer for every screen that resolves it afterwards.
+     * Pass null to go back to Firestore.
+     */
+    public static synchronized void setOverride(DataRepository repository) {
+        override = repository;
+    }
+}
@@ -0,0 +1,98 @@
+package com.goldtea.sales.data.repository;
+
+import com.goldtea.sales.data.local.SalesFilter;
+import com.goldtea.sales.data.model.DailySummary;
+import com.goldtea.sales.data.model.Sale;
+import com.goldtea.sales.data.model.SalesTotals;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Sales data access used by Dashboard, View Sales and Reports.
+ * Implemented by FirestoreManager and by InMemoryRepository for offline benchmarking.
+ */
+public interface SalesRepository {
+
+    void getSalesPaginated(int limit, PageCursor after, OnSalesLoadedListener listener);
+
+    void getSalesPaginated(int limit, PageCursor after, OnSalesLoadedListener listener, boolean forceRefresh);
+
+    void getSalesByDateRange(Date startDate, Date endDate, OnSalesLoadedListener listener);
+
+    /**
+     * Per-day totals (count, amounts, tea type / packaging / payment / customer splits)
+     * for a range starting at the beginning of a day, oldest first
+     */
+    void getDailySummaries(Date startDate, Date endDate, OnDailySummariesLoadedListener listener);
+
+    /**
+     * Count and amount sums for a range, optionally for one payment status (null = all)
+     */
+    void getSalesTotals(Date startDate, Date endDate, String paymentStatus,
+                        OnSalesTotalsLoadedListener listener);
+
+    void addSale(Sale sale, OnSaleAddedListener listener);
+
+    void updateSale(Sale sale, OnSaleUpdatedListener listener);
+
+    void deleteSale(String saleId, OnSaleDeletedListener listener);
+
+    /**
+     * Search and filter sales without a network round trip, newest first
+     */
+    void searchSales(SalesFilter filter, OnSalesLoadedListener listener);
+
+    void invalidateSalesCache();
+
+    /**
+     * Recent round-trip time of a page query in milliseconds, for sizing prefetches
+     */
+    long getRoundTripMs();
+
+    /**
+     * Observe changes to the current sales window. Callbacks arrive on the main thread.
+     */
+    void addSalesChangedListener(OnSalesChangedListener listener);
+
+    void removeSalesChangedListener(OnSalesChangedListener listener);
+
+    interface OnSalesLoadedListener {
+        void onSalesLoaded(List<Sale> sales);
+        void onError(String error);
+    }
+
+    // next is the cursor for the following page, null when there are no more pages
+    interface OnSalesPaginatedListener extends OnSalesLoadedListener {
+        void onSalesLoaded(List<Sale> sales, PageCursor next);
+    }
+
+    interface OnSaleAddedListener {
+        void onSuccess();
+        void onError(String error);
+    }
+
+    interface OnSaleUpdatedListener {
+        void onSuccess();
+        void onError(String error);
+    }
+
+    interface OnSaleDeletedListener {
+        void onSuccess();
+        void onError(String error);
+    }
+
+    interface OnSalesChangedListener {
+        void onSalesChanged();
+    }
+
+    interface OnSalesTotalsLoadedListener {
+        void onSalesTotalsLoaded(SalesTotals totals);
+        void onError(String error);
+    }
+
+    interface OnDailySummariesLoadedListener {
+        void onDailySummariesLoaded(List<DailySummary> summaries);
+        void onError(String error);
+    }
+}
@@ -0,0 +1,36 @@
+package com.goldtea.sales.data.repository;
+
+import com.goldtea.sales.data.model.Village;
+
+import java.util.List;
+
+/**
+ * Village data access
+ */
+public interface VillageRepository {
+
+    void getAllVillages(OnVillagesLoadedListener listener);
+
+    void getAllVillages(OnVillagesLoadedListener listener, boolean forceRefresh);
+
+    void addVillage(Village village, OnVillageAddedListener listener);
+
+    void deleteVillage(String villageName, OnVillageDeletedListener listener);
+
+    void invalidateVillagesCache();
+
+    interface OnVillagesLoadedListener {
+        void onVillagesLoaded(List<Village> villages);
+        void onError(String error);
+    }
+
+    interface OnVillageAddedListener {
+        void onSuccess();
+        void onError(String error);
+    }
+
+    interface OnVillageDeletedListener {
+        void onSuccess();
+        void onError(String error);
+    }
+}
@@ -0,0 +1,120 @@
+package com.goldtea.sales.ui;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Scroll listener that asks for the next page before the user reaches the end of the list.
+ *
+ * The prefetch distance is the number of rows the user scrolls through while one page
+ * query is in flight (measured scroll speed x recent round-trip time), plus a margin,
+ * and never less than the configured threshold. When that many rows per round trip
+ * approach the page size, pages grow so fast scrolling does not outrun them.
+ */
+public class PagePrefetcher extends RecyclerView.OnScrollListener {
+
+    /**
+     * The screen's paging state and next-page request
+     */
+    public interface PageLoader {
+        boolean canLoadMore();
+
+        void loadMore(int pageSize);
+    }
+
+    /**
+     * Round-trip time of a page query, e.g. SalesRepository::getRoundTripMs
+     */
+    public interface RoundTripSource {
+        long getRoundTripMs();
+    }
+
+    private static final float SAFETY_FACTOR = 1.5f;
+    private static final int MAX_PAGE_FACTOR = 3;
+    private static final long MIN_SAMPLE_MS = 50;
+
+    private final int basePageSize;
+    private final RoundTripSource roundTrip;
+    private final PageLoader loader;
+    private int minPrefetchDistance;
+
+    private float rowsPerSecond = 0;
+    private int lastPosition = RecyclerView.NO_POSITION;
+    private long lastSampleAt = 0;
+
+    public PagePrefetcher(int basePageSize, RoundTripSource roundTrip, PageLoader loader) {
+        this.basePageSize = basePageSize;
+        this.roundTrip = roundTrip;
+        this.loader = loader;
+        this.minPrefetchDistance = Math.max(1, basePageSize / 3);
+    }
+
+    /**
+     * Rows left below the screen at which a prefetch starts, at the slowest scroll speed
+     */
+    public void setMinPrefetchDistance(int rows) {
+        minPrefetchDistance = Math.max(1, rows);
+    }
+
+    /**
+     * Page size for the next request, grown for fast scrolling on a slow network
+     */
+    public int pageSize() {
+        int needed = (int) Math.ceil(rowsPerRoundTrip() * 2);
+        return Math.max(basePageSize, Math.min(needed, basePageSize * MAX_PAGE_FACTOR));
+    }
+
+    int prefetchDistance() {
+        int distance = (int) Math.ceil(rowsPerRoundTrip() * SAFETY_FACTOR);
+        return Math.max(minPrefetchDistance, Math.min(distance, basePageSize * MAX_PAGE_FACTOR));
+    }
+
+    private float rowsPerRoundTrip() {
+        return rowsPerSecond * roundTrip.getRoundTripMs() / 1000f;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        super.onScrolled(recyclerView, dx, dy);
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) return;
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible == RecyclerView.NO_POSITION) return;
+
+        measureSpeed(lastVisible);
+
+        int remaining = layoutManager.getItemCount() - 1 - lastVisible;
+        if (dy >= 0 && remaining <= prefetchDistance() && loader.canLoadMore()) {
+            loader.loadMore(pageSize());
+        }
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        super.onScrollStateChanged(recyclerView, newState);
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            // A fresh gesture starts from rest
+            rowsPerSecond = 0;
+            lastPosition = RecyclerView.NO_POSITION;
+        }
+    }
+
+    private void measureSpeed(int position) {
+        long now = SystemClock.elapsedRealtime();
+        if (lastPosition == RecyclerView.NO_POSITION) {
+            lastPosition = position;
+            lastSampleAt = now;
+            return;
+        }
+        long elapsed = now - lastSampleAt;
+        if (elapsed < MIN_SAMPLE_MS) return;
+
+        float sample = Math.abs(position - lastPosition) * 1000f / elapsed;
+        rowsPerSecond = rowsPerSecond == 0 ? sample : rowsPerSecond * 0.7f + sample * 0.3f;
+        lastPosition = position;
+        lastSampleAt = now;
+    }
+}
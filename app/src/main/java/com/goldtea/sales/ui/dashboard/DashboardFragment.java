@@ -1,6 +1,7 @@
 package com.goldtea.sales.ui.dashboard;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -15,10 +16,11 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.goldtea.sales.R;
 import com.goldtea.sales.data.model.Sale;
-import com.goldtea.sales.data.firestore.FirestoreManager;
+import com.goldtea.sales.data.model.SalesTotals;
+import com.goldtea.sales.data.repository.RepositoryProvider;
+import com.goldtea.sales.data.repository.SalesRepository;
 import com.goldtea.sales.ui.viewsales.SalesAdapter;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -26,12 +28,15 @@ import java.util.List;
 import java.util.Locale;
 
 public class DashboardFragment extends Fragment {
+    private static final String TAG = "DashboardFragment";
     
     private TextView totalSalesText, todaySalesText, pendingPaymentsText, totalCountText;
     private RecyclerView recentSalesRecyclerView;
     private LinearLayout emptyStateLayout;
     private SalesAdapter salesAdapter;
-    private FirestoreManager FirestoreManager;
+    private SalesRepository salesRepository;
+    // Redraw whenever the live sales window changes
+    private final SalesRepository.OnSalesChangedListener salesChangedListener = this::loadDashboardData;
     
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
@@ -47,7 +52,7 @@ public class DashboardFragment extends Fragment {
     
     private void initializeViews(View view) {
         if (getContext() == null) return;
-        FirestoreManager = FirestoreManager.getInstance(getContext());
+        salesRepository = RepositoryProvider.get(getContext());
 
         totalSalesText = view.findViewById(R.id.totalSalesText);
         todaySalesText = view.findViewById(R.id.todaySalesText);
@@ -145,7 +150,7 @@ public class DashboardFragment extends Fragment {
             sale.setPayment_status("Pending");
         }
 
-        FirestoreManager.updateSale(sale, new FirestoreManager.OnSaleUpdatedListener() {
+        salesRepository.updateSale(sale, new SalesRepository.OnSaleUpdatedListener() {
             @Override
             public void onSuccess() {
                 if (!isAdded() || getContext() == null) return;
@@ -169,6 +174,13 @@ public class DashboardFragment extends Fragment {
         calendar.set(Calendar.SECOND, 0);
         calendar.set(Calendar.MILLISECOND, 0);
         Date monthStart = calendar.getTime();
+
+        calendar.setTime(new Date());
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        Date todayStart = calendar.getTime();
         
         // Use end of day for cache stability
         calendar.setTime(new Date());
@@ -178,11 +190,13 @@ public class DashboardFragment extends Fragment {
         calendar.set(Calendar.MILLISECOND, 999);
         Date endOfDay = calendar.getTime();
 
-        FirestoreManager.getSalesByDateRange(monthStart, endOfDay, new FirestoreManager.OnSalesLoadedListener() {
+        // Cards come from aggregates and can render before the rows arrive
+        loadSummaryCards(monthStart, todayStart, endOfDay);
+
+        salesRepository.getSalesByDateRange(monthStart, endOfDay, new SalesRepository.OnSalesLoadedListener() {
             @Override
             public void onSalesLoaded(List<Sale> sales) {
                 if (isAdded()) {
-                    calculateStatistics(sales);
                     displayRecentSales(sales);
                 }
             }
@@ -198,53 +212,54 @@ public class DashboardFragment extends Fragment {
         });
     }
     
-    private void calculateStatistics(List<Sale> sales) {
-        if (!isAdded()) return;
-
-        if (sales == null || sales.isEmpty()) {
-            emptyStateLayout.setVisibility(View.VISIBLE);
-            recentSalesRecyclerView.setVisibility(View.GONE);
-            return;
-        }
-
-        double totalSales = 0;
-        double todaySales = 0;
-        double pendingPayments = 0;
-        int totalCount = sales.size();
-
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
-        String today = dateFormat.format(new Date());
+    private void loadSummaryCards(Date monthStart, Date todayStart, Date endOfDay) {
+        salesRepository.getSalesTotals(monthStart, endOfDay, null, new SalesRepository.OnSalesTotalsLoadedListener() {
+            @Override
+            public void onSalesTotalsLoaded(SalesTotals totals) {
+                if (!isAdded()) return;
+                totalSalesText.setText(String.format(Locale.getDefault(), "₹ %.0f", totals.getTotal_amount()));
+                totalCountText.setText(String.valueOf(totals.getCount()));
+            }
 
-        for (Sale sale : sales) {
-            if (sale == null) continue;
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error loading month totals: " + error);
+            }
+        });
 
-            totalSales += sale.getTotal_amount();
+        salesRepository.getSalesTotals(todayStart, endOfDay, null, new SalesRepository.OnSalesTotalsLoadedListener() {
+            @Override
+            public void onSalesTotalsLoaded(SalesTotals totals) {
+                if (!isAdded()) return;
+                todaySalesText.setText(String.format(Locale.getDefault(), "₹ %.0f", totals.getTotal_amount()));
+            }
 
-            // Safely handle null dates
-            Date saleDate = sale.getDate();
-            if (saleDate != null) {
-                String saleDateStr = dateFormat.format(saleDate);
-                if (saleDateStr.equals(today)) {
-                    todaySales += sale.getTotal_amount();
-                }
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error loading today's totals: " + error);
             }
+        });
 
-            String paymentStatus = sale.getPayment_status();
-            if (paymentStatus != null && paymentStatus.equals("Pending")) {
-                pendingPayments += sale.getBalance();
+        salesRepository.getSalesTotals(monthStart, endOfDay, "Pending", new SalesRepository.OnSalesTotalsLoadedListener() {
+            @Override
+            public void onSalesTotalsLoaded(SalesTotals totals) {
+                if (!isAdded()) return;
+                pendingPaymentsText.setText(String.format(Locale.getDefault(), "₹ %.0f", totals.getBalance()));
             }
-        }
 
-        totalSalesText.setText(String.format(Locale.getDefault(), "₹ %.0f", totalSales));
-        todaySalesText.setText(String.format(Locale.getDefault(), "₹ %.0f", todaySales));
-        pendingPaymentsText.setText(String.format(Locale.getDefault(), "₹ %.0f", pendingPayments));
-        totalCountText.setText(String.valueOf(totalCount));
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error loading pending totals: " + error);
+            }
+        });
     }
     
     private void displayRecentSales(List<Sale> sales) {
         if (!isAdded()) return;
 
         if (sales == null || sales.isEmpty()) {
+            emptyStateLayout.setVisibility(View.VISIBLE);
+            recentSalesRecyclerView.setVisibility(View.GONE);
             return;
         }
 
@@ -265,5 +280,12 @@ public class DashboardFragment extends Fragment {
         super.onResume();
         // Reload data when fragment becomes visible again
         loadDashboardData();
+        salesRepository.addSalesChangedListener(salesChangedListener);
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        salesRepository.removeSalesChangedListener(salesChangedListener);
     }
 }
@@ -1,5 +1,6 @@
 package com.goldtea.sales.ui.newsale;
 
+import android.app.AlertDialog;
 import android.app.DatePickerDialog;
 import android.os.Bundle;
 import android.text.Editable;
@@ -11,8 +12,8 @@ import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
 import android.widget.AutoCompleteTextView;
 import android.widget.Filter;
-import android.widget.Filterable;
 import android.widget.RadioGroup;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -20,6 +21,7 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.goldtea.sales.R;
+import com.goldtea.sales.data.customer.CustomerSuggestionIndex;
 import com.goldtea.sales.data.model.Customer;
 import com.goldtea.sales.data.model.Pricing;
 import com.goldtea.sales.data.model.Sale;
@@ -59,6 +61,9 @@ public class NewSaleFragment extends Fragment {
     private List<Village> villages;
     private List<Customer> allCustomers;
     private String currentVillage;
+    // Set once the suggestion index has loaded; until then the village's customers are listed
+    private CustomerAutoCompleteAdapter customerAdapter;
+    private CustomerSuggestionIndex customerSuggestions;
     // Pricing map: key = "teaType_package" (e.g., "Mix_100gm"), value = rate
     private Map<String, Integer> pricingMap;
 
@@ -113,7 +118,11 @@ public class NewSaleFragment extends Fragment {
         villageAutoComplete.setOnItemClickListener((parent, v, position, id) -> {
             String selectedVillage = (String) parent.getItemAtPosition(position);
             currentVillage = selectedVillage;
-            loadCustomersForVillage(selectedVillage);
+            if (customerAdapter != null) {
+                customerAdapter.setVillage(selectedVillage);
+            } else {
+                loadCustomersForVillage(selectedVillage);
+            }
         });
 
         // Tea type selection - update pricing
@@ -255,6 +264,23 @@ public class NewSaleFragment extends Fragment {
             }
         });
 
+        // Ranked autocomplete once the index is ready
+        firestoreManager.getCustomerSuggestionIndex(new FirestoreManager.OnCustomerSuggestionIndexLoadedListener() {
+            @Override
+            public void onIndexLoaded(CustomerSuggestionIndex index) {
+                if (!isAdded() || getContext() == null) return;
+                customerSuggestions = index;
+                customerAdapter = new CustomerAutoCompleteAdapter(getContext(), index, currentVillage);
+                customerAutoComplete.setAdapter(customerAdapter);
+            }
+
+            @Override
+            public void onError(String error) {
+                if (!isAdded() || getContext() == null) return;
+                Log.e("NewSaleFragment", "Error loading customer suggestions: " + error);
+            }
+        });
+
         // Setup tea type dropdown with fixed values
         if (isAdded() && getContext() != null) {
             ArrayAdapter<String> teaTypeAdapter = new ArrayAdapter<>(getContext(),
@@ -267,7 +293,7 @@ public class NewSaleFragment extends Fragment {
         firestoreManager.getCustomersByVillage(village, new FirestoreManager.OnCustomersLoadedListener() {
             @Override
             public void onCustomersLoaded(List<Customer> customers) {
-                if (!isAdded() || getContext() == null) return;
+                if (!isAdded() || getContext() == null || customerAdapter != null) return;
 
                 // Extract customer names
                 List<String> customerNames = new ArrayList<>();
@@ -288,7 +314,7 @@ public class NewSaleFragment extends Fragment {
 
             @Override
             public void onError(String error) {
-                if (!isAdded() || getContext() == null) return;
+                if (!isAdded() || getContext() == null || customerAdapter != null) return;
                 Log.e("NewSaleFragment", "Error loading customers: " + error);
                 // Setup empty adapter, user can still type new name
                 customerAutoComplete.setAdapter(new ArrayAdapter<>(getContext(),
@@ -462,6 +488,42 @@ public class NewSaleFragment extends Fragment {
             return;
         }
 
+        // Warn before a misspelling of a known customer becomes a new customer
+        if (customerSuggestions != null) {
+            String village = villageAutoComplete.getText().toString().trim();
+            String customerName = customerAutoComplete.getText().toString().trim();
+            List<CustomerSuggestionIndex.Match> matches = customerSuggestions.possibleDuplicates(village, customerName, 3);
+            if (!matches.isEmpty()) {
+                showPossibleDuplicateDialog(customerName, matches);
+                return;
+            }
+        }
+
+        persistSale();
+    }
+
+    private void showPossibleDuplicateDialog(String customerName, List<CustomerSuggestionIndex.Match> matches) {
+        String[] options = new String[matches.size() + 1];
+        for (int i = 0; i < matches.size(); i++) {
+            options[i] = matches.get(i).getSuggestion().getName();
+        }
+        options[matches.size()] = "Save as new customer \"" + customerName + "\"";
+
+        new AlertDialog.Builder(getContext())
+                .setTitle("Did you mean an existing customer?")
+                .setItems(options, (dialog, which) -> {
+                    if (which < matches.size()) {
+                        customerAutoComplete.setText(matches.get(which).getSuggestion().getName(), false);
+                    }
+                    persistSale();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void persistSale() {
+        if (!isAdded() || getContext() == null) return;
+
         try {
             Sale sale = new Sale();
             sale.setDate(selectedDate.getTime());
@@ -538,81 +600,85 @@ public class NewSaleFragment extends Fragment {
         selectedDate = Calendar.getInstance();
         dateEditText.setText(dateFormat.format(selectedDate.getTime()));
         currentVillage = null;
+        if (customerAdapter != null) customerAdapter.setVillage(null);
     }
 
     /**
-     * Custom adapter for customer autocomplete that filters both village-specific
-     * and all customers as user types
+     * Customer autocomplete backed by the suggestion index: names with a word starting with
+     * the typed text, then names spelled like it, customers of the selected village first, then by how often and how
+     * recently they bought. Customers of other villages show their village.
      */
-    private static class CustomerAutoCompleteAdapter extends ArrayAdapter<String> implements Filterable {
-        private List<String> villageCustomers;
-        private List<Customer> allCustomers;
-        private String village;
-        private List<String> filteredSuggestions;
-
-        public CustomerAutoCompleteAdapter(android.content.Context context, List<String> villageCustomers,
-                                           List<Customer> allCustomers, String village) {
+    private static class CustomerAutoCompleteAdapter extends ArrayAdapter<CustomerSuggestionIndex.Suggestion> {
+        private static final int MAX_SUGGESTIONS = 8;
+
+        private final CustomerSuggestionIndex index;
+        private final List<CustomerSuggestionIndex.Suggestion> suggestions = new ArrayList<>();
+        // Read on the filter thread
+        private volatile String village;
+
+        CustomerAutoCompleteAdapter(android.content.Context context, CustomerSuggestionIndex index, String village) {
             super(context, android.R.layout.simple_dropdown_item_1line);
-            this.villageCustomers = villageCustomers;
-            this.allCustomers = allCustomers;
+            this.index = index;
+            this.village = village;
+        }
+
+        void setVillage(String village) {
             this.village = village;
-            this.filteredSuggestions = new ArrayList<>(villageCustomers);
         }
 
         @Override
         public int getCount() {
-            return filteredSuggestions.size();
+            return suggestions.size();
         }
 
         @Override
-        public String getItem(int position) {
-            return filteredSuggestions.get(position);
+        public CustomerSuggestionIndex.Suggestion getItem(int position) {
+            return suggestions.get(position);
         }
 
+        @NonNull
+        @Override
+        public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
+            TextView view = (TextView) super.getView(position, convertView, parent);
+            CustomerSuggestionIndex.Suggestion suggestion = getItem(position);
+            String selected = village;
+            boolean local = selected != null && suggestion.getVillage().equalsIgnoreCase(selected.trim());
+            view.setText(local ? suggestion.getName() : suggestion.getName() + " (" + suggestion.getVillage() + ")");
+            return view;
+        }
+
+        @NonNull
         @Override
         public Filter getFilter() {
             return new Filter() {
                 @Override
                 protected FilterResults performFiltering(CharSequence constraint) {
                     FilterResults results = new FilterResults();
-                    List<String> suggestions = new ArrayList<>();
-
-                    if (constraint != null && constraint.length() > 0) {
-                        String filterPattern = constraint.toString().toLowerCase().trim();
-
-                        // First add matching customers from current village
-                        for (String name : villageCustomers) {
-                            if (name.toLowerCase().contains(filterPattern)) {
-                                suggestions.add(name);
-                            }
-                        }
-
-                        // Then add matching customers from other villages (marked with village name)
-                        for (Customer customer : allCustomers) {
-                            if (!customer.getVillage().equals(village) &&
-                                customer.getCustomer_name().toLowerCase().contains(filterPattern)) {
-                                String displayName = customer.getCustomer_name() + " (" + customer.getVillage() + ")";
-                                if (!suggestions.contains(displayName) && !suggestions.contains(customer.getCustomer_name())) {
-                                    suggestions.add(displayName);
-                                }
-                            }
-                        }
-                    } else {
-                        suggestions.addAll(villageCustomers);
-                    }
-
-                    results.values = suggestions;
-                    results.count = suggestions.size();
+                    List<CustomerSuggestionIndex.Suggestion> found = constraint != null
+                            ? index.complete(constraint.toString(), village, MAX_SUGGESTIONS)
+                            : new ArrayList<>();
+                    results.values = found;
+                    results.count = found.size();
                     return results;
                 }
 
                 @Override
+                public CharSequence convertResultToString(Object resultValue) {
+                    return ((CustomerSuggestionIndex.Suggestion) resultValue).getName();
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
                 protected void publishResults(CharSequence constraint, FilterResults results) {
-                    filteredSuggestions.clear();
+                    suggestions.clear();
                     if (results.values != null) {
-                        filteredSuggestions.addAll((List<String>) results.values);
+                        suggestions.addAll((List<CustomerSuggestionIndex.Suggestion>) results.values);
+                    }
+                    if (results.count > 0) {
+                        notifyDataSetChanged();
+                    } else {
+                        notifyDataSetInvalidated();
                     }
-                    notifyDataSetChanged();
                 }
             };
         }
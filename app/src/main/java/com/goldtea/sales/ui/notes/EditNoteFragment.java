@@ -104,7 +104,7 @@ public class EditNoteFragment extends Fragment {
 
     private void updateDateDisplay(Date date) {
         SimpleDateFormat sdf = new SimpleDateFormat("dd MMM yyyy HH:mm", Locale.getDefault());
-        dateText.setText(sdf.format(date));
+        dateText.setText(sdf.format(date != null ? date : new Date()));
     }
 
     private void setupListeners() {
@@ -13,6 +13,7 @@ import com.goldtea.sales.data.model.Note;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
@@ -113,7 +114,8 @@ public class NotesAdapter extends RecyclerView.Adapter<NotesAdapter.NoteViewHold
 
         void bind(Note note) {
             titleText.setText(note.getTitle());
-            dateText.setText(dateFormat.format(note.getUpdated_at() != null ? note.getUpdated_at() : note.getCreated_at()));
+            Date shown = note.getUpdated_at() != null ? note.getUpdated_at() : note.getCreated_at();
+            dateText.setText(dateFormat.format(shown != null ? shown : new Date()));
             
             String content = note.getContent();
             if (content != null && !content.isEmpty()) {
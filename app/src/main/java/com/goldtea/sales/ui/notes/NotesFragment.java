@@ -17,8 +17,10 @@ import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.goldtea.sales.R;
+import com.goldtea.sales.ui.PagePrefetcher;
 import com.goldtea.sales.data.firestore.FirestoreManager;
 import com.goldtea.sales.data.model.Note;
+import com.goldtea.sales.data.repository.PageCursor;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.textfield.TextInputEditText;
 
@@ -38,7 +40,7 @@ public class NotesFragment extends Fragment implements NotesAdapter.OnNoteClickL
     // Pagination variables
     private boolean isLoading = false;
     private boolean isLastPage = false;
-    private com.google.firebase.firestore.DocumentSnapshot lastVisibleSnapshot = null;
+    private PageCursor nextPageCursor = null;
     private static final int PAGE_SIZE = 30;
 
     @Nullable
@@ -75,29 +77,24 @@ public class NotesFragment extends Fragment implements NotesAdapter.OnNoteClickL
         notesRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         notesRecyclerView.setAdapter(notesAdapter);
 
-        // Infinite scroll listener
-        notesRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
-            @Override
-            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
-                super.onScrolled(recyclerView, dx, dy);
-                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
-                if (layoutManager != null && !isLoading && !isLastPage) {
-                    int visibleItemCount = layoutManager.getChildCount();
-                    int totalItemCount = layoutManager.getItemCount();
-                    int firstVisibleItemPosition = layoutManager.findFirstVisibleItemPosition();
-
-                    if ((visibleItemCount + firstVisibleItemPosition) >= totalItemCount
-                            && firstVisibleItemPosition >= 0
-                            && totalItemCount >= PAGE_SIZE) {
-                        loadMoreNotes();
+        // Infinite scroll: the next page is fetched before the end of the list is reached
+        notesRecyclerView.addOnScrollListener(new PagePrefetcher(PAGE_SIZE,
+                () -> firestoreManager.getRoundTripMs(),
+                new PagePrefetcher.PageLoader() {
+                    @Override
+                    public boolean canLoadMore() {
+                        return !isLoading && !isLastPage && nextPageCursor != null;
                     }
-                }
-            }
-        });
+
+                    @Override
+                    public void loadMore(int pageSize) {
+                        loadMoreNotes(pageSize);
+                    }
+                }));
     }
 
     private void resetPagination() {
-        lastVisibleSnapshot = null;
+        nextPageCursor = null;
         isLastPage = false;
         notesAdapter.clear();
     }
@@ -151,14 +148,14 @@ public class NotesFragment extends Fragment implements NotesAdapter.OnNoteClickL
         
         firestoreManager.getNotesPaginated(PAGE_SIZE, null, new FirestoreManager.OnNotesPaginatedListener() {
             @Override
-            public void onNotesLoaded(List<Note> notes, com.google.firebase.firestore.DocumentSnapshot lastVisible) {
+            public void onNotesLoaded(List<Note> notes, PageCursor next) {
                 if (!isAdded()) return;
                 isLoading = false;
                 swipeRefreshLayout.setRefreshing(false);
                 
                 notesAdapter.setNotes(notes);
-                lastVisibleSnapshot = lastVisible;
-                isLastPage = notes.size() < PAGE_SIZE;
+                nextPageCursor = next;
+                isLastPage = next == null;
                 
                 updateEmptyState(notes.isEmpty());
                 noteCountText.setText(notes.size() + " notes");
@@ -179,19 +176,19 @@ public class NotesFragment extends Fragment implements NotesAdapter.OnNoteClickL
         }, isRefresh);
     }
 
-    private void loadMoreNotes() {
+    private void loadMoreNotes(int pageSize) {
         if (isLoading || isLastPage || !isAdded()) return;
         isLoading = true;
 
-        firestoreManager.getNotesPaginated(PAGE_SIZE, lastVisibleSnapshot, new FirestoreManager.OnNotesPaginatedListener() {
+        firestoreManager.getNotesPaginated(pageSize, nextPageCursor, new FirestoreManager.OnNotesPaginatedListener() {
             @Override
-            public void onNotesLoaded(List<Note> notes, com.google.firebase.firestore.DocumentSnapshot lastVisible) {
+            public void onNotesLoaded(List<Note> notes, PageCursor next) {
                 if (!isAdded()) return;
                 isLoading = false;
                 
                 notesAdapter.addNotes(notes);
-                lastVisibleSnapshot = lastVisible;
-                isLastPage = notes.size() < PAGE_SIZE;
+                nextPageCursor = next;
+                isLastPage = next == null;
                 
                 // Update count based on full adapter list
                 noteCountText.setText(notesAdapter.getItemCount() + " notes");
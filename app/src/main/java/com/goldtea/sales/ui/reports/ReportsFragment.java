@@ -26,8 +26,10 @@ import com.github.mikephil.charting.data.PieEntry;
 import com.github.mikephil.charting.formatter.ValueFormatter;
 import com.github.mikephil.charting.utils.ColorTemplate;
 import com.goldtea.sales.R;
-import com.goldtea.sales.data.firestore.FirestoreManager;
-import com.goldtea.sales.data.model.Sale;
+import com.goldtea.sales.data.repository.RepositoryProvider;
+import com.goldtea.sales.data.repository.SalesRepository;
+import com.goldtea.sales.data.model.DailySummary;
+import com.goldtea.sales.data.model.SalesTotals;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 
@@ -35,7 +37,6 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -56,9 +57,9 @@ public class ReportsFragment extends Fragment {
     private TextView noCustomersText;
 
     // Data
-    private FirestoreManager firestoreManager;
-    private List<Sale> allSales = new ArrayList<>();
-    private List<Sale> filteredSales = new ArrayList<>();
+    private SalesRepository salesRepository;
+    private List<DailySummary> dailySummaries = new ArrayList<>();
+    private DailySummary periodTotal = new DailySummary();
     private TopCustomerAdapter topCustomerAdapter;
 
     // Filter period
@@ -90,7 +91,7 @@ public class ReportsFragment extends Fragment {
 
     private void initializeViews(View view) {
         if (getContext() == null) return;
-        firestoreManager = FirestoreManager.getInstance(getContext());
+        salesRepository = RepositoryProvider.get(getContext());
 
         // Filter
         filterChipGroup = view.findViewById(R.id.filterChipGroup);
@@ -185,13 +186,32 @@ public class ReportsFragment extends Fragment {
         
         updateDateRangeText(startDate, endDate);
 
-        firestoreManager.getSalesByDateRange(startDate, endDate, new FirestoreManager.OnSalesLoadedListener() {
+        // Summary cards need only an aggregate, so they don't wait for the charts
+        salesRepository.getSalesTotals(startDate, endDate, null, new SalesRepository.OnSalesTotalsLoadedListener() {
             @Override
-            public void onSalesLoaded(List<Sale> sales) {
+            public void onSalesTotalsLoaded(SalesTotals totals) {
                 if (!isAdded()) return;
-                
-                allSales = sales;
-                filteredSales = new ArrayList<>(sales); // In this optimized mode, they are the same
+                updateSummaryCards(totals);
+            }
+
+            @Override
+            public void onError(String error) {
+                if (!isAdded()) return;
+                updateSummaryCards(new SalesTotals());
+            }
+        });
+
+        // One rollup per day instead of every sale in the period
+        salesRepository.getDailySummaries(startDate, endDate, new SalesRepository.OnDailySummariesLoadedListener() {
+            @Override
+            public void onDailySummariesLoaded(List<DailySummary> summaries) {
+                if (!isAdded()) return;
+
+                dailySummaries = summaries;
+                periodTotal = new DailySummary();
+                for (DailySummary summary : summaries) {
+                    periodTotal.add(summary);
+                }
                 updateUI();
             }
 
@@ -204,10 +224,6 @@ public class ReportsFragment extends Fragment {
         });
     }
 
-    private void filterSales() {
-        // No longer needed as loadData fetches exactly what we need
-    }
-
     private Date getStartDate(Period period) {
         Calendar calendar = Calendar.getInstance();
         calendar.set(Calendar.HOUR_OF_DAY, 0);
@@ -242,24 +258,17 @@ public class ReportsFragment extends Fragment {
     private void updateUI() {
         if (!isAdded()) return; // Fragment not attached, skip update
         
-        updateSummaryCards();
         updateTeaTypeChart();
         updateSalesTrendChart();
         updatePaymentStatusChart();
         updateTopCustomers();
     }
 
-    private void updateSummaryCards() {
-        int salesCount = filteredSales.size();
-        double revenue = 0;
-        double collected = 0;
-        double pending = 0;
-
-        for (Sale sale : filteredSales) {
-            revenue += sale.getTotal_amount();
-            collected += sale.getAmount_paid();
-            pending += sale.getBalance(); // Use balance field directly
-        }
+    private void updateSummaryCards(SalesTotals totals) {
+        long salesCount = totals.getCount();
+        double revenue = totals.getTotal_amount();
+        double collected = totals.getAmount_paid();
+        double pending = totals.getBalance();
 
         totalSalesCount.setText(String.valueOf(salesCount));
         totalRevenue.setText(String.format(Locale.getDefault(), "₹%.0f", revenue));
@@ -270,17 +279,11 @@ public class ReportsFragment extends Fragment {
     private void updateTeaTypeChart() {
         if (!isAdded()) return;
 
-        Map<String, Integer> teaTypeCounts = new HashMap<>();
-
-        for (Sale sale : filteredSales) {
-            String teaType = sale.getTea_type();
-            if (teaType == null || teaType.isEmpty()) teaType = "Unknown";
-            teaTypeCounts.put(teaType, teaTypeCounts.getOrDefault(teaType, 0) + 1);
-        }
-
         List<PieEntry> entries = new ArrayList<>();
-        for (Map.Entry<String, Integer> entry : teaTypeCounts.entrySet()) {
-            entries.add(new PieEntry(entry.getValue(), entry.getKey()));
+        for (Map.Entry<String, DailySummary.Bucket> entry : periodTotal.getTea_types().entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                entries.add(new PieEntry(entry.getValue().getCount(), entry.getKey()));
+            }
         }
 
         if (entries.isEmpty()) {
@@ -309,22 +312,15 @@ public class ReportsFragment extends Fragment {
     private void updateSalesTrendChart() {
         if (!isAdded()) return;
 
-        Map<String, Float> dailySales = new HashMap<>();
         SimpleDateFormat sdf = new SimpleDateFormat("dd MMM", Locale.getDefault());
 
-        for (Sale sale : filteredSales) {
-            Date saleDate = sale.getDate();
-            if (saleDate != null) {
-                String dateKey = sdf.format(saleDate);
-                dailySales.put(dateKey, dailySales.getOrDefault(dateKey, 0f) + (float) sale.getTotal_amount());
-            }
-        }
-
+        // Summaries arrive oldest first, one per day
         List<BarEntry> entries = new ArrayList<>();
-        final List<String> labels = new ArrayList<>(dailySales.keySet());
-        
-        for (int i = 0; i < labels.size(); i++) {
-            entries.add(new BarEntry(i, dailySales.get(labels.get(i))));
+        final List<String> labels = new ArrayList<>();
+        for (DailySummary summary : dailySummaries) {
+            if (summary.getCount() <= 0 || summary.getDate() == null) continue;
+            entries.add(new BarEntry(labels.size(), (float) summary.getTotal_amount()));
+            labels.add(sdf.format(summary.getDate()));
         }
 
         if (entries.isEmpty()) {
@@ -356,13 +352,8 @@ public class ReportsFragment extends Fragment {
     private void updatePaymentStatusChart() {
         if (!isAdded()) return;
 
-        double totalPaid = 0;
-        double totalPending = 0;
-
-        for (Sale sale : filteredSales) {
-            totalPaid += sale.getAmount_paid();
-            totalPending += sale.getBalance();
-        }
+        double totalPaid = periodTotal.getAmount_paid();
+        double totalPending = periodTotal.getBalance();
 
         List<PieEntry> entries = new ArrayList<>();
         List<Integer> colors = new ArrayList<>();
@@ -401,28 +392,17 @@ public class ReportsFragment extends Fragment {
     private void updateTopCustomers() {
         if (!isAdded()) return;
 
-        Map<String, TopCustomerAdapter.CustomerStats> customerMap = new HashMap<>();
-
-        for (Sale sale : filteredSales) {
-            String customerName = sale.getCustomer_name() != null ? sale.getCustomer_name() : "Unknown";
-            String village = sale.getVillage() != null ? sale.getVillage() : "Unknown";
-            String key = customerName + "|" + village;
-            
-            if (customerMap.containsKey(key)) {
-                TopCustomerAdapter.CustomerStats stats = customerMap.get(key);
-                stats.totalAmount += sale.getTotal_amount();
-                stats.salesCount++;
-            } else {
-                customerMap.put(key, new TopCustomerAdapter.CustomerStats(
-                    customerName,
-                    village,
-                    sale.getTotal_amount(),
-                    1
-                ));
-            }
+        List<TopCustomerAdapter.CustomerStats> customerList = new ArrayList<>();
+        for (Map.Entry<String, DailySummary.Bucket> entry : periodTotal.getCustomers().entrySet()) {
+            DailySummary.Bucket bucket = entry.getValue();
+            if (bucket.getCount() <= 0) continue;
+            customerList.add(new TopCustomerAdapter.CustomerStats(
+                DailySummary.customerNameOf(entry.getKey()),
+                DailySummary.villageOf(entry.getKey()),
+                bucket.getTotal_amount(),
+                (int) bucket.getCount()
+            ));
         }
-
-        List<TopCustomerAdapter.CustomerStats> customerList = new ArrayList<>(customerMap.values());
         customerList.sort((c1, c2) -> Double.compare(c2.totalAmount, c1.totalAmount));
 
         // Get top 5
@@ -3,6 +3,7 @@ package com.goldtea.sales.ui.settings;
 import android.app.AlertDialog;
 import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.text.InputType;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -21,13 +22,23 @@ import com.goldtea.sales.R;
 import com.goldtea.sales.data.model.Pricing;
 import com.goldtea.sales.data.model.Village;
 import com.goldtea.sales.data.firestore.FirestoreManager;
+import com.goldtea.sales.data.firestore.FirestoreMetrics;
+import com.goldtea.sales.data.firestore.ReadBudget;
+import com.goldtea.sales.data.firestore.SyncStateTracker;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.materialswitch.MaterialSwitch;
 import com.google.android.material.textfield.TextInputEditText;
 
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class SettingsFragment extends Fragment {
 
@@ -42,7 +53,11 @@ public class SettingsFragment extends Fragment {
     private MaterialButton savePricingButton;
     private View connectionStatusIndicator;
     private TextView connectionStatusText;
+    private TextView syncStateText;
     private MaterialSwitch darkModeSwitch;
+    private TextView metricsSummaryText;
+    private TextView readBudgetText;
+    private MaterialSwitch cacheOnlySwitch;
 
     private FirestoreManager firestoreManager;
     private VillageAdapter villageAdapter;
@@ -81,7 +96,11 @@ public class SettingsFragment extends Fragment {
         savePricingButton = view.findViewById(R.id.savePricingButton);
         connectionStatusIndicator = view.findViewById(R.id.connectionStatusIndicator);
         connectionStatusText = view.findViewById(R.id.connectionStatusText);
+        syncStateText = view.findViewById(R.id.syncStateText);
         darkModeSwitch = view.findViewById(R.id.darkModeSwitch);
+        metricsSummaryText = view.findViewById(R.id.metricsSummaryText);
+        readBudgetText = view.findViewById(R.id.readBudgetText);
+        cacheOnlySwitch = view.findViewById(R.id.cacheOnlySwitch);
 
         // Set up dark mode switch
         setupDarkModeSwitch();
@@ -126,11 +145,91 @@ public class SettingsFragment extends Fragment {
         
         // Save Pricing
         savePricingButton.setOnClickListener(v -> savePricing());
+
+        // Diagnostics
+        view.findViewById(R.id.exportMetricsButton).setOnClickListener(v -> exportMetrics());
+        view.findViewById(R.id.setReadBudgetButton).setOnClickListener(v -> showReadBudgetDialog());
+        ReadBudget readBudget = firestoreManager.getReadBudget();
+        cacheOnlySwitch.setChecked(readBudget.getMode() == ReadBudget.Mode.CACHE_ONLY);
+        cacheOnlySwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                readBudget.setMode(isChecked ? ReadBudget.Mode.CACHE_ONLY : ReadBudget.Mode.WARN));
     }
     
     private void loadData() {
         loadVillages();
         loadPricing();
+        updateMetricsSummary();
+        updateReadBudget();
+    }
+
+    private void updateMetricsSummary() {
+        long calls = 0;
+        long hits = 0;
+        long decoded = 0;
+        for (FirestoreMetrics.OperationStats stats : firestoreManager.getMetrics().snapshot().values()) {
+            calls += stats.getHits() + stats.getMisses();
+            hits += stats.getHits();
+            decoded += stats.getDocumentsDecoded();
+        }
+        if (calls == 0) return;
+        metricsSummaryText.setText(String.format(Locale.getDefault(),
+                "%d requests, %.0f%% from memory, %d documents decoded",
+                calls, hits * 100.0 / calls, decoded));
+    }
+
+    private void exportMetrics() {
+        if (getContext() == null) return;
+        String name = "firestore-metrics-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date()) + ".txt";
+        File file = new File(new File(getContext().getExternalFilesDir(null), "metrics"), name);
+        try {
+            firestoreManager.getMetrics().dumpTo(file);
+            Toast.makeText(getContext(), "Metrics saved to " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Toast.makeText(getContext(), "Error saving metrics: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+        updateMetricsSummary();
+    }
+
+    private void updateReadBudget() {
+        ReadBudget readBudget = firestoreManager.getReadBudget();
+        StringBuilder text = new StringBuilder(String.format(Locale.getDefault(),
+                "Reads today: %d of %d", readBudget.getReadsToday(), readBudget.getDailyBudget()));
+        // Top three screen / operation pairs
+        List<Map.Entry<String, Long>> top = readBudget.getReadsTodayByOperation().entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(3)
+                .collect(Collectors.toList());
+        for (Map.Entry<String, Long> entry : top) {
+            text.append('\n').append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        readBudgetText.setText(text);
+    }
+
+    private void showReadBudgetDialog() {
+        if (!isAdded() || getContext() == null) return;
+        ReadBudget readBudget = firestoreManager.getReadBudget();
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(getContext());
+        builder.setTitle("Daily Read Budget");
+
+        final EditText input = new EditText(getContext());
+        input.setInputType(InputType.TYPE_CLASS_NUMBER);
+        input.setText(String.valueOf(readBudget.getDailyBudget()));
+        builder.setView(input);
+
+        builder.setPositiveButton("Save", (dialog, which) -> {
+            try {
+                readBudget.setDailyBudget(Long.parseLong(input.getText().toString().trim()));
+                updateReadBudget();
+            } catch (NumberFormatException e) {
+                if (getContext() != null) {
+                    Toast.makeText(getContext(), "Please enter a number", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+
+        builder.setNegativeButton("Cancel", (dialog, which) -> dialog.cancel());
+        builder.show();
     }
     
     private void loadVillages() {
@@ -192,6 +291,7 @@ public class SettingsFragment extends Fragment {
         TextInputEditText[] mixEditTexts = {mixPrice100gmEditText, mixPrice250gmEditText, mixPrice500gmEditText, mixPrice1kgEditText};
         TextInputEditText[] barikEditTexts = {barikPrice100gmEditText, barikPrice250gmEditText, barikPrice500gmEditText, barikPrice1kgEditText};
         TextInputEditText[][] allEditTexts = {mixEditTexts, barikEditTexts};
+        List<Pricing> pricingList = new ArrayList<>();
 
         for (int t = 0; t < teaTypes.length; t++) {
             String teaType = teaTypes[t];
@@ -206,18 +306,7 @@ public class SettingsFragment extends Fragment {
                         pricing.setPackage(packages[i]);
                         pricing.setTea_type(teaType);
                         pricing.setRate(price);
-
-                        firestoreManager.updatePricing(pricing, new FirestoreManager.OnPricingUpdatedListener() {
-                            @Override
-                            public void onSuccess() {
-                                // Background update and cleanup handled by FirestoreManager
-                            }
-
-                            @Override
-                            public void onError(String error) {
-                                // Silently fail - will retry when online
-                            }
-                        });
+                        pricingList.add(pricing);
                     } catch (NumberFormatException e) {
                         if (getContext() != null) {
                             Toast.makeText(getContext(), "Invalid price for " + teaType + " " + packages[i], Toast.LENGTH_SHORT).show();
@@ -228,6 +317,21 @@ public class SettingsFragment extends Fragment {
             }
         }
 
+        if (pricingList.isEmpty()) return;
+
+        // All prices go out as one batch
+        firestoreManager.updatePricing(pricingList, new FirestoreManager.OnPricingUpdatedListener() {
+            @Override
+            public void onSuccess() {
+                // Background update and cleanup handled by FirestoreManager
+            }
+
+            @Override
+            public void onError(String error) {
+                // Silently fail - will retry when online
+            }
+        });
+
         if (getContext() != null) {
             Toast.makeText(getContext(), "Pricing saved!", Toast.LENGTH_SHORT).show();
         }
@@ -308,6 +412,28 @@ public class SettingsFragment extends Fragment {
                 getActivity().runOnUiThread(() -> updateConnectionStatus(isOnline));
             }
         });
+        firestoreManager.getSyncState().addOnSyncStateChangedListener(syncStateListener);
+        updateSyncState(firestoreManager.getSyncState());
+    }
+
+    private final SyncStateTracker.OnSyncStateChangedListener syncStateListener = this::updateSyncState;
+
+    private void updateSyncState(SyncStateTracker syncState) {
+        if (!isAdded() || syncStateText == null) return;
+        int pending = syncState.getPendingCount();
+        int failed = syncState.getFailedCount();
+        String text;
+        if (pending == 0) {
+            text = "All changes synced";
+        } else {
+            long minutes = syncState.getOldestPendingAgeMs() / 60000;
+            String age = minutes < 1 ? "just now" : minutes < 60 ? minutes + " min ago" : (minutes / 60) + " h ago";
+            text = pending + (pending == 1 ? " change" : " changes") + " waiting to sync, oldest " + age;
+        }
+        if (failed > 0) {
+            text += "\n" + failed + " rejected by the server";
+        }
+        syncStateText.setText(text);
     }
 
     private void updateConnectionStatus(boolean isOnline) {
@@ -328,5 +454,6 @@ public class SettingsFragment extends Fragment {
         super.onDestroyView();
         // Remove listener to prevent memory leaks and callbacks after fragment is destroyed
         firestoreManager.setOnConnectionStatusChangedListener(null);
+        firestoreManager.getSyncState().removeOnSyncStateChangedListener(syncStateListener);
     }
 }
@@ -100,6 +100,16 @@ public class SalesAdapter extends RecyclerView.Adapter<SalesAdapter.SaleViewHold
 
         notifyDataSetChanged();
     }
+
+    /**
+     * Show externally filtered results (e.g. from the local mirror) without
+     * discarding the loaded pages, so clearing the filter restores them.
+     */
+    public void showFiltered(List<Sale> results) {
+        salesFiltered.clear();
+        salesFiltered.addAll(results);
+        notifyDataSetChanged();
+    }
     
     class SaleViewHolder extends RecyclerView.ViewHolder {
         TextView customerNameText, paymentStatusText, villageText, dateText;
@@ -19,8 +19,12 @@ import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.goldtea.sales.R;
+import com.goldtea.sales.ui.PagePrefetcher;
 import com.goldtea.sales.data.model.Sale;
-import com.goldtea.sales.data.firestore.FirestoreManager;
+import com.goldtea.sales.data.local.SalesFilter;
+import com.goldtea.sales.data.repository.PageCursor;
+import com.goldtea.sales.data.repository.RepositoryProvider;
+import com.goldtea.sales.data.repository.SalesRepository;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.textfield.TextInputEditText;
@@ -37,14 +41,15 @@ public class ViewSalesFragment extends Fragment implements SalesAdapter.OnSaleCl
     private ChipGroup filterChipGroup;
     private LinearLayout emptyStateLayout;
     
-    private FirestoreManager FirestoreManager;
+    private SalesRepository salesRepository;
     private String currentPaymentFilter = "All";
 
     // Pagination variables
     private boolean isLoading = false;
     private boolean isLastPage = false;
-    private com.google.firebase.firestore.DocumentSnapshot lastVisibleSnapshot = null;
+    private PageCursor nextPageCursor = null;
     private static final int PAGE_SIZE = 50;
+    private static final int SEARCH_LIMIT = 500;
     
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -60,7 +65,7 @@ public class ViewSalesFragment extends Fragment implements SalesAdapter.OnSaleCl
     
     private void initializeViews(View view) {
         if (getContext() == null) return;
-        FirestoreManager = FirestoreManager.getInstance(getContext());
+        salesRepository = RepositoryProvider.get(getContext());
 
         salesRecyclerView = view.findViewById(R.id.salesRecyclerView);
         swipeRefreshLayout = view.findViewById(R.id.swipeRefreshLayout);
@@ -112,29 +117,24 @@ public class ViewSalesFragment extends Fragment implements SalesAdapter.OnSaleCl
             loadSales(true);
         });
 
-        // Infinite scroll listener
-        salesRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
-            @Override
-            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
-                super.onScrolled(recyclerView, dx, dy);
-                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
-                if (layoutManager != null && !isLoading && !isLastPage) {
-                    int visibleItemCount = layoutManager.getChildCount();
-                    int totalItemCount = layoutManager.getItemCount();
-                    int firstVisibleItemPosition = layoutManager.findFirstVisibleItemPosition();
-
-                    if ((visibleItemCount + firstVisibleItemPosition) >= totalItemCount
-                            && firstVisibleItemPosition >= 0
-                            && totalItemCount >= PAGE_SIZE) {
-                        loadMoreSales();
+        // Infinite scroll: the next page is fetched before the end of the list is reached
+        salesRecyclerView.addOnScrollListener(new PagePrefetcher(PAGE_SIZE,
+                () -> salesRepository.getRoundTripMs(),
+                new PagePrefetcher.PageLoader() {
+                    @Override
+                    public boolean canLoadMore() {
+                        return !isLoading && !isLastPage && nextPageCursor != null && !isFiltering();
                     }
-                }
-            }
-        });
+
+                    @Override
+                    public void loadMore(int pageSize) {
+                        loadMoreSales(pageSize);
+                    }
+                }));
     }
 
     private void resetPagination() {
-        lastVisibleSnapshot = null;
+        nextPageCursor = null;
         isLastPage = false;
         salesAdapter.clear();
     }
@@ -148,16 +148,16 @@ public class ViewSalesFragment extends Fragment implements SalesAdapter.OnSaleCl
         isLoading = true;
         if (isRefresh) swipeRefreshLayout.setRefreshing(true);
 
-        FirestoreManager.getSalesPaginated(PAGE_SIZE, null, new FirestoreManager.OnSalesPaginatedListener() {
+        salesRepository.getSalesPaginated(PAGE_SIZE, null, new SalesRepository.OnSalesPaginatedListener() {
             @Override
-            public void onSalesLoaded(List<Sale> sales, com.google.firebase.firestore.DocumentSnapshot lastVisible) {
+            public void onSalesLoaded(List<Sale> sales, PageCursor next) {
                 if (!isAdded()) return;
                 isLoading = false;
                 swipeRefreshLayout.setRefreshing(false);
                 
                 salesAdapter.setSales(sales);
-                lastVisibleSnapshot = lastVisible;
-                isLastPage = sales.size() < PAGE_SIZE;
+                nextPageCursor = next;
+                isLastPage = next == null;
                 
                 updateEmptyState(sales.isEmpty());
                 filterSales(); // Apply any existing search/filter
@@ -178,19 +178,19 @@ public class ViewSalesFragment extends Fragment implements SalesAdapter.OnSaleCl
         }, isRefresh); // Pass the refresh flag here
     }
 
-    private void loadMoreSales() {
+    private void loadMoreSales(int pageSize) {
         if (isLoading || isLastPage || !isAdded()) return;
         isLoading = true;
 
-        FirestoreManager.getSalesPaginated(PAGE_SIZE, lastVisibleSnapshot, new FirestoreManager.OnSalesPaginatedListener() {
+        salesRepository.getSalesPaginated(pageSize, nextPageCursor, new SalesRepository.OnSalesPaginatedListener() {
             @Override
-            public void onSalesLoaded(List<Sale> sales, com.google.firebase.firestore.DocumentSnapshot lastVisible) {
+            public void onSalesLoaded(List<Sale> sales, PageCursor next) {
                 if (!isAdded()) return;
                 isLoading = false;
                 
                 salesAdapter.addSales(sales);
-                lastVisibleSnapshot = lastVisible;
-                isLastPage = sales.size() < PAGE_SIZE;
+                nextPageCursor = next;
+                isLastPage = next == null;
                 
                 filterSales(); // Re-apply filters to newly added items
             }
@@ -209,9 +209,38 @@ public class ViewSalesFragment extends Fragment implements SalesAdapter.OnSaleCl
         });
     }
     
+    private boolean isFiltering() {
+        return !searchEditText.getText().toString().trim().isEmpty() || !currentPaymentFilter.equals("All");
+    }
+
     private void filterSales() {
         String query = searchEditText.getText().toString();
+        // Instant pass over the loaded pages
         salesAdapter.filter(query, currentPaymentFilter);
+        if (!isFiltering()) return;
+
+        // Then search every mirrored sale, not just the pages scrolled so far
+        final String requestedQuery = query;
+        final String requestedStatus = currentPaymentFilter;
+        SalesFilter filter = new SalesFilter()
+                .setSearchText(query.trim())
+                .setPaymentStatus(requestedStatus.equals("All") ? null : requestedStatus)
+                .setLimit(SEARCH_LIMIT);
+        salesRepository.searchSales(filter, new SalesRepository.OnSalesLoadedListener() {
+            @Override
+            public void onSalesLoaded(List<Sale> sales) {
+                if (!isAdded()) return;
+                // Ignore results for a query the user has already changed
+                if (!requestedQuery.equals(searchEditText.getText().toString())
+                        || !requestedStatus.equals(currentPaymentFilter)) return;
+                salesAdapter.showFiltered(sales);
+            }
+
+            @Override
+            public void onError(String error) {
+                // Keep the in-memory filter result
+            }
+        });
     }
     
     private void updateEmptyState(boolean isEmpty) {
@@ -305,7 +334,7 @@ public class ViewSalesFragment extends Fragment implements SalesAdapter.OnSaleCl
             sale.setPayment_status("Pending");
         }
 
-        FirestoreManager.updateSale(sale, new FirestoreManager.OnSaleUpdatedListener() {
+        salesRepository.updateSale(sale, new SalesRepository.OnSaleUpdatedListener() {
             @Override
             public void onSuccess() {
                 if (!isAdded() || getContext() == null) return;
@@ -341,7 +370,7 @@ public class ViewSalesFragment extends Fragment implements SalesAdapter.OnSaleCl
     private void deleteSale(Sale sale) {
         if (!isAdded()) return;
 
-        FirestoreManager.deleteSale(sale.getSale_id(), new FirestoreManager.OnSaleDeletedListener() {
+        salesRepository.deleteSale(sale.getSale_id(), new SalesRepository.OnSaleDeletedListener() {
             @Override
             public void onSuccess() {
                 if (!isAdded() || getContext() == null) return;
@@ -0,0 +1,121 @@
+package com.goldtea.sales.data.customer;
+
+import com.goldtea.sales.data.model.Customer;
+import com.goldtea.sales.data.model.Sale;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Autocomplete lookups through the prefix trie and their ranking by village and
+ * purchase history.
+ */
+public class CustomerSuggestionIndexTest {
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private static Customer customer(String village, String name) {
+        Customer customer = new Customer();
+        customer.setVillage(village);
+        customer.setCustomer_name(name);
+        return customer;
+    }
+
+    private static Sale sale(String village, String name, long daysAgo) {
+        Sale sale = new Sale();
+        sale.setVillage(village);
+        sale.setCustomer_name(name);
+        sale.setDate(new Date(System.currentTimeMillis() - daysAgo * DAY_MS));
+        return sale;
+    }
+
+    private static List<String> names(List<CustomerSuggestionIndex.Suggestion> suggestions) {
+        List<String> names = new ArrayList<>();
+        for (CustomerSuggestionIndex.Suggestion suggestion : suggestions) {
+            names.add(suggestion.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void everyWordStartsAKey() {
+        CustomerSuggestionIndex index = CustomerSuggestionIndex.build(
+                Arrays.asList(customer("Hosur", "Ravi Kumar"), customer("Hosur", "Suresh")),
+                Collections.emptyList());
+
+        assertEquals(Collections.singletonList("Ravi Kumar"), names(index.suggest("ra", null, 10)));
+        assertEquals(Collections.singletonList("Ravi Kumar"), names(index.suggest("ravi k", null, 10)));
+        assertEquals(Collections.singletonList("Ravi Kumar"), names(index.suggest("KU", null, 10)));
+        // Only word starts are keys
+        assertTrue(index.suggest("avi", null, 10).isEmpty());
+        assertTrue(index.suggest("", null, 10).isEmpty());
+    }
+
+    @Test
+    public void nameWithTwoMatchingWordsIsSuggestedOnce() {
+        CustomerSuggestionIndex index = CustomerSuggestionIndex.build(
+                Collections.singletonList(customer("Hosur", "Ram Ramesh")), Collections.emptyList());
+
+        assertEquals(Collections.singletonList("Ram Ramesh"), names(index.suggest("ram", null, 10)));
+    }
+
+    @Test
+    public void moreAndMoreRecentPurchasesRankFirst() {
+        CustomerSuggestionIndex index = CustomerSuggestionIndex.build(
+                Arrays.asList(customer("Hosur", "Ravi"), customer("Hosur", "Raju"),
+                        customer("Hosur", "Ramu"), customer("Hosur", "Rani")),
+                Arrays.asList(
+                        sale("Hosur", "Raju", 5), sale("Hosur", "Raju", 5), sale("Hosur", "Raju", 5),
+                        // Same count as Rani, but bought a quarter ago
+                        sale("Hosur", "Ramu", 90),
+                        sale("Hosur", "Rani", 1)));
+
+        assertEquals(Arrays.asList("Raju", "Rani", "Ramu", "Ravi"), names(index.suggest("ra", null, 10)));
+        assertEquals(Arrays.asList("Raju", "Rani"), names(index.suggest("ra", null, 2)));
+    }
+
+    @Test
+    public void ownVillageComesFirst() {
+        CustomerSuggestionIndex index = CustomerSuggestionIndex.build(
+                Arrays.asList(customer("Hosur", "Ravi"), customer("Denkanikottai", "Raju")),
+                Arrays.asList(sale("Denkanikottai", "Raju", 1), sale("Denkanikottai", "Raju", 2)));
+
+        assertEquals(Arrays.asList("Ravi", "Raju"), names(index.suggest("ra", "hosur", 10)));
+        assertEquals(Arrays.asList("Raju", "Ravi"), names(index.suggest("ra", null, 10)));
+    }
+
+    @Test
+    public void equalScoresSortByName() {
+        CustomerSuggestionIndex index = CustomerSuggestionIndex.build(
+                Arrays.asList(customer("Hosur", "ramesh"), customer("Hosur", "Rajesh"), customer("Hosur", "Ramya")),
+                Collections.emptyList());
+
+        assertEquals(Arrays.asList("Rajesh", "ramesh", "Ramya"), names(index.suggest("r", null, 10)));
+    }
+
+    @Test
+    public void purchasesAreCountedFromLiveSalesOnly() {
+        Sale deleted = sale("Hosur", "Ravi", 1);
+        deleted.setDeleted(true);
+        CustomerSuggestionIndex index = CustomerSuggestionIndex.build(
+                Collections.singletonList(customer("Hosur", "Ravi")),
+                Arrays.asList(deleted, sale("Hosur", "Ravi", 3), sale("Hosur", "Suma", 2)));
+
+        List<CustomerSuggestionIndex.Suggestion> ravi = index.suggest("ravi", null, 10);
+        assertEquals(1, ravi.get(0).getPurchases());
+        // Customers known only from sales are indexed too
+        assertEquals(2, index.size());
+
+        index.recordPurchase("hosur", "ravi", new Date());
+        assertEquals(2, index.suggest("ravi", null, 10).get(0).getPurchases());
+        assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,123 @@
+package com.goldtea.sales.data.customer;
+
+import com.goldtea.sales.data.model.Customer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Phonetic keys, trigrams and edit distance used to match misspelled customer names,
+ * and the fuzzy lookups of the suggestion index built on them.
+ */
+public class NameSimilarityTest {
+
+    private static String key(String name) {
+        return NameSimilarity.phoneticKey(CustomerSuggestionIndex.normalize(name));
+    }
+
+    private static Customer customer(String village, String name) {
+        Customer customer = new Customer();
+        customer.setVillage(village);
+        customer.setCustomer_name(name);
+        return customer;
+    }
+
+    @Test
+    public void spellingVariantsShareAKey() {
+        assertEquals("laksmi", key("Laxmi"));
+        assertEquals(key("Laxmi"), key("Lakshmi"));
+        assertEquals("siv", key("Shiva"));
+        assertEquals(key("Shiva"), key("Siva"));
+        assertEquals("git", key("Geeta"));
+        assertEquals(key("Geeta"), key("Gita"));
+        assertEquals(key("Bhim"), key("Bim"));
+        assertEquals(key("Sreenivas"), key("Srinivas"));
+        assertEquals(key("Vinay"), key("Winay"));
+    }
+
+    @Test
+    public void finalAIsDroppedFromWordsOfFourLettersOrMore() {
+        assertEquals("ram", key("Rama"));
+        assertEquals(key("Rama"), key("Ram"));
+        assertEquals("uma", key("Uma"));
+        assertEquals("sit ram", key("Sita Rama"));
+        assertEquals("ra uma", key("Ra Uma"));
+    }
+
+    @Test
+    public void trigramsArePaddedAtTheEndOnlyWhenComplete() {
+        assertEquals(Arrays.asList(" ra", "ram", "am "), List.copyOf(NameSimilarity.trigrams("ram", true)));
+        assertEquals(Arrays.asList(" ra", "ram"), List.copyOf(NameSimilarity.trigrams("ram", false)));
+    }
+
+    @Test
+    public void adjacentTranspositionIsOneEdit() {
+        assertEquals(0, NameSimilarity.distance("ravi", "ravi", 3));
+        assertEquals(1, NameSimilarity.distance("ravi", "rvai", 3));
+        assertEquals(1, NameSimilarity.distance("suresh", "surseh", 3));
+        assertEquals(1, NameSimilarity.distance("ravi", "rav", 3));
+        assertEquals(3, NameSimilarity.distance("kitten", "sitting", 5));
+    }
+
+    @Test
+    public void distanceStopsPastTheLimit() {
+        // Length difference alone exceeds the limit
+        assertEquals(3, NameSimilarity.distance("ab", "abcdef", 2));
+        // Every cell of a row exceeds the limit
+        assertEquals(2, NameSimilarity.distance("aaaa", "bbbb", 1));
+        assertEquals(3, NameSimilarity.distance("kitten", "sitting", 2));
+    }
+
+    @Test
+    public void similarityIsZeroBelowTheMinimum() {
+        assertEquals(1, NameSimilarity.similarity("siv", "siv", 0.75), 0);
+        assertEquals(1, NameSimilarity.similarity("", "", 0.75), 0);
+        assertEquals(0.8, NameSimilarity.similarity("rames", "ranes", 0.75), 1e-9);
+        assertEquals(0, NameSimilarity.similarity("ravi", "gopal", 0.75), 0);
+    }
+
+    @Test
+    public void indexFindsMisspelledNames() {
+        CustomerSuggestionIndex index = CustomerSuggestionIndex.build(
+                Arrays.asList(customer("Hosur", "Laxmi"), customer("Hosur", "Gopal"),
+                        customer("Denkanikottai", "Shiva Kumar")),
+                Collections.emptyList());
+
+        List<CustomerSuggestionIndex.Match> matches = index.similar("Lakshmi", null, 5);
+        assertEquals(1, matches.size());
+        assertEquals("Laxmi", matches.get(0).getSuggestion().getName());
+        assertEquals(1, matches.get(0).getSimilarity(), 0);
+
+        assertEquals("Shiva Kumar", index.similar("Siva Kumaar", null, 5).get(0).getSuggestion().getName());
+        assertTrue(index.similar("Venkatesh", null, 5).isEmpty());
+    }
+
+    @Test
+    public void completionIsToppedUpWithSimilarPrefixes() {
+        CustomerSuggestionIndex index = CustomerSuggestionIndex.build(
+                Collections.singletonList(customer("Hosur", "Laxmi")), Collections.emptyList());
+
+        assertTrue(index.suggest("laksh", null, 5).isEmpty());
+        assertEquals("Laxmi", index.complete("laksh", null, 5).get(0).getName());
+        // Prefixes under four letters only match exactly
+        assertTrue(index.complete("lak", null, 5).isEmpty());
+    }
+
+    @Test
+    public void duplicatesAreLookedForInTheSameVillage() {
+        CustomerSuggestionIndex index = CustomerSuggestionIndex.build(
+                Arrays.asList(customer("Hosur", "Srinivas"), customer("Denkanikottai", "Geeta")),
+                Collections.emptyList());
+
+        assertEquals("Srinivas", index.possibleDuplicates("Hosur", "Sreenivas", 5).get(0).getSuggestion().getName());
+        assertTrue(index.possibleDuplicates("Hosur", "Gita", 5).isEmpty());
+        // A name already known in the village is not a duplicate of itself
+        assertTrue(index.possibleDuplicates("hosur", "srinivas", 5).isEmpty());
+    }
+}
@@ -0,0 +1,331 @@
+package com.goldtea.sales.data.firestore;
+
+import com.goldtea.sales.data.model.Customer;
+import com.goldtea.sales.data.model.DailySummary;
+import com.goldtea.sales.data.model.Note;
+import com.goldtea.sales.data.model.Pricing;
+import com.goldtea.sales.data.model.Sale;
+import com.goldtea.sales.data.model.Village;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.util.CustomClassMapper;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The codecs against the reflective path they replaced. {@code toObject()} is
+ * {@link CustomClassMapper#convertToCustomClass} over the snapshot's data, so both
+ * paths are fed the same field map, with timestamps as Firestore returns them.
+ */
+public class DocumentCodecsTest {
+
+    private static final double DELTA = 1e-9;
+    private static final Date DAY = new Date(1760745600000L);
+    private static final Date CREATED = new Date(1760749200000L);
+    private static final Date UPDATED = new Date(1760752800000L);
+
+    /**
+     * A document as DocumentSnapshot's typed getters read it
+     */
+    private static final class MapFields implements DocumentCodecs.Fields {
+        private final String id;
+        private final Map<String, Object> data;
+
+        MapFields(String id, Map<String, Object> data) {
+            this.id = id;
+            this.data = data;
+        }
+
+        @Override
+        public String getId() { return id; }
+
+        @Override
+        public Object get(String field) { return data.get(field); }
+
+        @Override
+        public String getString(String field) { return (String) data.get(field); }
+
+        @Override
+        public Double getDouble(String field) {
+            Number value = (Number) data.get(field);
+            return value != null ? value.doubleValue() : null;
+        }
+
+        @Override
+        public Long getLong(String field) {
+            Number value = (Number) data.get(field);
+            return value != null ? value.longValue() : null;
+        }
+
+        @Override
+        public Boolean getBoolean(String field) { return (Boolean) data.get(field); }
+
+        @Override
+        public Date getDate(String field) {
+            Timestamp value = (Timestamp) data.get(field);
+            return value != null ? value.toDate() : null;
+        }
+    }
+
+    private static <T> T toObject(Map<String, Object> data, Class<T> type) {
+        return CustomClassMapper.convertToCustomClass(data, type, null);
+    }
+
+    private static Map<String, Object> saleData() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("date", new Timestamp(DAY));
+        data.put("day", "Saturday");
+        data.put("village", "Hosur");
+        data.put("customer_name", "Ravi Kumar");
+        data.put("brand", "GOLD");
+        data.put("tea_type", "Mix");
+        data.put("packaging", "250gm");
+        // Whole numbers come back from Firestore as Long, fractions as Double
+        data.put("rate", 60L);
+        data.put("quantity", 2.5);
+        data.put("total_amount", 150L);
+        data.put("payment_status", "Pending");
+        data.put("amount_paid", 100.0);
+        data.put("balance", 50L);
+        data.put("created_at", new Timestamp(CREATED));
+        data.put("updated_at", new Timestamp(UPDATED));
+        data.put("deleted", false);
+        return data;
+    }
+
+    private static Sale oldSale(String id, Map<String, Object> data) {
+        Sale sale = toObject(data, Sale.class);
+        sale.setSale_id(id);
+        return sale;
+    }
+
+    private static void assertSameSale(Sale expected, Sale actual) {
+        assertEquals(expected.getSale_id(), actual.getSale_id());
+        assertEquals(expected.getDate(), actual.getDate());
+        assertEquals(expected.getDay(), actual.getDay());
+        assertEquals(expected.getVillage(), actual.getVillage());
+        assertEquals(expected.getCustomer_name(), actual.getCustomer_name());
+        assertEquals(expected.getBrand(), actual.getBrand());
+        assertEquals(expected.getTea_type(), actual.getTea_type());
+        assertEquals(expected.getPackaging(), actual.getPackaging());
+        assertEquals(expected.getRate(), actual.getRate(), DELTA);
+        assertEquals(expected.getQuantity(), actual.getQuantity(), DELTA);
+        assertEquals(expected.getTotal_amount(), actual.getTotal_amount(), DELTA);
+        assertEquals(expected.getPayment_status(), actual.getPayment_status());
+        assertEquals(expected.getAmount_paid(), actual.getAmount_paid(), DELTA);
+        assertEquals(expected.getBalance(), actual.getBalance(), DELTA);
+        assertEquals(expected.isDeleted(), actual.isDeleted());
+    }
+
+    @Test
+    public void saleMatchesToObject() {
+        Map<String, Object> data = saleData();
+        Sale decoded = DocumentCodecs.decodeSale(new MapFields("sale-1", data));
+
+        assertSameSale(oldSale("sale-1", data), decoded);
+        assertEquals(CREATED, decoded.getCreated_at());
+        assertEquals(UPDATED, decoded.getUpdated_at());
+        assertEquals(60.0, decoded.getRate(), DELTA);
+        assertEquals(150.0, decoded.getTotal_amount(), DELTA);
+    }
+
+    @Test
+    public void saleMissingFieldsKeepDefaults() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("customer_name", "Ravi Kumar");
+        Sale decoded = DocumentCodecs.decodeSale(new MapFields("sale-2", data));
+
+        assertSameSale(oldSale("sale-2", data), decoded);
+        assertNull(decoded.getDate());
+        assertEquals(0, decoded.getRate(), DELTA);
+        assertFalse(decoded.isDeleted());
+        // Unlike toObject(), which leaves the constructor's "now"
+        assertNull(decoded.getCreated_at());
+        assertNull(decoded.getUpdated_at());
+    }
+
+    @Test
+    public void saleNullFieldsMatchToObject() {
+        Map<String, Object> data = saleData();
+        data.put("date", null);
+        data.put("village", null);
+        data.put("payment_status", null);
+        Sale decoded = DocumentCodecs.decodeSale(new MapFields("sale-3", data));
+
+        assertSameSale(oldSale("sale-3", data), decoded);
+        assertNull(decoded.getDate());
+        assertNull(decoded.getVillage());
+    }
+
+    @Test
+    public void saleNullNumbersDecodeAsZero() {
+        Map<String, Object> data = saleData();
+        data.put("rate", null);
+        data.put("balance", null);
+        data.put("deleted", null);
+        Sale decoded = DocumentCodecs.decodeSale(new MapFields("sale-4", data));
+
+        assertEquals(0, decoded.getRate(), DELTA);
+        assertEquals(0, decoded.getBalance(), DELTA);
+        assertFalse(decoded.isDeleted());
+    }
+
+    @Test
+    public void pricingRateAcceptsLongAndDouble() {
+        for (Object rate : new Object[]{120L, 120.0}) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("package", "250gm");
+            data.put("tea_type", "Barik");
+            data.put("rate", rate);
+            data.put("updated_on", new Timestamp(UPDATED));
+
+            Pricing expected = toObject(data, Pricing.class);
+            Pricing decoded = DocumentCodecs.decodePricing(new MapFields("Barik_250gm", data));
+            assertEquals(expected.getPackage(), decoded.getPackage());
+            assertEquals(expected.getTea_type(), decoded.getTea_type());
+            assertEquals(expected.getRate(), decoded.getRate());
+            assertEquals(expected.getUpdated_on(), decoded.getUpdated_on());
+            assertEquals("Barik_250gm", decoded.getPricingKey());
+        }
+    }
+
+    @Test
+    public void villageAndCustomerMatchToObject() {
+        Map<String, Object> village = new HashMap<>();
+        village.put("name", "Hosur");
+        village.put("day", "Monday");
+        village.put("added_on", new Timestamp(CREATED));
+        Village expectedVillage = toObject(village, Village.class);
+        Village decodedVillage = DocumentCodecs.decodeVillage(new MapFields("Hosur", village));
+        assertEquals(expectedVillage.getName(), decodedVillage.getName());
+        assertEquals(expectedVillage.getDay(), decodedVillage.getDay());
+        assertEquals(expectedVillage.getAdded_on(), decodedVillage.getAdded_on());
+
+        Map<String, Object> customer = new HashMap<>();
+        customer.put("village", "Hosur");
+        customer.put("customer_name", "Ravi Kumar");
+        Customer expectedCustomer = toObject(customer, Customer.class);
+        Customer decodedCustomer = DocumentCodecs.decodeCustomer(new MapFields("Hosur_Ravi_Kumar", customer));
+        assertEquals(expectedCustomer.getVillage(), decodedCustomer.getVillage());
+        assertEquals(expectedCustomer.getCustomer_name(), decodedCustomer.getCustomer_name());
+        // Missing added_on keeps the constructor's value on both paths
+        assertNotNull(decodedCustomer.getAdded_on());
+    }
+
+    @Test
+    public void noteMatchesToObject() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("note_id", "note-1");
+        data.put("title", "Stock");
+        data.put("content", null);
+        data.put("created_at", new Timestamp(CREATED));
+        data.put("updated_at", new Timestamp(UPDATED));
+
+        Note expected = toObject(data, Note.class);
+        Note decoded = DocumentCodecs.decodeNote(new MapFields("note-1", data));
+        assertEquals(expected.getNote_id(), decoded.getNote_id());
+        assertEquals(expected.getTitle(), decoded.getTitle());
+        assertNull(decoded.getContent());
+        assertEquals(expected.getCreated_at(), decoded.getCreated_at());
+        assertEquals(expected.getUpdated_at(), decoded.getUpdated_at());
+
+        // Without a note_id field the document ID is used, not a new random one
+        data.remove("note_id");
+        assertEquals("note-1", DocumentCodecs.decodeNote(new MapFields("note-1", data)).getNote_id());
+
+        // Missing timestamps stay null
+        data.remove("created_at");
+        data.remove("updated_at");
+        Note undated = DocumentCodecs.decodeNote(new MapFields("note-1", data));
+        assertNull(undated.getCreated_at());
+        assertNull(undated.getUpdated_at());
+    }
+
+    @Test
+    public void dailySummaryMatchesToObject() {
+        Map<String, Object> bucket = new HashMap<>();
+        bucket.put("count", 3L);
+        bucket.put("total_amount", 450L);
+        Map<String, Object> teaTypes = new HashMap<>();
+        teaTypes.put("Mix", bucket);
+        Map<String, Object> data = new HashMap<>();
+        data.put("day", "2025-10-18");
+        data.put("date", new Timestamp(DAY));
+        data.put("count", 3L);
+        data.put("total_amount", 450.0);
+        data.put("amount_paid", 400L);
+        data.put("balance", 50.0);
+        data.put("tea_types", teaTypes);
+
+        DailySummary expected = toObject(data, DailySummary.class);
+        DailySummary decoded = DocumentCodecs.decodeDailySummary(new MapFields("2025-10-18", data));
+        assertEquals(expected.getDay(), decoded.getDay());
+        assertEquals(expected.getDate(), decoded.getDate());
+        assertEquals(expected.getCount(), decoded.getCount());
+        assertEquals(expected.getTotal_amount(), decoded.getTotal_amount(), DELTA);
+        assertEquals(expected.getAmount_paid(), decoded.getAmount_paid(), DELTA);
+        assertEquals(expected.getBalance(), decoded.getBalance(), DELTA);
+        DailySummary.Bucket mix = decoded.getTea_types().get("Mix");
+        assertEquals(expected.getTea_types().get("Mix").getCount(), mix.getCount());
+        assertEquals(expected.getTea_types().get("Mix").getTotal_amount(), mix.getTotal_amount(), DELTA);
+        // Missing maps decode empty on both paths
+        assertEquals(expected.getCustomers(), decoded.getCustomers());
+    }
+
+    /**
+     * Best of several timed rounds of both paths over a range-sized batch; the codec
+     * must be faster than the reflective mapping it replaced
+     */
+    @Test
+    public void benchmarkSaleDecoding() {
+        int count = 20000;
+        List<MapFields> docs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> data = saleData();
+            data.put("customer_name", "Customer " + i);
+            data.put("quantity", (double) (i % 7) + 0.5);
+            docs.add(new MapFields("sale-" + i, data));
+        }
+
+        // Warm up both paths before timing
+        for (int round = 0; round < 3; round++) {
+            for (MapFields doc : docs) {
+                oldSale(doc.id, doc.data);
+                DocumentCodecs.decodeSale(doc);
+            }
+        }
+
+        long reflective = Long.MAX_VALUE;
+        long codec = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (MapFields doc : docs) {
+                oldSale(doc.id, doc.data);
+            }
+            reflective = Math.min(reflective, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (MapFields doc : docs) {
+                DocumentCodecs.decodeSale(doc);
+            }
+            codec = Math.min(codec, System.nanoTime() - start);
+        }
+
+        String timing = String.format(Locale.ROOT, "Decoding %d sales: toObject %.1f ms, codec %.1f ms",
+                count, reflective / 1e6, codec / 1e6);
+        assertTrue(timing, codec < reflective);
+        assertSameSale(oldSale(docs.get(0).id, docs.get(0).data), DocumentCodecs.decodeSale(docs.get(0)));
+    }
+}
@@ -0,0 +1,298 @@
+package com.goldtea.sales.data.repository;
+
+import com.goldtea.sales.data.model.Note;
+import com.goldtea.sales.data.model.Sale;
+import com.goldtea.sales.data.model.SalesTotals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The seeded fake backend installed through RepositoryProvider, read the way the screens
+ * read it. Callbacks run inline so every answer is available when the call returns.
+ */
+public class InMemoryRepositoryTest {
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final int SALE_COUNT = 100_000;
+
+    private InMemoryRepository fake;
+    private DataRepository repository;
+
+    @Before
+    public void setUp() {
+        fake = new InMemoryRepository(Runnable::run);
+        fake.seedSyntheticData(SALE_COUNT, 90, 42L);
+        RepositoryProvider.setOverride(fake);
+        repository = RepositoryProvider.get(null);
+    }
+
+    @After
+    public void tearDown() {
+        RepositoryProvider.setOverride(null);
+    }
+
+    private List<Sale> readRange(Date start, Date end) {
+        List<List<Sale>> answer = new ArrayList<>();
+        repository.getSalesByDateRange(start, end, new SalesRepository.OnSalesLoadedListener() {
+            @Override
+            public void onSalesLoaded(List<Sale> sales) {
+                answer.add(sales);
+            }
+
+            @Override
+            public void onError(String error) {
+                fail(error);
+            }
+        });
+        assertEquals(1, answer.size());
+        return answer.get(0);
+    }
+
+    private static void assertNewestFirst(List<Sale> sales) {
+        for (int i = 1; i < sales.size(); i++) {
+            assertFalse(sales.get(i).getDate().after(sales.get(i - 1).getDate()));
+        }
+    }
+
+    @Test
+    public void overrideIsServed() {
+        assertSame(fake, repository);
+    }
+
+    @Test
+    public void firstPageIsNewestSales() {
+        List<Sale> all = readRange(new Date(0), new Date(Long.MAX_VALUE));
+        assertEquals(SALE_COUNT, all.size());
+
+        List<Sale> page = new ArrayList<>();
+        repository.getSalesPaginated(20, null, new SalesRepository.OnSalesLoadedListener() {
+            @Override
+            public void onSalesLoaded(List<Sale> sales) {
+                page.addAll(sales);
+            }
+
+            @Override
+            public void onError(String error) {
+                fail(error);
+            }
+        });
+
+        assertEquals(20, page.size());
+        assertNewestFirst(page);
+        assertEquals(all.subList(0, 20), page);
+    }
+
+    @Test
+    public void pagesWalkEverySaleOnce() {
+        List<Sale> all = readRange(new Date(0), new Date(Long.MAX_VALUE));
+        List<Sale> walked = new ArrayList<>();
+        PageCursor[] cursor = {null};
+        int pages = 0;
+        do {
+            List<Sale> page = new ArrayList<>();
+            repository.getSalesPaginated(1000, cursor[0], new SalesRepository.OnSalesPaginatedListener() {
+                @Override
+                public void onSalesLoaded(List<Sale> sales, PageCursor next) {
+                    page.addAll(sales);
+                    cursor[0] = next;
+                }
+
+                @Override
+                public void onSalesLoaded(List<Sale> sales) {
+                    fail("Paginated listener expected");
+                }
+
+                @Override
+                public void onError(String error) {
+                    fail(error);
+                }
+            });
+            assertTrue(page.size() <= 1000);
+            walked.addAll(page);
+            pages++;
+        } while (cursor[0] != null);
+
+        assertEquals(SALE_COUNT, walked.size());
+        assertEquals(all, walked);
+        // A full last page is followed by one empty page
+        assertEquals(SALE_COUNT / 1000 + 1, pages);
+    }
+
+    @Test
+    public void cursorSurvivesNewerSales() {
+        List<PageCursor> cursor = new ArrayList<>();
+        List<Sale> first = new ArrayList<>();
+        repository.getSalesPaginated(20, null, new SalesRepository.OnSalesPaginatedListener() {
+            @Override
+            public void onSalesLoaded(List<Sale> sales, PageCursor next) {
+                first.addAll(sales);
+                cursor.add(next);
+            }
+
+            @Override
+            public void onSalesLoaded(List<Sale> sales) {
+                fail("Paginated listener expected");
+            }
+
+            @Override
+            public void onError(String error) {
+                fail(error);
+            }
+        });
+
+        Sale added = new Sale();
+        added.setDate(new Date());
+        repository.addSale(added, new SalesRepository.OnSaleAddedListener() {
+            @Override
+            public void onSuccess() {
+            }
+
+            @Override
+            public void onError(String error) {
+                fail(error);
+            }
+        });
+
+        List<Sale> all = readRange(new Date(0), new Date(Long.MAX_VALUE));
+        List<Sale> second = new ArrayList<>();
+        repository.getSalesPaginated(20, cursor.get(0), new SalesRepository.OnSalesLoadedListener() {
+            @Override
+            public void onSalesLoaded(List<Sale> sales) {
+                second.addAll(sales);
+            }
+
+            @Override
+            public void onError(String error) {
+                fail(error);
+            }
+        });
+        // The second page starts right after the first, not shifted by the new sale
+        assertEquals(all.subList(21, 41), second);
+    }
+
+    @Test
+    public void notesPageByLastUpdate() {
+        for (int i = 0; i < 25; i++) {
+            Note note = new Note("Note " + i, "");
+            repository.addNote(note, null);
+        }
+
+        List<Note> walked = new ArrayList<>();
+        PageCursor[] cursor = {null};
+        do {
+            repository.getNotesPaginated(10, cursor[0], new NoteRepository.OnNotesPaginatedListener() {
+                @Override
+                public void onNotesLoaded(List<Note> notes, PageCursor next) {
+                    walked.addAll(notes);
+                    cursor[0] = next;
+                }
+
+                @Override
+                public void onNotesLoaded(List<Note> notes) {
+                    fail("Paginated listener expected");
+                }
+
+                @Override
+                public void onError(String error) {
+                    fail(error);
+                }
+            });
+        } while (cursor[0] != null);
+
+        assertEquals(25, walked.size());
+        for (int i = 1; i < walked.size(); i++) {
+            assertFalse(walked.get(i).getUpdated_at().after(walked.get(i - 1).getUpdated_at()));
+            assertFalse(walked.subList(0, i).contains(walked.get(i)));
+        }
+    }
+
+    @Test
+    public void rangeReturnsExactlyTheSalesInside() {
+        Date end = new Date(System.currentTimeMillis() - 10 * DAY_MS);
+        Date start = new Date(end.getTime() - 7 * DAY_MS);
+        List<Sale> inRange = readRange(start, end);
+
+        int expected = 0;
+        for (Sale sale : readRange(new Date(0), new Date(Long.MAX_VALUE))) {
+            if (!sale.getDate().before(start) && !sale.getDate().after(end)) expected++;
+        }
+        assertTrue(expected > 0);
+        assertEquals(expected, inRange.size());
+        assertNewestFirst(inRange);
+        for (Sale sale : inRange) {
+            assertFalse(sale.getDate().before(start));
+            assertFalse(sale.getDate().after(end));
+        }
+        assertTrue(readRange(end, start).isEmpty());
+    }
+
+    @Test
+    public void totalsMatchTheRange() {
+        Date end = new Date();
+        Date start = new Date(end.getTime() - 30 * DAY_MS);
+        List<Sale> inRange = readRange(start, end);
+
+        double total = 0;
+        double balance = 0;
+        for (Sale sale : inRange) {
+            total += sale.getTotal_amount();
+            balance += sale.getBalance();
+        }
+
+        List<SalesTotals> answer = new ArrayList<>();
+        fake.resetDocumentReads();
+        repository.getSalesTotals(start, end, null, new SalesRepository.OnSalesTotalsLoadedListener() {
+            @Override
+            public void onSalesTotalsLoaded(SalesTotals totals) {
+                answer.add(totals);
+            }
+
+            @Override
+            public void onError(String error) {
+                fail(error);
+            }
+        });
+
+        assertEquals(1, answer.size());
+        SalesTotals totals = answer.get(0);
+        assertNotNull(totals);
+        assertEquals(inRange.size(), totals.getCount());
+        assertEquals(total, totals.getTotal_amount(), 1e-6);
+        assertEquals(balance, totals.getBalance(), 1e-6);
+        // One billed read per 1000 index entries
+        assertEquals((inRange.size() + 999) / 1000, fake.getDocumentReads());
+    }
+
+    @Test
+    public void updatedSaleMovesToItsNewDate() {
+        Sale oldest = readRange(new Date(0), new Date(Long.MAX_VALUE)).get(SALE_COUNT - 1);
+        oldest.setDate(new Date());
+        repository.updateSale(oldest, new SalesRepository.OnSaleUpdatedListener() {
+            @Override
+            public void onSuccess() {
+            }
+
+            @Override
+            public void onError(String error) {
+                fail(error);
+            }
+        });
+
+        List<Sale> all = readRange(new Date(0), new Date(Long.MAX_VALUE));
+        assertEquals(SALE_COUNT, all.size());
+        assertSame(oldest, all.get(0));
+    }
+}